@@ -0,0 +1,79 @@
+package rocks.inspectit.oce.eum.server.arithmetic;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares solving the value expressions of 120 metric definitions sharing fields and sub-expressions for a single
+ * beacon using an {@link EvaluationPlan} against solving each expression on its own, which has been done previously.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvaluationPlanBenchmark {
+
+    private static final int DEFINITIONS = 120;
+
+    private static final String[] TEMPLATES = {
+            "{rt.end} - {rt.tstart}",
+            "({rt.end} - {rt.tstart}) / %d",
+            "{t_done} * %d",
+            "({nt_res_end} - {nt_req_st}) * %d / 1000",
+            "({nt_domcomp} - {nt_nav_st}) / ({rt.end} - {rt.tstart})",
+            "{rt.nstart} - {nt_nav_st} + %d"
+    };
+
+    @Param({"false", "true"})
+    private boolean compile;
+
+    private List<RawExpression> expressions;
+
+    private EvaluationPlan plan;
+
+    private Beacon beacon;
+
+    @Setup
+    public void setup() {
+        expressions = new ArrayList<>();
+        for (int i = 0; i < DEFINITIONS; i++) {
+            expressions.add(new RawExpression(String.format(TEMPLATES[i % TEMPLATES.length], i / TEMPLATES.length + 1), compile));
+        }
+        plan = new EvaluationPlan(expressions, compile);
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("rt.tstart", "1565601241693");
+        fields.put("rt.end", "1565601243723");
+        fields.put("rt.nstart", "1565601241690");
+        fields.put("t_done", "2030");
+        fields.put("nt_nav_st", "1565601241700");
+        fields.put("nt_req_st", "1565601241750");
+        fields.put("nt_res_end", "1565601241900");
+        fields.put("nt_domcomp", "1565601242800");
+        beacon = Beacon.of(fields);
+    }
+
+    @Benchmark
+    public void evaluationPlan(Blackhole blackhole) {
+        EvaluationPlan.Evaluation evaluation = plan.evaluate(beacon);
+        for (int i = 0; i < DEFINITIONS; i++) {
+            blackhole.consume(evaluation.solve(i));
+        }
+    }
+
+    @Benchmark
+    public void separateExpressions(Blackhole blackhole) {
+        for (RawExpression expression : expressions) {
+            blackhole.consume(expression.solve(beacon));
+        }
+    }
+}
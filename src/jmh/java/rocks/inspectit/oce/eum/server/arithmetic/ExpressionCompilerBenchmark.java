@@ -0,0 +1,75 @@
+package rocks.inspectit.oce.eum.server.arithmetic;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares solving the value expressions of 120 metric definitions for a single beacon using classes generated by the
+ * {@link ExpressionCompiler} against interpreting the parsed expressions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionCompilerBenchmark {
+
+    private static final int DEFINITIONS = 120;
+
+    private static final String[] TEMPLATES = {
+            "{rt.end} - {rt.tstart} + %d",
+            "({nt_res_end} - {nt_req_st}) * %d / 1000",
+            "({nt_domcomp} - {nt_nav_st}) / ({rt.end} - {rt.tstart} + %d)",
+            "sqrt({nt_res_end} - {nt_req_st}) * %d",
+            "({nt_domcomp} - {nt_res_end}) ^ 2 / %d - ({nt_req_st} - {nt_nav_st})",
+            "-({rt.end} - {nt_domcomp}) * (%d + {nt_res_end} - {nt_nav_st}) / ({nt_req_st} - {nt_nav_st} + 1)"
+    };
+
+    private RawExpression[] interpreted;
+
+    private RawExpression[] compiled;
+
+    private Beacon beacon;
+
+    @Setup
+    public void setup() {
+        interpreted = new RawExpression[DEFINITIONS];
+        compiled = new RawExpression[DEFINITIONS];
+        for (int i = 0; i < DEFINITIONS; i++) {
+            String expression = String.format(TEMPLATES[i % TEMPLATES.length], i + 1);
+            interpreted[i] = new RawExpression(expression, false);
+            compiled[i] = new RawExpression(expression, true);
+        }
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("rt.tstart", "1565601241693");
+        fields.put("rt.end", "1565601243723");
+        fields.put("nt_nav_st", "1565601241700");
+        fields.put("nt_req_st", "1565601241750");
+        fields.put("nt_res_end", "1565601241900");
+        fields.put("nt_domcomp", "1565601242800");
+        beacon = Beacon.of(fields);
+    }
+
+    @Benchmark
+    public void interpreted(Blackhole blackhole) {
+        solve(interpreted, blackhole);
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole) {
+        solve(compiled, blackhole);
+    }
+
+    private void solve(RawExpression[] expressions, Blackhole blackhole) {
+        for (RawExpression expression : expressions) {
+            blackhole.consume(expression.solve(beacon));
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package rocks.inspectit.oce.eum.server.arithmetic;
+
+import org.openjdk.jmh.annotations.*;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares solving the expression <code>{rt.end} - {rt.tstart}</code> using its parsed tree against replacing the
+ * placeholders textually and parsing the resulting expression, which has been done previously.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RawExpressionBenchmark {
+
+    private RawExpression expression;
+
+    private Beacon beacon;
+
+    @Setup
+    public void setup() {
+        expression = new RawExpression("{rt.end} - {rt.tstart}");
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("rt.end", "1565601241723");
+        fields.put("rt.tstart", "1565601241693");
+        beacon = Beacon.of(fields);
+    }
+
+    @Benchmark
+    public Number parsedTree() {
+        return expression.solve(beacon);
+    }
+
+    @Benchmark
+    public Number textualReplacement() {
+        String resolvedExpression = "{rt.end}-{rt.tstart}"
+                .replace("{rt.end}", beacon.get("rt.end"))
+                .replace("{rt.tstart}", beacon.get("rt.tstart"));
+        return new ArithmeticExpression(resolvedExpression).eval();
+    }
+}
@@ -0,0 +1,79 @@
+package rocks.inspectit.oce.eum.server.beacon.processor;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.openjdk.jmh.annotations.*;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-pass scanners of the {@link BmrBeaconProcessor} and the
+ * {@link CsvKeyValueExpanderBeaconProcessor} against splitting the attributes using regular expressions and collecting
+ * the fields in a map, which has been done previously. Run with <code>-prof gc</code> to compare the allocations per
+ * beacon: the scanners do not split the attribute into intermediate strings and do not collect the fields in a map.
+ * They still allocate the arrays collecting the field names and values, besides the resulting beacon layer and the
+ * field values. The CSV scanner additionally builds the name of each field from the prefix and the key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpandingBeaconProcessorsBenchmark {
+
+    private final BmrBeaconProcessor bmrProcessor = new BmrBeaconProcessor();
+
+    private final CsvKeyValueExpanderBeaconProcessor csvProcessor = new CsvKeyValueExpanderBeaconProcessor();
+
+    private Beacon beacon;
+
+    @Setup
+    public void setup() {
+        beacon = Beacon.of(ImmutableMap.of(
+                "rt.bmr", "1274,205,180,179,112,85,14,14,14,,",
+                "t_other", "t_domloaded|437,boomerang|12,boomr_fb|35,custom0|120,custom1|84"));
+    }
+
+    @Benchmark
+    public Beacon bmrScanner() {
+        return bmrProcessor.process(beacon);
+    }
+
+    @Benchmark
+    public Beacon bmrSplit() {
+        String targetAttribute = beacon.get(BmrBeaconProcessor.ATTRIBUTE_KEY);
+        Map<String, String> bmrAttributes = new HashMap<>();
+        String[] attributes = targetAttribute.split(",");
+        for (int i = 0; i < BmrBeaconProcessor.VALUE_NAMES.length; i++) {
+            String resultKey = BmrBeaconProcessor.ATTRIBUTE_KEY + "." + BmrBeaconProcessor.VALUE_NAMES[i];
+            String value = i >= attributes.length || StringUtils.isBlank(attributes[i]) ? "0" : attributes[i];
+            if (NumberUtils.isCreatable(value)) {
+                bmrAttributes.put(resultKey, value);
+            }
+        }
+        return beacon.merge(bmrAttributes);
+    }
+
+    @Benchmark
+    public Beacon csvScanner() {
+        return csvProcessor.process(beacon);
+    }
+
+    @Benchmark
+    public Beacon csvSplit() {
+        String targetAttribute = beacon.get("t_other");
+        Map<String, String> expandedAttributes = new HashMap<>();
+        for (String attribute : targetAttribute.split(",")) {
+            String[] splitAttributes = attribute.split("\\|");
+            if (splitAttributes.length == 2) {
+                expandedAttributes.put("t_other." + splitAttributes[0], splitAttributes[1]);
+            }
+        }
+        return beacon.merge(expandedAttributes);
+    }
+}
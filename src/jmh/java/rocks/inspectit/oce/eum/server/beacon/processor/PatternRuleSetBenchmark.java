@@ -0,0 +1,71 @@
+package rocks.inspectit.oce.eum.server.beacon.processor;
+
+import org.openjdk.jmh.annotations.*;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.PatternAndReplacement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the {@link PatternRuleSet} against chaining the rules as replacements of a beacon tag, where every
+ * precompiled pattern is applied one after another.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PatternRuleSetBenchmark {
+
+    @Param({"1000"})
+    private int ruleCount;
+
+    /**
+     * The path to normalize, matching a rule in the middle of the rule set.
+     */
+    private String path;
+
+    private PatternRuleSet ruleSet;
+
+    private Pattern[] patterns;
+
+    private String[] replacements;
+
+    @Setup
+    public void setup() {
+        List<PatternAndReplacement> rules = new ArrayList<>();
+        for (int i = 0; i < ruleCount; i++) {
+            rules.add(PatternAndReplacement.builder()
+                    .pattern("^/service" + i + "/user/\\d+/orders$")
+                    .replacement("/service" + i + "/user/{id}/orders")
+                    .build());
+        }
+        ruleSet = new PatternRuleSet(rules);
+
+        patterns = rules.stream().map(rule -> Pattern.compile(rule.getPattern())).toArray(Pattern[]::new);
+        replacements = rules.stream().map(PatternAndReplacement::getReplacement).toArray(String[]::new);
+
+        path = "/service" + (ruleCount / 2) + "/user/12345/orders";
+    }
+
+    @Benchmark
+    public String ruleSet() {
+        return ruleSet.apply(path);
+    }
+
+    @Benchmark
+    public String sequentialReplacements() {
+        String result = path;
+        for (int i = 0; i < patterns.length; i++) {
+            Matcher matcher = patterns[i].matcher(result);
+            if (matcher.find()) {
+                result = matcher.replaceAll(replacements[i]);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package rocks.inspectit.oce.eum.server.beacon.processor;
+
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.*;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.BeaconTagSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.PatternAndReplacement;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.TagsSettings;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the {@link RegexReplacementBeaconProcessor} using precompiled patterns against compiling the patterns for
+ * every beacon and matching them twice, which has been done previously. The URL-derived tags of the default
+ * configuration are used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegexReplacementBeaconProcessorBenchmark {
+
+    private static final Map<String, String> URL_PATTERNS = ImmutableMap.of(
+            "NO_QUERY", "^([^?]*)(\\?.*)?$",
+            "HOST", "^.*\\/\\/([^:\\/]*).*$",
+            "PORT", "^.*\\/\\/([^:\\/]*):(\\d+).*$",
+            "PATH", "^.*\\/\\/([^\\/]*)([^?]*).*$");
+
+    private static final Map<String, String> URL_REPLACEMENTS = ImmutableMap.of(
+            "NO_QUERY", "$1",
+            "HOST", "$1",
+            "PORT", "$2",
+            "PATH", "$2");
+
+    private Map<String, BeaconTagSettings> tags;
+
+    private RegexReplacementBeaconProcessor processor;
+
+    private Beacon beacon;
+
+    @Setup
+    public void setup() {
+        tags = new LinkedHashMap<>();
+        for (String input : Arrays.asList("u", "pgu")) {
+            URL_PATTERNS.forEach((suffix, pattern) -> tags.put(input.toUpperCase() + "_" + suffix, BeaconTagSettings.builder()
+                    .input(input)
+                    .replacements(Collections.singletonList(PatternAndReplacement.builder()
+                            .pattern(pattern)
+                            .replacement(URL_REPLACEMENTS.get(suffix))
+                            .keepNoMatch(false)
+                            .build()))
+                    .build()));
+        }
+
+        EumServerConfiguration configuration = new EumServerConfiguration();
+        configuration.setTags(new TagsSettings());
+        configuration.getTags().setBeacon(tags);
+        processor = new RegexReplacementBeaconProcessor(configuration);
+
+        beacon = Beacon.of(ImmutableMap.of(
+                "u", "https://shop.example.com:8443/catalog/products/12345?ref=home&utm_source=newsletter",
+                "pgu", "https://shop.example.com/catalog?page=2"));
+    }
+
+    @Benchmark
+    public Beacon precompiled() {
+        return processor.process(beacon);
+    }
+
+    @Benchmark
+    public Beacon compiledPerBeacon() {
+        Map<String, String> newTags = new HashMap<>();
+        tags.forEach((tag, settings) -> {
+            String value = beacon.get(settings.getInput());
+            for (PatternAndReplacement replacement : settings.getAllReplacements()) {
+                if (value == null) {
+                    break;
+                }
+                Pattern regex = Pattern.compile(replacement.getPattern());
+                if (regex.matcher(value).find()) {
+                    value = regex.matcher(value).replaceAll(replacement.getReplacement());
+                } else if (!replacement.isKeepNoMatch()) {
+                    value = null;
+                }
+            }
+            if (value != null) {
+                newTags.put(tag, value);
+            }
+        });
+        return beacon.merge(newTags);
+    }
+}
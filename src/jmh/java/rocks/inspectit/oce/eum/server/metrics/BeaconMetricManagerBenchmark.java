@@ -0,0 +1,147 @@
+package rocks.inspectit.oce.eum.server.metrics;
+
+import io.opencensus.stats.Stats;
+import io.opencensus.tags.TagContextBuilder;
+import io.opencensus.tags.TagKey;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.util.ReflectionUtils;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.metric.ExpressionSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.BeaconMetricDefinitionSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.MetricDefinitionSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.BeaconTagSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.TagsSettings;
+import rocks.inspectit.oce.eum.server.events.RegisteredTagsEvent;
+import rocks.inspectit.oce.eum.server.metrics.percentiles.TimeWindowViewManager;
+import rocks.inspectit.oce.eum.server.utils.TagUtils;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares processing a beacon matching 10, 50 or 200 metric definitions, which records all measures of the beacon
+ * using a single tag context and {@link io.opencensus.stats.MeasureMap}, against building the tag context and
+ * recording a measure map for each matching definition, which has been done previously.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeaconMetricManagerBenchmark {
+
+    private static final List<String> BEACON_TAGS = List.of("OS", "BROWSER", "COUNTRY_CODE", "URL", "DEVICE");
+
+    @Param({"10", "50", "200"})
+    private int definitions;
+
+    private BeaconMetricManager beaconMetricManager;
+
+    private MeasuresAndViewsManager measuresAndViewsManager;
+
+    private Map<String, BeaconMetricDefinitionSettings> definitionMap;
+
+    private List<TagKey> beaconTagKeys;
+
+    private Beacon beacon;
+
+    @Setup
+    public void setup() {
+        EumServerConfiguration configuration = new EumServerConfiguration();
+        TagsSettings tagsSettings = new TagsSettings();
+        tagsSettings.setExtra(Map.of("APPLICATION", "my-application"));
+        Map<String, BeaconTagSettings> beaconTagSettings = new HashMap<>();
+        BEACON_TAGS.forEach(tag -> beaconTagSettings.put(tag, BeaconTagSettings.builder().input(tag).build()));
+        tagsSettings.setBeacon(beaconTagSettings);
+        tagsSettings.getDefineAsGlobal().add("APPLICATION");
+        tagsSettings.getDefineAsGlobal().addAll(BEACON_TAGS);
+        configuration.setTags(tagsSettings);
+        configuration.setExpressions(new ExpressionSettings());
+
+        definitionMap = new LinkedHashMap<>();
+        for (int i = 0; i < definitions; i++) {
+            definitionMap.put("benchmark_metric_" + definitions + "_" + i, BeaconMetricDefinitionSettings.beaconMetricBuilder()
+                    .valueExpression(i % 2 == 0 ? "{rt.end} - {rt.tstart}" : "{t_done}")
+                    .type(i % 2 == 0 ? MetricDefinitionSettings.MeasureType.LONG : MetricDefinitionSettings.MeasureType.DOUBLE)
+                    .unit("ms")
+                    .enabled(true)
+                    .build());
+        }
+        configuration.setDefinitions(definitionMap);
+
+        measuresAndViewsManager = new MeasuresAndViewsManager();
+        beaconMetricManager = new BeaconMetricManager();
+        setField(measuresAndViewsManager, "configuration", configuration);
+        setField(measuresAndViewsManager, "recorder", Stats.getStatsRecorder());
+        setField(measuresAndViewsManager, "viewManager", Stats.getViewManager());
+        setField(measuresAndViewsManager, "timeWindowViewManager", new TimeWindowViewManager());
+        setField(measuresAndViewsManager, "applicationEventPublisher", (ApplicationEventPublisher) event -> {
+            if (event instanceof RegisteredTagsEvent) {
+                beaconMetricManager.processUsedTags((RegisteredTagsEvent) event);
+            }
+        });
+        setField(beaconMetricManager, "configuration", configuration);
+        setField(beaconMetricManager, "measuresAndViewsManager", measuresAndViewsManager);
+
+        Set<String> tags = new LinkedHashSet<>(BEACON_TAGS);
+        tags.add("APPLICATION");
+        measuresAndViewsManager.processRegisteredTags(tags);
+
+        beaconTagKeys = new ArrayList<>();
+        BEACON_TAGS.forEach(tag -> beaconTagKeys.add(TagKey.create(tag)));
+
+        Map<String, String> fields = new HashMap<>();
+        fields.put("rt.tstart", "1565601241693");
+        fields.put("rt.end", "1565601243723");
+        fields.put("t_done", "2030");
+        fields.put("OS", "Windows");
+        fields.put("BROWSER", "Firefox");
+        fields.put("COUNTRY_CODE", "DE");
+        fields.put("URL", "https://example.com/shop/cart");
+        fields.put("DEVICE", "desktop");
+        beacon = Beacon.of(fields);
+
+        // registers the measures and views
+        beaconMetricManager.processBeacon(beacon);
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    @Benchmark
+    public boolean singleTagContext() {
+        return beaconMetricManager.processBeacon(beacon);
+    }
+
+    @Benchmark
+    public void tagContextPerDefinition() {
+        for (Map.Entry<String, BeaconMetricDefinitionSettings> definition : definitionMap.entrySet()) {
+            String expression = definition.getValue().getValueExpression();
+            Number value = expression.startsWith("{t_done}") ? Double.parseDouble(beacon.get("t_done")) : Double.parseDouble(beacon
+                    .get("rt.end")) - Double.parseDouble(beacon.get("rt.tstart"));
+
+            measuresAndViewsManager.updateMetrics(definition.getKey(), definition.getValue());
+            TagContextBuilder tagContextBuilder = measuresAndViewsManager.getTagContext();
+            for (TagKey tagKey : beaconTagKeys) {
+                tagContextBuilder.putLocal(TagKey.create(tagKey.getName()), TagUtils.createTagValue(tagKey.getName(), beacon
+                        .get(tagKey.getName())));
+            }
+            try (io.opencensus.common.Scope scope = tagContextBuilder.buildScoped()) {
+                measuresAndViewsManager.recordMeasure(definition.getKey(), definition.getValue(), value);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package rocks.inspectit.oce.eum.server.metrics;
+
+import org.openjdk.jmh.annotations.*;
+import rocks.inspectit.oce.eum.server.arithmetic.RawExpression;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.BeaconRequirement;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares selecting the applying definitions out of 200 metric definitions using the {@link DefinitionIndex}
+ * against validating the requirements and checking the solvability of each definition, which has been done
+ * previously.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DefinitionIndexBenchmark {
+
+    private static final int DEFINITIONS = 200;
+
+    private static final int FIELDS = 40;
+
+    private List<List<BeaconRequirement>> requirements;
+
+    private List<RawExpression> expressions;
+
+    private DefinitionIndex index;
+
+    private Beacon beacon;
+
+    @Setup
+    public void setup() {
+        requirements = new ArrayList<>();
+        expressions = new ArrayList<>();
+        for (int i = 0; i < DEFINITIONS; i++) {
+            List<BeaconRequirement> definitionRequirements = new ArrayList<>();
+            definitionRequirements.add(requirement(BeaconRequirement.RequirementType.EXISTS, "field." + i % FIELDS));
+            definitionRequirements.add(requirement(BeaconRequirement.RequirementType.NOT_EXISTS, "missing." + i % 5));
+            requirements.add(definitionRequirements);
+            expressions.add(new RawExpression("{field." + (i + 1) % FIELDS + "} - {field." + (i + 2) % FIELDS + "}"));
+        }
+        index = new DefinitionIndex(requirements, expressions.stream()
+                .map(RawExpression::getBeaconFields)
+                .collect(Collectors.toList()));
+
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < FIELDS; i += 2) {
+            fields.put("field." + i, String.valueOf(i));
+        }
+        beacon = Beacon.of(fields);
+    }
+
+    private static BeaconRequirement requirement(BeaconRequirement.RequirementType type, String field) {
+        BeaconRequirement requirement = new BeaconRequirement();
+        requirement.setRequirement(type);
+        requirement.setField(field);
+        return requirement;
+    }
+
+    @Benchmark
+    public int index() {
+        DefinitionIndex.Selection selection = index.select(beacon);
+        int applying = 0;
+        for (int i = 0; i < DEFINITIONS; i++) {
+            if (selection.fulfillsRequirements(i) && selection.isSolvable(i)) {
+                applying++;
+            }
+        }
+        return applying;
+    }
+
+    @Benchmark
+    public int validateEach() {
+        int applying = 0;
+        for (int i = 0; i < DEFINITIONS; i++) {
+            if (BeaconRequirement.validate(beacon, requirements.get(i)) && expressions.get(i).isSolvable(beacon)) {
+                applying++;
+            }
+        }
+        return applying;
+    }
+}
@@ -0,0 +1,81 @@
+package rocks.inspectit.oce.eum.server.utils;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares resolving the custom IP mapping of 10k CIDRs using the {@link CidrTrie} against iterating over all CIDRs
+ * and matching each of them using a newly created {@link IpAddressMatcher}, which has been done previously.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CidrTrieBenchmark {
+
+    private static final int NETWORKS = 10000;
+
+    private static final int LOCATIONS = 100;
+
+    private Map<String, List<String>> customIpMapping;
+
+    private CidrTrie<String> trie;
+
+    /**
+     * Contained in the last network of the mapping.
+     */
+    private final String matchingIp = "10." + ((NETWORKS - 1) / 256) + "." + ((NETWORKS - 1) % 256) + ".42";
+
+    private final String unmatchedIp = "192.168.0.1";
+
+    @Setup
+    public void setup() {
+        customIpMapping = new LinkedHashMap<>();
+        CidrTrie.Builder<String> builder = CidrTrie.builder();
+        for (int i = 0; i < NETWORKS; i++) {
+            String location = "LOCATION_" + (i % LOCATIONS);
+            String network = "10." + (i / 256) + "." + (i % 256) + ".0/24";
+            customIpMapping.computeIfAbsent(location, key -> new ArrayList<>()).add(network);
+            builder.put(network, location);
+        }
+        trie = builder.build();
+    }
+
+    @Benchmark
+    public String trieMatch() {
+        return trie.findLongestMatch(matchingIp);
+    }
+
+    @Benchmark
+    public String trieNoMatch() {
+        return trie.findLongestMatch(unmatchedIp);
+    }
+
+    @Benchmark
+    public String linearMatch() {
+        return linearScan(matchingIp);
+    }
+
+    @Benchmark
+    public String linearNoMatch() {
+        return linearScan(unmatchedIp);
+    }
+
+    private String linearScan(String ip) {
+        for (Map.Entry<String, List<String>> customCountryCodeDefinition : customIpMapping.entrySet()) {
+            if (customCountryCodeDefinition.getValue().stream()
+                    .anyMatch(address -> address.contains("/") ? new IpAddressMatcher(address).matches(ip) : address.equals(ip))) {
+                return customCountryCodeDefinition.getKey();
+            }
+        }
+        return null;
+    }
+}
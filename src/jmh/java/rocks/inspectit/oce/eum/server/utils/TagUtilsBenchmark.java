@@ -0,0 +1,39 @@
+package rocks.inspectit.oce.eum.server.utils;
+
+import io.opencensus.internal.StringUtils;
+import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares creating the tag key and value of a recurring tag using the interning caches of {@link TagUtils} against
+ * creating and validating them on each call, which has been done previously.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TagUtilsBenchmark {
+
+    private final String tagKey = "URL";
+
+    private final String tagValue = "https://www.example.com/shop/products/category/electronics/overview";
+
+    @Benchmark
+    public Object interned() {
+        return TagUtils.createTagKey(tagKey) == null ? null : TagUtils.createTagValue(tagKey, tagValue);
+    }
+
+    @Benchmark
+    public Object createdEachTime() {
+        TagKey key = TagKey.create(tagKey);
+        if (tagValue.length() <= TagValue.MAX_LENGTH && StringUtils.isPrintableString(tagValue)) {
+            return key == null ? null : TagValue.create(tagValue);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,284 @@
+package rocks.inspectit.oce.eum.server.arithmetic;
+
+import lombok.extern.slf4j.Slf4j;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconField;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluation plan of multiple {@link RawExpression}s, e.g. the value expressions of all metric definitions. The trees
+ * of the expressions are merged, so that structurally equal sub-expressions like <code>{rt.end} - {rt.tstart}</code>
+ * are represented by a single node. When the expressions are solved for a beacon using an {@link Evaluation}, each
+ * referenced field is parsed only once and each distinct node is computed only once, regardless of the number of
+ * expressions referencing it.
+ * <p>
+ * In case the expressions are compiled, each distinct expression is compiled into a single class instead, which is
+ * shared by all equal expressions. Such a class computes its sub-expressions itself, as evaluating them in
+ * straight-line code is cheaper than looking up previously computed values.
+ * <p>
+ * Expressions which are solved by textual replacement, selection expressions and expressions referencing values which
+ * are not plain numbers are solved by their {@link RawExpression}, so the results are the same in any case.
+ */
+@Slf4j
+public class EvaluationPlan {
+
+    /**
+     * The planned expressions.
+     */
+    private final RawExpression[] expressions;
+
+    /**
+     * The distinct fields referenced by all expressions.
+     */
+    private final List<BeaconField> fields = new ArrayList<>();
+
+    /**
+     * The indices of the fields within {@link #fields} referenced by each expression.
+     */
+    private final int[][] expressionFields;
+
+    /**
+     * The distinct nodes of all expressions. A node is always located behind its children.
+     */
+    private final List<ExpressionNode> nodes = new ArrayList<>();
+
+    /**
+     * The indices of the children within {@link #nodes} of each node.
+     */
+    private final List<int[]> nodeChildren = new ArrayList<>();
+
+    /**
+     * The index of the root node within {@link #nodes} of each expression, <code>-1</code> in case the expression is
+     * solved by its {@link RawExpression}.
+     */
+    private final int[] roots;
+
+    /**
+     * The compiled classes of the root nodes, <code>null</code> in case the nodes are interpreted.
+     */
+    private final ExpressionNode[] compiledRoots;
+
+    /**
+     * Creates the plan of the given expressions.
+     *
+     * @param expressions the expressions to plan
+     * @param compile     whether a class evaluating each distinct expression should be generated
+     */
+    public EvaluationPlan(List<RawExpression> expressions, boolean compile) {
+        this.expressions = expressions.toArray(new RawExpression[0]);
+        expressionFields = new int[this.expressions.length][];
+        roots = new int[this.expressions.length];
+        compiledRoots = compile ? new ExpressionNode[this.expressions.length] : null;
+
+        Map<BeaconField, Integer> fieldIndices = new HashMap<>();
+        Map<ExpressionNode, Integer> nodeIndices = new HashMap<>();
+        Map<Integer, ExpressionNode> compiledNodes = new HashMap<>();
+        for (int i = 0; i < this.expressions.length; i++) {
+            RawExpression expression = this.expressions[i];
+            List<BeaconField> beaconFields = expression.getBeaconFields();
+
+            expressionFields[i] = new int[beaconFields.size()];
+            for (int j = 0; j < beaconFields.size(); j++) {
+                expressionFields[i][j] = fieldIndices.computeIfAbsent(beaconFields.get(j), field -> {
+                    fields.add(field);
+                    return fields.size() - 1;
+                });
+            }
+
+            if (expression.isSelectionExpression() || expression.getTree() == null) {
+                roots[i] = -1;
+            } else {
+                int root = merge(expression.getTree(), expressionFields[i], nodeIndices);
+                roots[i] = root;
+                if (compile) {
+                    compiledRoots[i] = compiledNodes.computeIfAbsent(root, index -> RawExpression.compile(expression.getExpression(), nodes
+                            .get(index)));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of distinct nodes of the plan
+     */
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    /**
+     * Merges the given node into the plan.
+     *
+     * @param node           the node to merge
+     * @param fieldIndices   the indices within {@link #fields} of the fields referenced by the node's expression
+     * @param nodeIndices    the indices of the already merged nodes
+     *
+     * @return the index of the node within {@link #nodes}
+     */
+    private int merge(ExpressionNode node, int[] fieldIndices, Map<ExpressionNode, Integer> nodeIndices) {
+        ExpressionNode mergedNode;
+        int[] children;
+        if (node instanceof ExpressionNode.Field) {
+            ExpressionNode.Field field = (ExpressionNode.Field) node;
+            mergedNode = new ExpressionNode.Field(fieldIndices[field.getIndex()], field.getName());
+            children = new int[0];
+        } else if (node instanceof ExpressionNode.Negation) {
+            int operand = merge(((ExpressionNode.Negation) node).getOperand(), fieldIndices, nodeIndices);
+            mergedNode = new ExpressionNode.Negation(nodes.get(operand));
+            children = new int[]{operand};
+        } else if (node instanceof ExpressionNode.BinaryOperation) {
+            ExpressionNode.BinaryOperation operation = (ExpressionNode.BinaryOperation) node;
+            int left = merge(operation.getLeft(), fieldIndices, nodeIndices);
+            int right = merge(operation.getRight(), fieldIndices, nodeIndices);
+            mergedNode = new ExpressionNode.BinaryOperation(operation.getOperator(), nodes.get(left), nodes.get(right));
+            children = new int[]{left, right};
+        } else if (node instanceof ExpressionNode.FunctionCall) {
+            ExpressionNode.FunctionCall call = (ExpressionNode.FunctionCall) node;
+            int argument = merge(call.getArgument(), fieldIndices, nodeIndices);
+            mergedNode = new ExpressionNode.FunctionCall(call.getFunction(), nodes.get(argument));
+            children = new int[]{argument};
+        } else {
+            mergedNode = node;
+            children = new int[0];
+        }
+
+        Integer index = nodeIndices.get(mergedNode);
+        if (index == null) {
+            index = nodes.size();
+            nodes.add(mergedNode);
+            nodeChildren.add(children);
+            nodeIndices.put(mergedNode, index);
+        }
+        return index;
+    }
+
+    /**
+     * Creates an evaluation of this plan for the given beacon.
+     *
+     * @param beacon the beacon used to solve the expressions
+     *
+     * @return the evaluation, which can be used to solve the planned expressions
+     */
+    public Evaluation evaluate(Beacon beacon) {
+        return new Evaluation(beacon);
+    }
+
+    /**
+     * Evaluation of the plan for a single beacon. The field values and the results of the nodes are computed on demand
+     * and are reused by all expressions solved using this evaluation. An evaluation must not be used concurrently.
+     */
+    public class Evaluation {
+
+        private static final byte UNPARSED = 0;
+
+        private static final byte PARSED = 1;
+
+        /**
+         * The field is missing or its value is not a plain number.
+         */
+        private static final byte NOT_PARSABLE = 2;
+
+        private final Beacon beacon;
+
+        private final double[] fieldValues = new double[fields.size()];
+
+        private final byte[] fieldStates = new byte[fields.size()];
+
+        private final double[] nodeValues = new double[nodes.size()];
+
+        private final boolean[] computedNodes = new boolean[nodes.size()];
+
+        private Evaluation(Beacon beacon) {
+            this.beacon = beacon;
+        }
+
+        /**
+         * Solves the expression at the given index of the plan.
+         *
+         * @param index the index of the expression in the list the plan has been created with
+         *
+         * @return the result of the expression, see {@link RawExpression#solve(Beacon)}
+         */
+        public Number solve(int index) {
+            int root = roots[index];
+            if (root < 0 || !parseFields(expressionFields[index])) {
+                return expressions[index].solve(beacon);
+            }
+
+            double value;
+            if (compiledRoots != null) {
+                if (!computedNodes[root]) {
+                    nodeValues[root] = compiledRoots[index].evaluate(fieldValues);
+                    computedNodes[root] = true;
+                }
+                value = nodeValues[root];
+            } else {
+                value = compute(root);
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Solved expression '{}' resulting in '{}'.", expressions[index].getExpression(), value);
+            }
+            return value;
+        }
+
+        /**
+         * Parses the given fields, in case this has not been done yet.
+         *
+         * @return <code>true</code> in case all fields could be parsed
+         */
+        private boolean parseFields(int[] fieldIndices) {
+            for (int fieldIndex : fieldIndices) {
+                if (fieldStates[fieldIndex] == UNPARSED) {
+                    fieldStates[fieldIndex] = parseField(fieldIndex);
+                }
+                if (fieldStates[fieldIndex] != PARSED) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private byte parseField(int fieldIndex) {
+            String value = beacon.get(fields.get(fieldIndex));
+            if (value == null || !RawExpression.isPlainNumber(value)) {
+                return NOT_PARSABLE;
+            }
+            try {
+                fieldValues[fieldIndex] = RawExpression.parseNumber(value);
+                return PARSED;
+            } catch (NumberFormatException e) {
+                return NOT_PARSABLE;
+            }
+        }
+
+        /**
+         * Computes the node at the given index, in case this has not been done yet.
+         */
+        private double compute(int nodeIndex) {
+            if (computedNodes[nodeIndex]) {
+                return nodeValues[nodeIndex];
+            }
+
+            ExpressionNode node = nodes.get(nodeIndex);
+            int[] children = nodeChildren.get(nodeIndex);
+            double value;
+            if (node instanceof ExpressionNode.Negation) {
+                value = -compute(children[0]);
+            } else if (node instanceof ExpressionNode.BinaryOperation) {
+                value = ((ExpressionNode.BinaryOperation) node).getOperator().apply(compute(children[0]), compute(children[1]));
+            } else if (node instanceof ExpressionNode.FunctionCall) {
+                value = ((ExpressionNode.FunctionCall) node).getFunction().apply(compute(children[0]));
+            } else {
+                value = node.evaluate(fieldValues);
+            }
+
+            nodeValues[nodeIndex] = value;
+            computedNodes[nodeIndex] = true;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package rocks.inspectit.oce.eum.server.arithmetic;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Compiles {@link ExpressionNode} trees into hidden classes. The generated {@link ExpressionNode#evaluate(double[])}
+ * method evaluates the whole tree using straight-line bytecode, thus, it does not have to walk the tree and can be
+ * optimized by the JIT compiler as a single method.
+ * <p>
+ * The hidden classes are not referenced by their class loader, so they can be unloaded as soon as the expression is
+ * not used anymore.
+ */
+class ExpressionCompiler {
+
+    private static final String CLASS_NAME = Type.getInternalName(ExpressionCompiler.class) + "$CompiledExpression";
+
+    private static final String OBJECT = Type.getInternalName(Object.class);
+
+    private static final String MATH = Type.getInternalName(Math.class);
+
+    private static final String EXPRESSION_NODE = Type.getInternalName(ExpressionNode.class);
+
+    private static final String EVALUATE_DESCRIPTOR = "([D)D";
+
+    /**
+     * The methods of {@link Math} which are invoked in sequence for each function.
+     */
+    private static final Map<ExpressionNode.Function, String[]> MATH_FUNCTIONS = new EnumMap<>(ExpressionNode.Function.class);
+
+    static {
+        MATH_FUNCTIONS.put(ExpressionNode.Function.SQRT, new String[]{"sqrt"});
+        MATH_FUNCTIONS.put(ExpressionNode.Function.SIN, new String[]{"toRadians", "sin"});
+        MATH_FUNCTIONS.put(ExpressionNode.Function.COS, new String[]{"toRadians", "cos"});
+        MATH_FUNCTIONS.put(ExpressionNode.Function.TAN, new String[]{"toRadians", "tan"});
+    }
+
+    private MethodVisitor method;
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * Compiles the given tree.
+     *
+     * @param tree the tree to compile
+     *
+     * @return an instance of the generated class, which evaluates the given tree
+     *
+     * @throws UnsupportedOperationException if the tree contains a node which cannot be compiled
+     */
+    static ExpressionNode compile(ExpressionNode tree) {
+        byte[] bytecode = new ExpressionCompiler().generateClass(tree);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytecode, true);
+            return (ExpressionNode) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (Throwable t) {
+            throw new IllegalStateException("The generated class could not be instantiated.", t);
+        }
+    }
+
+    private byte[] generateClass(ExpressionNode tree) {
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        classWriter.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, CLASS_NAME, null, OBJECT, new String[]{EXPRESSION_NODE});
+
+        MethodVisitor constructor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        method = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "evaluate", EVALUATE_DESCRIPTOR, null, null);
+        method.visitCode();
+        generate(tree);
+        method.visitInsn(Opcodes.DRETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    /**
+     * Generates the instructions pushing the result of the given node onto the operand stack.
+     */
+    private void generate(ExpressionNode node) {
+        if (node instanceof ExpressionNode.Constant) {
+            method.visitLdcInsn(((ExpressionNode.Constant) node).getValue());
+        } else if (node instanceof ExpressionNode.Field) {
+            method.visitVarInsn(Opcodes.ALOAD, 1);
+            method.visitLdcInsn(((ExpressionNode.Field) node).getIndex());
+            method.visitInsn(Opcodes.DALOAD);
+        } else if (node instanceof ExpressionNode.Negation) {
+            generate(((ExpressionNode.Negation) node).getOperand());
+            method.visitInsn(Opcodes.DNEG);
+        } else if (node instanceof ExpressionNode.BinaryOperation) {
+            ExpressionNode.BinaryOperation operation = (ExpressionNode.BinaryOperation) node;
+            generate(operation.getLeft());
+            generate(operation.getRight());
+            generate(operation.getOperator());
+        } else if (node instanceof ExpressionNode.FunctionCall) {
+            ExpressionNode.FunctionCall call = (ExpressionNode.FunctionCall) node;
+            generate(call.getArgument());
+            for (String mathMethod : MATH_FUNCTIONS.get(call.getFunction())) {
+                method.visitMethodInsn(Opcodes.INVOKESTATIC, MATH, mathMethod, "(D)D", false);
+            }
+        } else {
+            throw new UnsupportedOperationException("Node " + node + " cannot be compiled.");
+        }
+    }
+
+    private void generate(ExpressionNode.Operator operator) {
+        switch (operator) {
+            case ADD:
+                method.visitInsn(Opcodes.DADD);
+                break;
+            case SUBTRACT:
+                method.visitInsn(Opcodes.DSUB);
+                break;
+            case MULTIPLY:
+                method.visitInsn(Opcodes.DMUL);
+                break;
+            case DIVIDE:
+                method.visitInsn(Opcodes.DDIV);
+                break;
+            case POWER:
+                method.visitMethodInsn(Opcodes.INVOKESTATIC, MATH, "pow", "(DD)D", false);
+                break;
+            default:
+                throw new UnsupportedOperationException("Operator " + operator + " cannot be compiled.");
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package rocks.inspectit.oce.eum.server.arithmetic;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * Node of the immutable abstract syntax tree of a compiled value expression. The leaves of the tree are constants and
+ * accessors of the beacon fields referenced by the expression. See {@link ExpressionParser} for the grammar.
+ */
+public interface ExpressionNode {
+
+    /**
+     * Evaluates this node.
+     *
+     * @param fieldValues the values of the fields referenced by the expression, indexed by {@link Field#getIndex()}
+     *
+     * @return the result of this node
+     */
+    double evaluate(double[] fieldValues);
+
+    /**
+     * A numeric literal of the expression.
+     */
+    @Value
+    class Constant implements ExpressionNode {
+
+        double value;
+
+        @Override
+        public double evaluate(double[] fieldValues) {
+            return value;
+        }
+    }
+
+    /**
+     * Accessor of a beacon field, e.g. <code>{rt.end}</code>.
+     */
+    @Value
+    class Field implements ExpressionNode {
+
+        /**
+         * The index of the field in the list of the fields referenced by the expression.
+         */
+        int index;
+
+        String name;
+
+        @Override
+        public double evaluate(double[] fieldValues) {
+            return fieldValues[index];
+        }
+    }
+
+    /**
+     * The unary minus.
+     */
+    @Value
+    class Negation implements ExpressionNode {
+
+        ExpressionNode operand;
+
+        @Override
+        public double evaluate(double[] fieldValues) {
+            return -operand.evaluate(fieldValues);
+        }
+    }
+
+    /**
+     * A binary operation, e.g. an addition.
+     */
+    @Value
+    class BinaryOperation implements ExpressionNode {
+
+        Operator operator;
+
+        ExpressionNode left;
+
+        ExpressionNode right;
+
+        @Override
+        public double evaluate(double[] fieldValues) {
+            return operator.apply(left.evaluate(fieldValues), right.evaluate(fieldValues));
+        }
+    }
+
+    /**
+     * Invocation of a function, e.g. <code>sqrt</code>.
+     */
+    @Value
+    class FunctionCall implements ExpressionNode {
+
+        Function function;
+
+        ExpressionNode argument;
+
+        @Override
+        public double evaluate(double[] fieldValues) {
+            return function.apply(argument.evaluate(fieldValues));
+        }
+    }
+
+    /**
+     * The supported binary operators.
+     */
+    enum Operator {
+        ADD {
+            @Override
+            public double apply(double left, double right) {
+                return left + right;
+            }
+        },
+        SUBTRACT {
+            @Override
+            public double apply(double left, double right) {
+                return left - right;
+            }
+        },
+        MULTIPLY {
+            @Override
+            public double apply(double left, double right) {
+                return left * right;
+            }
+        },
+        DIVIDE {
+            @Override
+            public double apply(double left, double right) {
+                return left / right;
+            }
+        },
+        POWER {
+            @Override
+            public double apply(double left, double right) {
+                return Math.pow(left, right);
+            }
+        };
+
+        public abstract double apply(double left, double right);
+    }
+
+    /**
+     * The supported functions. The trigonometric functions expect their argument in degrees.
+     */
+    @RequiredArgsConstructor
+    enum Function {
+        SQRT("sqrt") {
+            @Override
+            public double apply(double argument) {
+                return Math.sqrt(argument);
+            }
+        },
+        SIN("sin") {
+            @Override
+            public double apply(double argument) {
+                return Math.sin(Math.toRadians(argument));
+            }
+        },
+        COS("cos") {
+            @Override
+            public double apply(double argument) {
+                return Math.cos(Math.toRadians(argument));
+            }
+        },
+        TAN("tan") {
+            @Override
+            public double apply(double argument) {
+                return Math.tan(Math.toRadians(argument));
+            }
+        };
+
+        /**
+         * The name of the function used in expressions.
+         */
+        @Getter
+        private final String name;
+
+        public abstract double apply(double argument);
+
+        /**
+         * @return the function with the given name or <code>null</code> if no such function exists
+         */
+        public static Function byName(String name) {
+            for (Function function : values()) {
+                if (function.name.equals(name)) {
+                    return function;
+                }
+            }
+            return null;
+        }
+    }
+}
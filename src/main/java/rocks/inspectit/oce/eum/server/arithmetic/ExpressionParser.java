@@ -0,0 +1,127 @@
+package rocks.inspectit.oce.eum.server.arithmetic;
+
+import java.util.List;
+
+/**
+ * Parses value expressions into {@link ExpressionNode} trees. The grammar and its quirks (e.g. a missing closing
+ * parenthesis is accepted) are the same as the ones of {@link ArithmeticExpression}, but in addition field
+ * placeholders like <code>{rt.end}</code> are accepted as factors:
+ * <p>
+ * Grammar:
+ * * expression = term | expression `+` term | expression `-` term
+ * * term = factor | term `*` factor | term `/` factor
+ * * factor = `+` factor | `-` factor | `(` expression `)` | number | `{` field `}` | functionName factor | factor `^` factor
+ * <p>
+ * A placeholder directly adjacent to a number or another placeholder or followed by a letter (e.g. <code>{a}5</code>)
+ * would result in the concatenation of the values when the placeholders are replaced textually. Such expressions are
+ * rejected, so they can be evaluated by textual replacement instead.
+ */
+class ExpressionParser {
+
+    private final String expression;
+
+    /**
+     * The fields referenced by the expression, the index of a field is used by its {@link ExpressionNode.Field}.
+     */
+    private final List<String> fields;
+
+    private int pos = -1;
+
+    private int ch;
+
+    private ExpressionParser(String expression, List<String> fields) {
+        this.expression = expression;
+        this.fields = fields;
+    }
+
+    /**
+     * Parses the given expression.
+     *
+     * @param expression the expression without whitespaces
+     * @param fields     the fields referenced by the expression
+     *
+     * @return the root of the expression's tree
+     *
+     * @throws RuntimeException in case the expression cannot be parsed
+     */
+    static ExpressionNode parse(String expression, List<String> fields) {
+        return new ExpressionParser(expression, fields).parse();
+    }
+
+    private void nextChar() {
+        ch = (++pos < expression.length()) ? expression.charAt(pos) : -1;
+    }
+
+    private boolean eat(int charToEat) {
+        while (ch == ' ') nextChar();
+        if (ch == charToEat) {
+            nextChar();
+            return true;
+        }
+        return false;
+    }
+
+    private ExpressionNode parse() {
+        nextChar();
+        ExpressionNode x = parseExpression();
+        if (pos < expression.length()) throw new RuntimeException("Unexpected: " + (char) ch);
+        return x;
+    }
+
+    private ExpressionNode parseExpression() {
+        ExpressionNode x = parseTerm();
+        for (; ; ) {
+            if (eat('+')) x = new ExpressionNode.BinaryOperation(ExpressionNode.Operator.ADD, x, parseTerm());
+            else if (eat('-')) x = new ExpressionNode.BinaryOperation(ExpressionNode.Operator.SUBTRACT, x, parseTerm());
+            else return x;
+        }
+    }
+
+    private ExpressionNode parseTerm() {
+        ExpressionNode x = parseFactor();
+        for (; ; ) {
+            if (eat('*')) x = new ExpressionNode.BinaryOperation(ExpressionNode.Operator.MULTIPLY, x, parseFactor());
+            else if (eat('/')) x = new ExpressionNode.BinaryOperation(ExpressionNode.Operator.DIVIDE, x, parseFactor());
+            else return x;
+        }
+    }
+
+    private ExpressionNode parseFactor() {
+        if (eat('+')) return parseFactor(); // unary plus
+        if (eat('-')) return new ExpressionNode.Negation(parseFactor()); // unary minus
+
+        ExpressionNode x;
+        int startPos = this.pos;
+        if (eat('(')) { // parentheses
+            x = parseExpression();
+            eat(')');
+        } else if ((ch >= '0' && ch <= '9') || ch == '.') { // numbers
+            while ((ch >= '0' && ch <= '9') || ch == '.') nextChar();
+            x = new ExpressionNode.Constant(Double.parseDouble(expression.substring(startPos, this.pos)));
+        } else if (ch == '{') { // fields
+            int end = expression.indexOf('}', startPos);
+            if (end < 0) throw new RuntimeException("Unclosed field at position " + startPos);
+            String field = expression.substring(startPos + 1, end);
+            int index = fields.indexOf(field);
+            if (index < 0) throw new RuntimeException("Unknown field '" + field + "' at position " + startPos);
+            pos = end;
+            nextChar();
+            if ((ch >= '0' && ch <= '9') || ch == '.' || (ch >= 'a' && ch <= 'z') || ch == '{') {
+                throw new RuntimeException("Field '" + field + "' is directly followed by: " + (char) ch);
+            }
+            x = new ExpressionNode.Field(index, field);
+        } else if (ch >= 'a' && ch <= 'z') { // functions
+            while (ch >= 'a' && ch <= 'z') nextChar();
+            String func = expression.substring(startPos, this.pos);
+            ExpressionNode.Function function = ExpressionNode.Function.byName(func);
+            if (function == null) throw new RuntimeException("Unknown function: " + func);
+            x = new ExpressionNode.FunctionCall(function, parseFactor());
+        } else {
+            throw new ArithmeticException("Could not solve expression '" + expression + "'. Unexpected character at position " + startPos + ": " + (char) ch);
+        }
+
+        if (eat('^')) x = new ExpressionNode.BinaryOperation(ExpressionNode.Operator.POWER, x, parseFactor()); // exponentiation
+
+        return x;
+    }
+}
@@ -1,17 +1,30 @@
 package rocks.inspectit.oce.eum.server.arithmetic;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconField;
+import rocks.inspectit.oce.eum.server.beacon.BeaconFieldDictionary;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Used to resolve the value expressions of {@link BeaconMetricDefinitionSettings}s.
+ * <p>
+ * Expressions are parsed once into an {@link ExpressionNode} tree, which is evaluated using the numeric values of the
+ * referenced beacon fields. As the expressions have originally been solved by replacing the placeholders textually
+ * with the field values, values which are not plain numbers (e.g. <code>-5</code> or <code>1e3</code>) as well as
+ * expressions which cannot be represented as tree (e.g. <code>{a}{b}</code>) are still solved by textual replacement.
+ * This way, the results are the same in any case.
+ * <p>
+ * Optionally, a class evaluating the tree using straight-line bytecode is generated by the {@link ExpressionCompiler}.
+ * In case the tree cannot be compiled, it is interpreted.
  */
 @Slf4j
 public class RawExpression {
@@ -24,6 +37,7 @@ public class RawExpression {
     /**
      * The current expression which may contain placeholders.
      */
+    @Getter(AccessLevel.PACKAGE)
     private String expression;
 
     /**
@@ -32,6 +46,12 @@ public class RawExpression {
     @Getter
     private List<String> fields;
 
+    /**
+     * The handles of the {@link #fields}, resolved once when the expression is created.
+     */
+    @Getter
+    private List<BeaconField> beaconFields;
+
     /**
      * Specifies whether the expression is just referencing a certain field, thus, no calculation is required.
      */
@@ -39,14 +59,36 @@ public class RawExpression {
     private boolean isSelectionExpression;
 
     /**
-     * Constructor.
+     * The tree of the parsed expression, <code>null</code> in case the expression has to be solved by textual
+     * replacement. The indices of its fields refer to the {@link #beaconFields}.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private ExpressionNode tree;
+
+    /**
+     * Evaluates the {@link #tree}, either by interpreting it or using generated bytecode.
+     */
+    private ExpressionNode evaluator;
+
+    /**
+     * Constructor. The expression is interpreted.
      *
      * @param expression the raw expression
      */
     public RawExpression(String expression) {
+        this(expression, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param expression the raw expression
+     * @param compile    whether a class evaluating the expression should be generated
+     */
+    public RawExpression(String expression, boolean compile) {
         this.expression = removeWhitespaces(expression);
 
-        parse();
+        parse(compile);
     }
 
     /**
@@ -59,9 +101,28 @@ public class RawExpression {
     /**
      * Parses the expression, extracts all contained fields and checks whether a calculation is required.
      */
-    private void parse() {
+    private void parse(boolean compile) {
         extractFields();
         isSelectionExpression = expression.matches("\\{([^}]+)\\}");
+        try {
+            tree = ExpressionParser.parse(expression, fields);
+        } catch (RuntimeException e) {
+            log.debug("Expression '{}' is solved by textual replacement, as it cannot be parsed.", expression, e);
+            return;
+        }
+        evaluator = compile && !isSelectionExpression ? compile(expression, tree) : tree;
+    }
+
+    /**
+     * Compiles the given tree, falling back to the tree itself in case it cannot be compiled.
+     */
+    static ExpressionNode compile(String expression, ExpressionNode tree) {
+        try {
+            return ExpressionCompiler.compile(tree);
+        } catch (RuntimeException e) {
+            log.debug("Expression '{}' is interpreted, as it cannot be compiled.", expression, e);
+            return tree;
+        }
     }
 
     /**
@@ -79,6 +140,7 @@ public class RawExpression {
         }
 
         fields = Collections.unmodifiableList(fieldList);
+        beaconFields = fieldList.stream().map(BeaconFieldDictionary::register).collect(Collectors.toList());
     }
 
     /**
@@ -89,7 +151,12 @@ public class RawExpression {
      * @return true in case it would be possible to solve the expression using the given beacon
      */
     public boolean isSolvable(Beacon beacon) {
-        return beacon.contains(fields);
+        for (BeaconField field : beaconFields) {
+            if (!beacon.contains(field)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -100,22 +167,47 @@ public class RawExpression {
      */
     public Number solve(Beacon beacon) {
         if (isSelectionExpression) {
-            double value = Double.parseDouble(beacon.get(fields.get(0)));
+            double value = Double.parseDouble(beacon.get(beaconFields.get(0)));
             if (log.isDebugEnabled()) {
                 log.debug("Directly returning '{}' for expression '{}'.", value, fields.get(0));
             }
             return value;
         }
 
-        String resolvedExpression = expression;
-        for (String field : fields) {
+        if (evaluator == null) {
+            return solveByReplacement(beacon);
+        }
+
+        double[] fieldValues = new double[beaconFields.size()];
+        for (int i = 0; i < fieldValues.length; i++) {
+            BeaconField field = beaconFields.get(i);
             String fieldValue = beacon.get(field);
             if (fieldValue == null) {
                 throw new IllegalStateException("The given beacon does not contain the required field '" + field + "'.");
             }
-            resolvedExpression = resolvedExpression.replace("{" + field + "}", fieldValue);
+            if (!isPlainNumber(fieldValue)) {
+                return solveByReplacement(beacon);
+            }
+            try {
+                fieldValues[i] = parseNumber(fieldValue);
+            } catch (NumberFormatException exception) {
+                log.warn("Expression '{}' could not be solved.", resolve(beacon), exception);
+                return null;
+            }
+        }
+
+        double value = evaluator.evaluate(fieldValues);
+        if (log.isDebugEnabled()) {
+            log.debug("Solved expression '{}' resulting in '{}'.", expression, value);
         }
+        return value;
+    }
 
+    /**
+     * Solves the expression by replacing the placeholders with the field values and parsing the resulting expression.
+     */
+    private Number solveByReplacement(Beacon beacon) {
+        String resolvedExpression = resolve(beacon);
         try {
             double value = new ArithmeticExpression(resolvedExpression).eval();
 
@@ -129,4 +221,51 @@ public class RawExpression {
             return null;
         }
     }
+
+    /**
+     * @return the expression where the placeholders have been replaced with the values of the given beacon
+     */
+    private String resolve(Beacon beacon) {
+        String resolvedExpression = expression;
+        for (BeaconField field : beaconFields) {
+            String fieldValue = beacon.get(field);
+            if (fieldValue == null) {
+                throw new IllegalStateException("The given beacon does not contain the required field '" + field + "'.");
+            }
+            resolvedExpression = resolvedExpression.replace("{" + field.getName() + "}", fieldValue);
+        }
+        return resolvedExpression;
+    }
+
+    /**
+     * Checks whether the given value is a plain number, which consists only of digits and dots. Such a value
+     * represents a single number token when being inserted into the expression, thus, it can be parsed on its own.
+     */
+    static boolean isPlainNumber(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the given plain number. Integers which are exactly representable as double, e.g. timestamps, are parsed
+     * without {@link Double#parseDouble(String)}.
+     */
+    static double parseNumber(String value) {
+        if (value.length() <= 15 && value.indexOf('.') < 0) {
+            long result = 0;
+            for (int i = 0; i < value.length(); i++) {
+                result = result * 10 + (value.charAt(i) - '0');
+            }
+            return result;
+        }
+        return Double.parseDouble(value);
+    }
 }
@@ -1,11 +1,21 @@
 package rocks.inspectit.oce.eum.server.beacon;
 
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
 
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
@@ -13,11 +23,35 @@ import lombok.extern.slf4j.Slf4j;
 
 /**
  * Container for beacons send by the EUM agent.
+ * <p>
+ * Beacons are immutable. Merging fields into a beacon results in a new beacon which only stores the merged fields and
+ * references the original beacon as its parent layer, thus, adding fields does not require to copy the existing ones.
+ * In case the number of layers exceeds {@link #MAX_LAYER_DEPTH}, the layers are flattened into a single one. The
+ * flattened beacon only references the original layers weakly and keeps the names of the fields they added, so that
+ * the fields which have been added on top of a previous beacon can be determined without retaining the original
+ * layers' values, see {@link #mergeDerived(Beacon, Beacon)}.
+ * <p>
+ * Fields registered in the {@link BeaconFieldDictionary} are stored by their id. The base layer stores them in an
+ * array indexed by the id, merged layers store them in compact arrays. Fields which are unknown to the dictionary are
+ * stored in an overflow map.
+ * <p>
+ * The values of a beacon may be stored in their encoded form (see {@link EncodedBeaconValue}), in which case they are
+ * decoded on their first access.
  */
 @Slf4j
 @JsonSerialize(using = BeaconECSSerializer.class)
 public class Beacon {
 
+    /**
+     * The maximum number of layers of a beacon, before they are flattened.
+     */
+    private static final int MAX_LAYER_DEPTH = 8;
+
+    /**
+     * Marker for stored <code>null</code> values, as <code>null</code> represents a missing field.
+     */
+    private static final Object NULL_VALUE = new Object();
+
     /**
      * Creates a {@link Beacon} instance based on the given map.
      *
@@ -26,8 +60,9 @@ public class Beacon {
      * @return a new {@link Beacon} instance
      */
     public static Beacon of(Map<String, String> beaconMap) {
-        HashMap<String, String> map = new HashMap<>(beaconMap);
-        return new Beacon(map);
+        Builder builder = new Builder(true);
+        beaconMap.forEach(builder::put);
+        return builder.build(null);
     }
 
     /**
@@ -39,41 +74,205 @@ public class Beacon {
      * @return A new Beacon instance.
      */
     public static Beacon merge(Beacon beacon1, Beacon beacon2) {
-        return Beacon.of(Stream.of(beacon1.map, beacon2.map).collect(HashMap::new, Map::putAll, Map::putAll));
+        return beacon1.merge(beacon2);
     }
 
     /**
-     * The beacon's property map.
+     * The ids of the fields stored in {@link #values}. In case this is <code>null</code>, the values are indexed by
+     * their field id.
+     */
+    private final int[] fieldIds;
+
+    /**
+     * The values of this layer's registered fields. The values are either strings, {@link EncodedBeaconValue}s or
+     * {@link #NULL_VALUE}.
      */
-    private Map<String, String> map;
+    private final Object[] values;
+
+    /**
+     * The fields of this layer which were not registered in the {@link BeaconFieldDictionary} when the layer was
+     * created. May be <code>null</code>.
+     */
+    private final Map<String, Object> overflow;
+
+    /**
+     * The layer beneath this one, its fields are overwritten by the fields of this layer. May be <code>null</code>.
+     */
+    private final Beacon parent;
+
+    /**
+     * The number of layers of this beacon.
+     */
+    private final int depth;
+
+    /**
+     * The layers which have been flattened into this beacon, starting with the topmost one. <code>null</code> in case
+     * this beacon is not the result of flattening.
+     */
+    private final FlattenedLayer flattenedLayers;
+
+    /**
+     * The fields of all layers, created on demand.
+     */
+    private volatile Map<String, Object> allFields;
+
+    /**
+     * View of all fields, containing the decoded values.
+     */
+    private final Map<String, String> decodedMap;
 
     /**
      * Constructor.
      */
-    private Beacon(Map<String, String> map) {
-        this.map = Collections.unmodifiableMap(map);
+    private Beacon(int[] fieldIds, Object[] values, Map<String, Object> overflow, Beacon parent, FlattenedLayer flattenedLayers) {
+        this.fieldIds = fieldIds;
+        this.values = values;
+        this.overflow = overflow;
+        this.parent = parent;
+        this.flattenedLayers = flattenedLayers;
+        depth = parent == null ? 1 : parent.depth + 1;
+        decodedMap = new DecodedMapView();
     }
 
     /**
-     * Merges this beacon with the given map.
+     * Merges this beacon with the given map. Only the given fields are copied, the existing fields are shared with
+     * this beacon.
      *
      * @param beaconMap The map to be added as beacon properties
      *
      * @return A new {@link Beacon} instance
      */
     public Beacon merge(Map<String, String> beaconMap) {
-        return merge(Beacon.of(beaconMap));
+        if (beaconMap.isEmpty()) {
+            return this;
+        }
+        Builder builder = new Builder(beaconMap.size());
+        beaconMap.forEach(builder::put);
+        return builder.build(this);
+    }
+
+    /**
+     * Merges the given fields into this beacon. In contrast to {@link #merge(Map)}, no intermediate map is required,
+     * thus, processors can collect the fields they derive in arrays and write them in a single batch.
+     *
+     * @param fieldNames  the names of the fields to add
+     * @param fieldValues the values of the fields to add, in the order of the names
+     * @param count       the number of fields to add, i.e. the number of used array elements
+     *
+     * @return A new {@link Beacon} instance or this beacon in case no fields are added
+     */
+    public Beacon merge(String[] fieldNames, String[] fieldValues, int count) {
+        if (count == 0) {
+            return this;
+        }
+        Builder builder = new Builder(count);
+        for (int i = 0; i < count; i++) {
+            builder.put(fieldNames[i], fieldValues[i]);
+        }
+        return builder.build(this);
     }
 
     /**
-     * Merges this beacon with the given one.
+     * Merges this beacon with the given one. In case the given beacon is derived from this beacon, e.g. it is the
+     * result of merging fields into this beacon, it already contains all of this beacon's fields and is returned as it
+     * is.
      *
      * @param beacon The {@link Beacon} to be merged with this one.
      *
      * @return A new {@link Beacon} instance
      */
     public Beacon merge(Beacon beacon) {
-        return Beacon.merge(this, beacon);
+        if (beacon.isDerivedFrom(this)) {
+            return beacon;
+        }
+        Builder builder = new Builder(false);
+        beacon.getAllFields().forEach(builder::put);
+        return builder.build(this);
+    }
+
+    /**
+     * Merges the fields which have been added to the given base beacon in order to create the derived beacon into this
+     * beacon. This is used in case multiple beacons have been derived independently from the same base, thus, only the
+     * differing layers have to be merged. In case the derived beacon has been flattened, only the fields added by the
+     * original layers on top of the base beacon are merged, as well.
+     *
+     * @param derived the beacon derived from the base beacon
+     * @param base    the beacon the derived beacon is based on
+     *
+     * @return A new {@link Beacon} instance or this beacon in case no fields have been added
+     */
+    public Beacon mergeDerived(Beacon derived, Beacon base) {
+        if (derived == base) {
+            return this;
+        }
+        if (!derived.isDerivedFrom(base)) {
+            return merge(derived);
+        }
+        List<Beacon> addedLayers = new ArrayList<>();
+        Beacon layer = derived;
+        while (layer != base && layer.flattenedLayers == null) {
+            addedLayers.add(layer);
+            layer = layer.parent;
+        }
+        Builder builder = new Builder(false);
+        if (layer != base) {
+            // the flattened beacon contains the current values of the fields added by its flattened layers
+            Beacon flattened = layer;
+            for (FlattenedLayer flattenedLayer = flattened.flattenedLayers; flattenedLayer.get() != base; flattenedLayer = flattenedLayer.previous) {
+                flattenedLayer.forEachAddedField(name -> builder.put(name, flattened.find(name)));
+            }
+        }
+        for (int i = addedLayers.size() - 1; i >= 0; i--) {
+            addedLayers.get(i).forEachFieldInLayer(builder::put);
+        }
+        return builder.build(this);
+    }
+
+    /**
+     * Creates a beacon which only contains the fields matching the given filter. In case all fields match the filter,
+     * this beacon is returned.
+     *
+     * @param filter              the filter deciding whether a field is retained
+     * @param prunedFieldListener listener notified about each pruned field and its approximate size in the received
+     *                            beacon, i.e. the length of its name and its encoded value
+     *
+     * @return the projected {@link Beacon} instance
+     */
+    public Beacon project(Predicate<String> filter, ObjIntConsumer<String> prunedFieldListener) {
+        Builder builder = new Builder(true);
+        boolean[] pruned = {false};
+        BiConsumer<String, Object> projection = (name, value) -> {
+            if (filter.test(name)) {
+                builder.putStored(name, value);
+            } else {
+                pruned[0] = true;
+                prunedFieldListener.accept(name, name.length() + sizeOf(value));
+            }
+        };
+
+        if (parent == null) {
+            forEachFieldInLayer(projection);
+        } else {
+            getAllFields().forEach(projection);
+        }
+        return pruned[0] ? builder.build(null) : this;
+    }
+
+    /**
+     * Checks whether this beacon is the given one or has been derived from it.
+     */
+    private boolean isDerivedFrom(Beacon beacon) {
+        for (Beacon layer = this; layer != null; layer = layer.parent) {
+            if (layer == beacon) {
+                return true;
+            }
+            for (FlattenedLayer flattenedLayer = layer.flattenedLayers; flattenedLayer != null; flattenedLayer = flattenedLayer.previous) {
+                if (flattenedLayer.get() == beacon) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     /**
@@ -95,9 +294,23 @@ public class Beacon {
      * @return true in case all specified field keys are existing otherwise false
      */
     public boolean contains(Collection<String> fieldKeys) {
-        boolean fieldMissing = fieldKeys.stream().anyMatch(field -> !map.containsKey(field));
+        for (String fieldKey : fieldKeys) {
+            if (find(fieldKey) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-        return !fieldMissing;
+    /**
+     * Checks whether the beacon contains the given field.
+     *
+     * @param field the field to check
+     *
+     * @return true in case the field exists
+     */
+    public boolean contains(BeaconField field) {
+        return find(field) != null;
     }
 
     /**
@@ -108,15 +321,405 @@ public class Beacon {
      * @return the value of the specified key
      */
     public String get(String fieldKey) {
-        return map.get(fieldKey);
+        return decode(find(fieldKey));
+    }
+
+    /**
+     * Returns the value of the given field. `null` will be returned in case the field does not exist.
+     *
+     * @param field the field to get
+     *
+     * @return the value of the specified field
+     */
+    public String get(BeaconField field) {
+        return decode(find(field));
     }
 
     /**
-     * Returns the content of this beacon as map.
+     * Returns the content of this beacon as unmodifiable map. Encoded values are decoded when they are accessed.
      *
-     * @return a new Map representing the beacon
+     * @return a Map representing the beacon
      */
     public Map<String, String> toMap() {
-        return map;
+        return decodedMap;
+    }
+
+    /**
+     * @return the stored value of the given field or <code>null</code> if it does not exist
+     */
+    private Object find(String fieldKey) {
+        BeaconField field = BeaconFieldDictionary.find(fieldKey);
+        if (field != null) {
+            return find(field);
+        }
+        for (Beacon layer = this; layer != null; layer = layer.parent) {
+            if (layer.overflow != null) {
+                Object value = layer.overflow.get(fieldKey);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the stored value of the given field or <code>null</code> if it does not exist
+     */
+    private Object find(BeaconField field) {
+        int id = field.getId();
+        for (Beacon layer = this; layer != null; layer = layer.parent) {
+            Object value = layer.findInLayer(id, field.getName());
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the value of the given field stored in this layer or <code>null</code> if this layer does not contain it
+     */
+    private Object findInLayer(int id, String name) {
+        if (fieldIds == null) {
+            if (id < values.length && values[id] != null) {
+                return values[id];
+            }
+        } else {
+            for (int i = 0; i < fieldIds.length; i++) {
+                if (fieldIds[i] == id) {
+                    return values[i];
+                }
+            }
+        }
+        // the field may have been registered after this layer has been created
+        return overflow == null ? null : overflow.get(name);
+    }
+
+    /**
+     * Passes all fields of this layer to the given consumer.
+     */
+    private void forEachFieldInLayer(BiConsumer<String, Object> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                int id = fieldIds == null ? i : fieldIds[i];
+                consumer.accept(BeaconFieldDictionary.get(id).getName(), values[i]);
+            }
+        }
+        if (overflow != null) {
+            overflow.forEach(consumer);
+        }
+    }
+
+    /**
+     * @return the fields of all layers, where fields of upper layers overwrite the ones of lower layers
+     */
+    private Map<String, Object> getAllFields() {
+        Map<String, Object> result = allFields;
+        if (result == null) {
+            HashMap<String, Object> mergedFields = parent == null ? new HashMap<>() : new HashMap<>(parent.getAllFields());
+            forEachFieldInLayer(mergedFields::put);
+            result = Collections.unmodifiableMap(mergedFields);
+            allFields = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the decoded representation of the given stored value.
+     */
+    private static String decode(Object value) {
+        if (value instanceof EncodedBeaconValue) {
+            return ((EncodedBeaconValue) value).decode();
+        } else if (value == NULL_VALUE) {
+            return null;
+        }
+        return (String) value;
+    }
+
+    /**
+     * Returns the size of the given stored value, which is the length of its encoded form, if available.
+     */
+    private static int sizeOf(Object value) {
+        if (value instanceof EncodedBeaconValue) {
+            return ((EncodedBeaconValue) value).length();
+        } else if (value == NULL_VALUE) {
+            return 0;
+        }
+        return ((String) value).length();
+    }
+
+    /**
+     * Builder for a single beacon layer.
+     */
+    static final class Builder {
+
+        /**
+         * Whether the values are stored indexed by their field id.
+         */
+        private final boolean indexed;
+
+        private int[] fieldIds;
+
+        private Object[] values;
+
+        private int size;
+
+        private Map<String, Object> overflow;
+
+        /**
+         * @param indexed whether the values should be stored in an array indexed by the field id, which is used for
+         *                base layers
+         */
+        Builder(boolean indexed) {
+            this.indexed = indexed;
+            if (indexed) {
+                values = new Object[BeaconFieldDictionary.size()];
+            } else {
+                fieldIds = new int[8];
+                values = new Object[8];
+            }
+        }
+
+        /**
+         * Creates a builder for a layer which is not indexed.
+         *
+         * @param capacity the expected number of fields
+         */
+        Builder(int capacity) {
+            indexed = false;
+            fieldIds = new int[Math.max(capacity, 1)];
+            values = new Object[Math.max(capacity, 1)];
+        }
+
+        /**
+         * Checks whether the given field has already been added.
+         */
+        boolean contains(String name) {
+            BeaconField field = BeaconFieldDictionary.find(name);
+            if (field != null) {
+                int index = indexOf(field.getId());
+                if (index >= 0 && values[index] != null) {
+                    return true;
+                }
+            }
+            return overflow != null && overflow.containsKey(name);
+        }
+
+        /**
+         * Adds the given field, overwriting a previously added value.
+         *
+         * @param name  the field's name
+         * @param value the field's value, either a string or an {@link EncodedBeaconValue}
+         */
+        void put(String name, Object value) {
+            Object storedValue = value == null ? NULL_VALUE : value;
+
+            BeaconField field = BeaconFieldDictionary.find(name);
+            if (field != null && (!indexed || field.getId() < values.length)) {
+                int index = indexOf(field.getId());
+                if (index < 0) {
+                    index = size++;
+                    if (index == values.length) {
+                        fieldIds = Arrays.copyOf(fieldIds, index * 2);
+                        values = Arrays.copyOf(values, index * 2);
+                    }
+                    fieldIds[index] = field.getId();
+                }
+                values[index] = storedValue;
+            } else {
+                if (overflow == null) {
+                    overflow = new HashMap<>();
+                }
+                overflow.put(name, storedValue);
+            }
+        }
+
+        /**
+         * @return the index in {@link #values} of the given field or -1 in case it has not been added yet
+         */
+        private int indexOf(int id) {
+            if (indexed) {
+                return id < values.length ? id : -1;
+            }
+            for (int i = 0; i < size; i++) {
+                if (fieldIds[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Creates the beacon layer.
+         *
+         * @param parent the layer beneath the new one, may be <code>null</code>
+         *
+         * @return the new beacon
+         */
+        Beacon build(Beacon parent) {
+            if (parent != null && parent.depth >= MAX_LAYER_DEPTH) {
+                Builder flattened = new Builder(true);
+                parent.getAllFields().forEach(flattened::putStored);
+                forEachField(flattened::putStored);
+                return flattened.build(null, FlattenedLayer.of(build(parent, null)));
+            }
+            return build(parent, null);
+        }
+
+        /**
+         * Creates the beacon layer without flattening it.
+         *
+         * @param parent          the layer beneath the new one, may be <code>null</code>
+         * @param flattenedLayers the layers which are flattened into the new one, may be <code>null</code>
+         */
+        private Beacon build(Beacon parent, FlattenedLayer flattenedLayers) {
+            if (indexed) {
+                return new Beacon(null, values, overflow, parent, flattenedLayers);
+            }
+            if (size == values.length) {
+                // the builder is not used anymore, thus, its arrays can be used if they are completely filled
+                return new Beacon(fieldIds, values, overflow, parent, flattenedLayers);
+            }
+            return new Beacon(Arrays.copyOf(fieldIds, size), Arrays.copyOf(values, size), overflow, parent, flattenedLayers);
+        }
+
+        /**
+         * Passes all added fields to the given consumer.
+         */
+        private void forEachField(BiConsumer<String, Object> consumer) {
+            int count = indexed ? values.length : size;
+            for (int i = 0; i < count; i++) {
+                if (values[i] != null) {
+                    int id = indexed ? i : fieldIds[i];
+                    consumer.accept(BeaconFieldDictionary.get(id).getName(), values[i]);
+                }
+            }
+            if (overflow != null) {
+                overflow.forEach(consumer);
+            }
+        }
+
+        /**
+         * Adds an already stored value, keeping the {@link #NULL_VALUE} marker.
+         */
+        private void putStored(String name, Object storedValue) {
+            put(name, storedValue == NULL_VALUE ? null : storedValue);
+        }
+    }
+
+    /**
+     * A layer which has been flattened. The layer is only referenced weakly, so its values are not retained by the
+     * flattened beacon, whereas the names of the fields it added are kept.
+     */
+    private static final class FlattenedLayer extends WeakReference<Beacon> {
+
+        /**
+         * The ids of the registered fields added by the layer. <code>null</code> in case of a base layer, whose fields
+         * have not been added on top of another layer.
+         */
+        private final int[] fieldIds;
+
+        /**
+         * The names of the unregistered fields added by the layer. May be <code>null</code>.
+         */
+        private final String[] overflowFields;
+
+        /**
+         * The flattened layer beneath this one. May be <code>null</code>.
+         */
+        private final FlattenedLayer previous;
+
+        private FlattenedLayer(Beacon layer, int[] fieldIds, String[] overflowFields, FlattenedLayer previous) {
+            super(layer);
+            this.fieldIds = fieldIds;
+            this.overflowFields = overflowFields;
+            this.previous = previous;
+        }
+
+        /**
+         * Records the given layer and all layers beneath it. In case the base layer is the result of flattening, its
+         * flattened layers are continued.
+         *
+         * @param layer the topmost layer to flatten
+         *
+         * @return the record of the given layer
+         */
+        private static FlattenedLayer of(Beacon layer) {
+            if (layer.parent == null) {
+                return new FlattenedLayer(layer, null, null, layer.flattenedLayers);
+            }
+            String[] overflowFields = layer.overflow == null ? null : layer.overflow.keySet().toArray(new String[0]);
+            return new FlattenedLayer(layer, layer.fieldIds, overflowFields, of(layer.parent));
+        }
+
+        /**
+         * Passes the names of all fields added by the layer to the given consumer.
+         */
+        private void forEachAddedField(Consumer<String> consumer) {
+            if (fieldIds != null) {
+                for (int id : fieldIds) {
+                    consumer.accept(BeaconFieldDictionary.get(id).getName());
+                }
+            }
+            if (overflowFields != null) {
+                for (String name : overflowFields) {
+                    consumer.accept(name);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read-only view of the beacon's fields, decoding the values when they are accessed.
+     */
+    private class DecodedMapView extends AbstractMap<String, String> {
+
+        @Override
+        public String get(Object key) {
+            return key instanceof String ? Beacon.this.get((String) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && find((String) key) != null;
+        }
+
+        @Override
+        public int size() {
+            return getAllFields().size();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return getAllFields().keySet();
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    Iterator<Entry<String, Object>> iterator = getAllFields().entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            Entry<String, Object> entry = iterator.next();
+                            return new SimpleImmutableEntry<>(entry.getKey(), decode(entry.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return getAllFields().size();
+                }
+            };
+        }
     }
 }
@@ -0,0 +1,32 @@
+package rocks.inspectit.oce.eum.server.beacon;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Handle of a beacon field which has been registered in the {@link BeaconFieldDictionary}. Beacons store the values of
+ * registered fields in an array indexed by the field's id, thus, accessing a beacon using the field handle does not
+ * require hashing the field's name.
+ * <p>
+ * Handles are unique per field name, thus, they can be compared by identity.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class BeaconField {
+
+    /**
+     * The dense id of this field.
+     */
+    private final int id;
+
+    /**
+     * The name of this field.
+     */
+    private final String name;
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,113 @@
+package rocks.inspectit.oce.eum.server.beacon;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Global dictionary assigning dense ids to the names of beacon fields. The dictionary contains well-known Boomerang
+ * fields and all fields which are referenced by the configuration. Fields are registered once at configuration time,
+ * received beacons only look up the ids of their fields, thus, unknown fields sent by clients never grow the dictionary.
+ * <p>
+ * Lookups are lock-free, as the dictionary's state is replaced as a whole when a field is registered.
+ */
+@Slf4j
+public final class BeaconFieldDictionary {
+
+    /**
+     * Well-known fields sent by Boomerang.
+     */
+    private static final String[] BOOMERANG_FIELDS = {"u", "pgu", "r", "r2", "nu", "v", "sv", "sm", "pid", "n", "rt.si", "rt.ss", "rt.sl", "rt.tt", "rt.obo", "rt.start", "rt.tstart", "rt.bstart", "rt.end", "rt.ntstart", "rt.nstart", "rt.cstart", "rt.blstart", "rt.sstart", "rt.quit", "rt.abld", "rt.bmr", "t_done", "t_page", "t_resp", "t_load", "t_other", "t_domloaded", "restiming", "http.initiator", "http.type", "http.method", "http.errno", "http.hdr", "xhr.pg", "nt_red_cnt", "nt_nav_type", "nt_nav_st", "nt_red_st", "nt_red_end", "nt_fet_st", "nt_dns_st", "nt_dns_end", "nt_con_st", "nt_con_end", "nt_ssl_st", "nt_req_st", "nt_res_st", "nt_res_end", "nt_domloading", "nt_domint", "nt_domcontloaded_st", "nt_domcontloaded_end", "nt_domcomp", "nt_load_st", "nt_load_end", "nt_unload_st", "nt_unload_end", "nt_enc_size", "nt_dec_size", "nt_trn_size", "nt_protocol", "nt_first_paint", "pt.fp", "pt.fcp", "pt.lcp", "c.e", "c.f", "c.lb", "c.lt", "c.tti", "c.tti.vr", "dom.res", "dom.doms", "dom.img", "dom.script", "dom.ln", "dom.sz", "dom.ck", "mem.total", "mem.used", "mem.limit", "mob.ct", "mob.bw", "mob.etype", "mob.dl", "mob.rtt", "scr.xy", "scr.bpp", "scr.orn", "scr.dpx", "cpu.cnc", "bat.lvl", "vis.st", "ua.plt", "ua.vnd", "sb", "err", "errors", "api", "api.v", "api.l", "h.key", "h.d", "h.t", "h.cr"};
+
+    /**
+     * The current state of the dictionary.
+     */
+    private static volatile State state = new State(new BeaconField[0], new HashMap<>());
+
+    static {
+        Arrays.stream(BOOMERANG_FIELDS).forEach(BeaconFieldDictionary::register);
+    }
+
+    private BeaconFieldDictionary() {
+    }
+
+    /**
+     * Returns the handle of the given field and registers the field in case it is not yet known. This method should
+     * only be used for fields referenced by the configuration.
+     *
+     * @param name the field's name
+     *
+     * @return the field's handle
+     */
+    public static BeaconField register(String name) {
+        BeaconField field = find(name);
+        if (field != null) {
+            return field;
+        }
+
+        synchronized (BeaconFieldDictionary.class) {
+            State current = state;
+            field = current.fieldsByName.get(name);
+            if (field == null) {
+                field = new BeaconField(current.fields.length, name);
+
+                BeaconField[] fields = Arrays.copyOf(current.fields, current.fields.length + 1);
+                fields[field.getId()] = field;
+                Map<String, BeaconField> fieldsByName = new HashMap<>(current.fieldsByName);
+                fieldsByName.put(name, field);
+
+                state = new State(fields, fieldsByName);
+                log.debug("Registered beacon field '{}' with id {}.", name, field.getId());
+            }
+            return field;
+        }
+    }
+
+    /**
+     * Returns the handle of the given field.
+     *
+     * @param name the field's name
+     *
+     * @return the field's handle or <code>null</code> in case the field has not been registered
+     */
+    public static BeaconField find(String name) {
+        return state.fieldsByName.get(name);
+    }
+
+    /**
+     * @return the field with the given id
+     */
+    static BeaconField get(int id) {
+        return state.fields[id];
+    }
+
+    /**
+     * @return the number of registered fields, which is also the exclusive upper bound of the existing ids
+     */
+    static int size() {
+        return state.fields.length;
+    }
+
+    /**
+     * Immutable state of the dictionary.
+     */
+    private static class State {
+
+        /**
+         * The registered fields, indexed by their id.
+         */
+        private final BeaconField[] fields;
+
+        /**
+         * The registered fields, indexed by their name.
+         */
+        private final Map<String, BeaconField> fieldsByName;
+
+        State(BeaconField[] fields, Map<String, BeaconField> fieldsByName) {
+            this.fields = fields;
+            this.fieldsByName = fieldsByName;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package rocks.inspectit.oce.eum.server.beacon;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import rocks.inspectit.oce.eum.server.arithmetic.RawExpression;
+import rocks.inspectit.oce.eum.server.beacon.recorder.BeaconRecorder;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.exporters.beacon.InitiatorType;
+import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.BeaconMetricDefinitionSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.BeaconRequirement;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.BeaconTagSettings;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Determines the beacon fields which are consumed by the components processing beacons after they have been enriched
+ * by the beacon processors, i.e. the metric definitions, the beacon tags and the beacon recorders.
+ */
+@Component
+public class BeaconFieldUsage {
+
+    @Autowired
+    private EumServerConfiguration configuration;
+
+    @Autowired(required = false)
+    private List<BeaconRecorder> beaconRecorders;
+
+    /**
+     * Collects the fields read by the metric definitions (value expressions and requirements), the beacon tags (the
+     * tags themselves and their inputs) and the beacon recorders.
+     *
+     * @return the names of the consumed fields or <code>null</code> in case any recorder does not declare its fields
+     */
+    public Set<String> collectConsumedFields() {
+        Set<String> consumedFields = new HashSet<>();
+
+        Map<String, BeaconMetricDefinitionSettings> definitions = configuration.getDefinitions();
+        if (definitions != null) {
+            for (BeaconMetricDefinitionSettings definition : definitions.values()) {
+                consumedFields.addAll(new RawExpression(definition.getValueExpression()).getFields());
+                if (definition.getBeaconRequirements() != null) {
+                    definition.getBeaconRequirements()
+                            .forEach(requirement -> addRequirementFields(requirement, consumedFields));
+                }
+            }
+        }
+
+        Map<String, BeaconTagSettings> beaconTags = configuration.getTags().getBeacon();
+        if (beaconTags != null) {
+            beaconTags.forEach((tag, tagSettings) -> {
+                consumedFields.add(tag);
+                consumedFields.add(tagSettings.getInput());
+            });
+        }
+
+        if (beaconRecorders != null) {
+            for (BeaconRecorder recorder : beaconRecorders) {
+                Set<String> recorderFields = recorder.getInputFields();
+                if (recorderFields == null) {
+                    return null;
+                }
+                consumedFields.addAll(recorderFields);
+            }
+        }
+
+        return consumedFields;
+    }
+
+    private void addRequirementFields(BeaconRequirement requirement, Set<String> consumedFields) {
+        if (requirement.getRequirement() == BeaconRequirement.RequirementType.HAS_INITIATOR) {
+            consumedFields.add(InitiatorType.HTTP_INITIATOR_FIELD);
+        } else if (requirement.getField() != null) {
+            consumedFields.add(requirement.getField());
+        }
+    }
+}
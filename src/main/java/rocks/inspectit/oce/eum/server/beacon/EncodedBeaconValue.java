@@ -0,0 +1,121 @@
+package rocks.inspectit.oce.eum.server.beacon;
+
+import java.nio.charset.Charset;
+
+/**
+ * A URL-encoded beacon value, referencing a section of the received request body. The value is decoded on its first
+ * access, thus, values which are never used do not have to be decoded at all.
+ */
+final class EncodedBeaconValue {
+
+    /**
+     * The buffer containing the encoded value.
+     */
+    private final byte[] data;
+
+    /**
+     * The offset of the value in the buffer.
+     */
+    private final int offset;
+
+    /**
+     * The length of the encoded value.
+     */
+    private final int length;
+
+    /**
+     * The charset of the encoded value.
+     */
+    private final Charset charset;
+
+    /**
+     * The decoded value, set on the first access. A concurrent access may result in the value being decoded multiple
+     * times, which is harmless as strings are immutable.
+     */
+    private String decoded;
+
+    EncodedBeaconValue(byte[] data, int offset, int length, Charset charset) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        this.charset = charset;
+    }
+
+    /**
+     * @return the decoded value
+     */
+    String decode() {
+        String result = decoded;
+        if (result == null) {
+            result = decode(data, offset, length, charset);
+            decoded = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return the length of the encoded value in bytes
+     */
+    int length() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return decode();
+    }
+
+    /**
+     * URL-decodes the given section of the buffer. In contrast to {@link java.net.URLDecoder}, malformed escape
+     * sequences do not result in an exception but are kept as they are.
+     *
+     * @param data    the buffer containing the encoded data
+     * @param offset  the offset of the data to decode
+     * @param length  the length of the data to decode
+     * @param charset the charset of the encoded data
+     *
+     * @return the decoded string
+     */
+    static String decode(byte[] data, int offset, int length, Charset charset) {
+        int end = offset + length;
+
+        int firstEscape = offset;
+        while (firstEscape < end && data[firstEscape] != '%' && data[firstEscape] != '+') {
+            firstEscape++;
+        }
+        if (firstEscape == end) {
+            return new String(data, offset, length, charset);
+        }
+
+        byte[] buffer = new byte[length];
+        int bufferLength = firstEscape - offset;
+        System.arraycopy(data, offset, buffer, 0, bufferLength);
+
+        for (int i = firstEscape; i < end; i++) {
+            byte current = data[i];
+            if (current == '+') {
+                buffer[bufferLength++] = ' ';
+            } else if (current == '%' && i + 2 < end && hexValue(data[i + 1]) >= 0 && hexValue(data[i + 2]) >= 0) {
+                buffer[bufferLength++] = (byte) ((hexValue(data[i + 1]) << 4) + hexValue(data[i + 2]));
+                i += 2;
+            } else {
+                buffer[bufferLength++] = current;
+            }
+        }
+        return new String(buffer, 0, bufferLength, charset);
+    }
+
+    /**
+     * @return the value of the given hex digit or -1 in case it is not a hex digit
+     */
+    private static int hexValue(byte digit) {
+        if (digit >= '0' && digit <= '9') {
+            return digit - '0';
+        } else if (digit >= 'a' && digit <= 'f') {
+            return digit - 'a' + 10;
+        } else if (digit >= 'A' && digit <= 'F') {
+            return digit - 'A' + 10;
+        }
+        return -1;
+    }
+}
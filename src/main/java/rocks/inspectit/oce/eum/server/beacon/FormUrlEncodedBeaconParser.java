@@ -0,0 +1,82 @@
+package rocks.inspectit.oce.eum.server.beacon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Parser for beacons sent as <code>application/x-www-form-urlencoded</code> data. The request body is read once and
+ * the resulting {@link Beacon} references the values in the read buffer. Only the field names are decoded eagerly,
+ * the values are decoded when they are accessed for the first time.
+ * <p>
+ * In case a field occurs multiple times, its first value is used.
+ */
+public final class FormUrlEncodedBeaconParser {
+
+    private FormUrlEncodedBeaconParser() {
+    }
+
+    /**
+     * Reads the given stream and parses its content to a {@link Beacon}.
+     *
+     * @param inputStream   the stream containing the form data
+     * @param contentLength the length of the content or a negative value if it is unknown
+     * @param charset       the charset of the form data
+     *
+     * @return the parsed {@link Beacon}
+     */
+    public static Beacon parse(InputStream inputStream, long contentLength, Charset charset) throws IOException {
+        byte[] data;
+        if (contentLength >= 0 && contentLength < Integer.MAX_VALUE) {
+            data = inputStream.readNBytes((int) contentLength);
+        } else {
+            data = inputStream.readAllBytes();
+        }
+        return parse(data, charset);
+    }
+
+    /**
+     * Parses the given form data to a {@link Beacon}. The given buffer must not be modified afterwards.
+     *
+     * @param data    the form data
+     * @param charset the charset of the form data
+     *
+     * @return the parsed {@link Beacon}
+     */
+    public static Beacon parse(byte[] data, Charset charset) {
+        Beacon.Builder fields = new Beacon.Builder(true);
+
+        int fieldStart = 0;
+        while (fieldStart < data.length) {
+            int fieldEnd = fieldStart;
+            int separator = -1;
+            while (fieldEnd < data.length && data[fieldEnd] != '&') {
+                if (separator < 0 && data[fieldEnd] == '=') {
+                    separator = fieldEnd;
+                }
+                fieldEnd++;
+            }
+
+            if (fieldEnd > fieldStart) {
+                if (separator < 0) {
+                    String key = EncodedBeaconValue.decode(data, fieldStart, fieldEnd - fieldStart, charset);
+                    // consistent with Spring's form converter, fields without a value are stored as null
+                    if (!fields.contains(key)) {
+                        fields.put(key, null);
+                    }
+                } else if (separator > fieldStart) {
+                    String key = EncodedBeaconValue.decode(data, fieldStart, separator - fieldStart, charset);
+                    int valueStart = separator + 1;
+                    Object value = valueStart == fieldEnd ? "" : new EncodedBeaconValue(data, valueStart, fieldEnd - valueStart, charset);
+                    if (!fields.contains(key)) {
+                        fields.put(key, value);
+                    }
+                }
+            }
+
+            fieldStart = fieldEnd + 1;
+        }
+
+        return fields.build(null);
+    }
+}
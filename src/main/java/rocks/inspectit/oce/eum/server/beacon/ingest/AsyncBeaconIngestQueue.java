@@ -0,0 +1,237 @@
+package rocks.inspectit.oce.eum.server.beacon.ingest;
+
+import com.google.common.annotations.VisibleForTesting;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.ingestion.AsyncIngestionSettings;
+import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
+import rocks.inspectit.oce.eum.server.utils.ClientContext;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded queue for the asynchronous ingestion of beacons. Received beacons are enqueued without blocking the request
+ * thread and are processed by a pool of workers using the {@link BeaconIngestService}.
+ * <p>
+ * The queue itself is lock-free, its capacity is enforced using an atomic counter. Workers only block while the queue
+ * is empty.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(value = "inspectit-eum-server.ingestion.async.enabled", havingValue = "true")
+public class AsyncBeaconIngestQueue {
+
+    /**
+     * The interval in which the queue's state is recorded by the self-monitoring.
+     */
+    private static final long MONITORING_INTERVAL_MS = 5000;
+
+    /**
+     * The time a worker waits for new beacons before checking whether it should terminate.
+     */
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    @Autowired
+    private EumServerConfiguration configuration;
+
+    @Autowired
+    private BeaconIngestService ingestService;
+
+    @Autowired
+    private SelfMonitoringMetricManager selfMonitoring;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutor;
+
+    /**
+     * The queued beacons.
+     */
+    private final ConcurrentLinkedQueue<QueuedBeacon> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of beacons in the queue, used to enforce the capacity.
+     */
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    /**
+     * Permits representing the queued beacons, used to wake up idle workers.
+     */
+    private final Semaphore availableBeacons = new Semaphore(0);
+
+    /**
+     * The number of beacons which have been dropped since the last time the self-monitoring was updated.
+     */
+    private final LongAdder droppedBeacons = new LongAdder();
+
+    /**
+     * The threads processing the queued beacons.
+     */
+    private final List<Thread> workers = new ArrayList<>();
+
+    /**
+     * The maximum number of queued beacons.
+     */
+    private int capacity;
+
+    private volatile boolean running;
+
+    private ScheduledFuture<?> monitoringTask;
+
+    @PostConstruct
+    public void initialize() {
+        AsyncIngestionSettings settings = configuration.getIngestion().getAsync();
+        log.info("Starting asynchronous beacon ingestion with a queue capacity of {} and {} workers.", settings.getQueueCapacity(), settings
+                .getWorkerThreads());
+
+        capacity = settings.getQueueCapacity();
+        running = true;
+
+        for (int i = 0; i < settings.getWorkerThreads(); i++) {
+            Thread worker = new Thread(this::work, "inspectit-beacon-ingest-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        monitoringTask = scheduledExecutor.scheduleAtFixedRate(this::recordSelfMonitoring, MONITORING_INTERVAL_MS, MONITORING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the workers after the remaining beacons have been processed.
+     */
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        log.info("Shutting down asynchronous beacon ingestion..");
+
+        running = false;
+        if (monitoringTask != null) {
+            monitoringTask.cancel(false);
+        }
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            if (worker.isAlive()) {
+                worker.interrupt();
+            }
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Couldn't process {} queued beacons before shutting down.", queue.size());
+        }
+    }
+
+    /**
+     * Enqueues the given beacon for processing.
+     *
+     * @param beacon        the received beacon
+     * @param clientContext the client information of the request which contained the beacon, it is detached from the
+     *                      request, so it can be used after the request has been completed
+     *
+     * @return <code>false</code> in case the queue is full and the beacon has been dropped, otherwise <code>true</code>
+     */
+    public boolean offer(Beacon beacon, ClientContext clientContext) {
+        if (queueSize.incrementAndGet() > capacity) {
+            queueSize.decrementAndGet();
+            droppedBeacons.increment();
+            return false;
+        }
+        queue.offer(new QueuedBeacon(beacon, clientContext == null ? null : clientContext.detach()));
+        availableBeacons.release();
+        return true;
+    }
+
+    /**
+     * Records beacons which have been dropped without being offered, e.g. the remaining beacons of a batch after one of
+     * its beacons has been rejected.
+     *
+     * @param count the number of dropped beacons
+     */
+    public void drop(int count) {
+        droppedBeacons.add(count);
+    }
+
+    /**
+     * @return the number of beacons waiting for being processed
+     */
+    public int size() {
+        return queueSize.get();
+    }
+
+    /**
+     * @return the delay in seconds clients should wait before sending beacons again, in case the queue is full
+     */
+    public long getRetryAfterSeconds() {
+        return configuration.getIngestion().getAsync().getRetryAfter().getSeconds();
+    }
+
+    /**
+     * The workers' loop, processing beacons until the queue is stopped and empty.
+     */
+    private void work() {
+        while (running || !queue.isEmpty()) {
+            try {
+                if (availableBeacons.tryAcquire(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    QueuedBeacon queuedBeacon = queue.poll();
+                    queueSize.decrementAndGet();
+                    process(queuedBeacon);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void process(QueuedBeacon queuedBeacon) {
+        try (ClientContext.Scope scope = ClientContext.bind(queuedBeacon.getClientContext())) {
+            ingestService.ingest(queuedBeacon.getBeacon());
+        } catch (Exception e) {
+            ingestService.recordReceived(false);
+            log.error("Error while processing queued beacon", e);
+        }
+    }
+
+    /**
+     * Records the current queue size and the number of dropped beacons.
+     */
+    private void recordSelfMonitoring() {
+        selfMonitoring.record("beacons_ingest_queue", queueSize.get());
+
+        long dropped = droppedBeacons.sumThenReset();
+        if (dropped > 0) {
+            log.warn("Dropped {} beacons because the ingest queue is full.", dropped);
+            selfMonitoring.record("beacons_dropped", dropped, Collections.singletonMap("reason", "queue_full"));
+        }
+    }
+
+    /**
+     * A beacon waiting for being processed.
+     */
+    @Value
+    @VisibleForTesting
+    static class QueuedBeacon {
+
+        /**
+         * The received beacon.
+         */
+        Beacon beacon;
+
+        /**
+         * The client information of the request which contained the beacon.
+         */
+        ClientContext clientContext;
+    }
+}
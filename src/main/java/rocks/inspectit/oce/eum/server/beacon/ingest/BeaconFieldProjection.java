@@ -0,0 +1,125 @@
+package rocks.inspectit.oce.eum.server.beacon.ingest;
+
+import com.google.common.annotations.VisibleForTesting;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconFieldUsage;
+import rocks.inspectit.oce.eum.server.beacon.processor.CompositeBeaconProcessor;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.ingestion.ProjectionSettings;
+import rocks.inspectit.oce.eum.server.exporters.beacon.BeaconHttpExporter;
+import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
+
+import jakarta.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drops fields of received beacons which are not used by any component, thus, they don't have to be kept in memory
+ * while the beacon is processed. The retained fields are determined once on startup, based on the fields used by the
+ * metric definitions, the beacon tags, the enabled beacon processors and the beacon recorders.
+ * <p>
+ * In case any processor or recorder does not declare the fields it is using, the projection is disabled.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(value = "inspectit-eum-server.ingestion.projection.enabled", havingValue = "true")
+public class BeaconFieldProjection {
+
+    /**
+     * The maximum number of pruned field names which are logged.
+     */
+    private static final int MAX_LOGGED_FIELDS = 100;
+
+    @Autowired
+    private EumServerConfiguration configuration;
+
+    @Autowired
+    private CompositeBeaconProcessor beaconProcessor;
+
+    @Autowired
+    private BeaconFieldUsage beaconFieldUsage;
+
+    @Autowired(required = false)
+    private BeaconHttpExporter beaconHttpExporter;
+
+    @Autowired
+    private SelfMonitoringMetricManager selfMonitoring;
+
+    /**
+     * The fields which are retained, <code>null</code> in case the projection is not active.
+     */
+    private Set<String> retainedFields;
+
+    /**
+     * The names of the pruned fields which have been logged.
+     */
+    private final Set<String> loggedFields = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void initialize() {
+        ProjectionSettings settings = configuration.getIngestion().getProjection();
+        if (beaconHttpExporter != null && settings.getRetainedFields().isEmpty()) {
+            log.info("Beacon field projection is disabled because the beacon exporter is enabled and no retained fields are specified.");
+            return;
+        }
+
+        retainedFields = collectUsedFields();
+        if (retainedFields == null) {
+            log.info("Beacon field projection is disabled because not all beacon processors and recorders declare their input fields.");
+            return;
+        }
+        retainedFields.addAll(settings.getRetainedFields());
+
+        log.info("Beacon field projection is enabled, retaining the fields: {}", new TreeSet<>(retainedFields));
+    }
+
+    /**
+     * @return the names of the fields read by any component or <code>null</code> in case they are unknown
+     */
+    @VisibleForTesting
+    Set<String> collectUsedFields() {
+        Set<String> usedFields = beaconFieldUsage.collectConsumedFields();
+        if (usedFields == null) {
+            return null;
+        }
+
+        Set<String> processorFields = beaconProcessor.getInputFields();
+        if (processorFields == null) {
+            return null;
+        }
+        usedFields.addAll(processorFields);
+        return usedFields;
+    }
+
+    /**
+     * Removes all fields from the given beacon which are not used.
+     *
+     * @param beacon the received beacon
+     *
+     * @return the beacon only containing the used fields
+     */
+    public Beacon apply(Beacon beacon) {
+        if (retainedFields == null) {
+            return beacon;
+        }
+
+        long[] pruned = new long[2];
+        Beacon projectedBeacon = beacon.project(retainedFields::contains, (field, size) -> {
+            pruned[0]++;
+            pruned[1] += size;
+            if (loggedFields.size() < MAX_LOGGED_FIELDS && loggedFields.add(field)) {
+                log.debug("Dropping unused beacon field '{}'.", field);
+            }
+        });
+
+        if (pruned[0] > 0) {
+            selfMonitoring.record("beacons_pruned_fields", pruned[0]);
+            selfMonitoring.record("beacons_pruned_bytes", pruned[1]);
+        }
+        return projectedBeacon;
+    }
+}
@@ -0,0 +1,64 @@
+package rocks.inspectit.oce.eum.server.beacon.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.processor.CompositeBeaconProcessor;
+import rocks.inspectit.oce.eum.server.exporters.beacon.BeaconHttpExporter;
+import rocks.inspectit.oce.eum.server.metrics.BeaconMetricManager;
+import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
+
+import java.util.Collections;
+
+/**
+ * Component which ingests received beacons, i.e. the beacons are processed, exported and used for recording metrics.
+ */
+@Component
+@Slf4j
+public class BeaconIngestService {
+
+    @Autowired
+    private BeaconMetricManager beaconMetricManager;
+
+    @Autowired
+    private CompositeBeaconProcessor beaconProcessor;
+
+    @Autowired
+    private SelfMonitoringMetricManager selfMonitoringService;
+
+    @Autowired(required = false)
+    private BeaconHttpExporter beaconHttpExporter;
+
+    /**
+     * Processes, exports and records a single beacon.
+     *
+     * @param receivedBeacon the beacon as received by the client
+     *
+     * @return whether the beacon has been successfully recorded
+     */
+    public boolean ingest(Beacon receivedBeacon) {
+        Beacon beacon = beaconProcessor.process(receivedBeacon);
+
+        // export beacon
+        if (beaconHttpExporter != null) {
+            beaconHttpExporter.export(beacon);
+        }
+
+        // record metrics based on beacon data
+        boolean successful = beaconMetricManager.processBeacon(beacon);
+
+        recordReceived(successful);
+
+        return successful;
+    }
+
+    /**
+     * Records a received beacon in the self-monitoring.
+     *
+     * @param successful whether the beacon has been processed successfully
+     */
+    public void recordReceived(boolean successful) {
+        selfMonitoringService.record("beacons_received", 1, Collections.singletonMap("is_error", String.valueOf(!successful)));
+    }
+}
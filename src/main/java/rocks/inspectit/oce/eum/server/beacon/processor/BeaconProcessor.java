@@ -2,15 +2,57 @@ package rocks.inspectit.oce.eum.server.beacon.processor;
 
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
 
+import java.util.Set;
+
 /**
  * Interface for all components acting as {@link BeaconProcessor}.
  * BeaconProcessors are intended to enrich a Beacon with new values.
  */
 public interface BeaconProcessor {
 
+    /**
+     * Suffix of declared output fields representing all fields with the given prefix.
+     */
+    String WILDCARD = "*";
+
     /**
      * @param beacon The {@link Beacon} to be processed
      * @return A new {@link Beacon} instance
      */
     Beacon process(Beacon beacon);
+
+    /**
+     * Returns the beacon fields which are read by this processor. Fields which are not read by any component can be
+     * dropped from received beacons.
+     *
+     * @return the names of the read fields or <code>null</code> in case they are unknown
+     */
+    default Set<String> getInputFields() {
+        return null;
+    }
+
+    /**
+     * Returns the beacon fields which are written by this processor. Fields ending with {@link #WILDCARD} represent all
+     * fields starting with the given prefix, e.g. <code>client.header.*</code>.
+     *
+     * @return the names of the written fields or <code>null</code> in case they are unknown
+     */
+    default Set<String> getOutputFields() {
+        return null;
+    }
+
+    /**
+     * Checks whether the given field is matched by the given declared output field.
+     *
+     * @param declaredField the declared output field, which may end with {@link #WILDCARD}
+     * @param field         the name of the field
+     *
+     * @return true in case the declared field equals the field or is a prefix pattern of it
+     */
+    static boolean matches(String declaredField, String field) {
+        if (declaredField.endsWith(WILDCARD)) {
+            return field.startsWith(declaredField.substring(0, declaredField.length() - WILDCARD.length()));
+        }
+        return declaredField.equals(field);
+    }
 }
\ No newline at end of file
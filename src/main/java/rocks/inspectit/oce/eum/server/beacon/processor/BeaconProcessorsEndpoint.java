@@ -0,0 +1,25 @@
+package rocks.inspectit.oce.eum.server.beacon.processor;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint exposing which beacon processors are executed, in which stage they are executed and why processors
+ * have been disabled.
+ */
+@Component
+@Endpoint(id = "beaconprocessors")
+public class BeaconProcessorsEndpoint {
+
+    @Autowired
+    private CompositeBeaconProcessor compositeBeaconProcessor;
+
+    @ReadOperation
+    public List<CompositeBeaconProcessor.ProcessorState> processors() {
+        return compositeBeaconProcessor.getProcessorStates();
+    }
+}
@@ -1,13 +1,17 @@
 package rocks.inspectit.oce.eum.server.beacon.processor;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.stereotype.Component;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconFieldDictionary;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
 
 /**
  * Processor to expand comma separated values. The expanded values will be available at a new attribute
@@ -26,9 +30,14 @@ public class BmrBeaconProcessor implements BeaconProcessor {
     static final String ATTRIBUTE_KEY = "rt.bmr";
 
     /**
-     * The regex (character) used to separate individual value groups.
+     * The character used to separate individual value groups.
      */
-    private static final String GROUP_SEPARATOR = ",";
+    private static final char GROUP_SEPARATOR = ',';
+
+    /**
+     * The value used for missing or blank values.
+     */
+    private static final String DEFAULT_VALUE = "0";
 
     /**
      * List of names for all possible values.
@@ -36,32 +45,94 @@ public class BmrBeaconProcessor implements BeaconProcessor {
     @VisibleForTesting
     static final String[] VALUE_NAMES = {"startTime", "responseEnd", "responseStart", "requestStart", "connectEnd", "secureConnectionStart", "connectStart", "domainLookupEnd", "domainLookupStart", "redirectEnd", "redirectStart"};
 
+    /**
+     * The names of the fields written by this processor, in the order of {@link #VALUE_NAMES}. The fields are
+     * registered, so they can be stored by their id.
+     */
+    private static final String[] FIELD_NAMES = Arrays.stream(VALUE_NAMES)
+            .map(name -> BeaconFieldDictionary.register(ATTRIBUTE_KEY + "." + name).getName())
+            .toArray(String[]::new);
+
+    /**
+     * The fields written by this processor.
+     */
+    private static final Set<String> OUTPUT_FIELDS = ImmutableSet.copyOf(FIELD_NAMES);
+
+    @Override
+    public Set<String> getInputFields() {
+        return Collections.singleton(ATTRIBUTE_KEY);
+    }
+
+    @Override
+    public Set<String> getOutputFields() {
+        return OUTPUT_FIELDS;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The attribute is scanned once and all values are written to the beacon in a single batch.
+     */
     @Override
     public Beacon process(Beacon beacon) {
         String targetAttribute = beacon.get(ATTRIBUTE_KEY);
-        HashMap<String, String> bmrAttributes = new HashMap<>();
-
-        if (StringUtils.isNoneBlank(targetAttribute)) {
-            String[] attributes = targetAttribute.split(GROUP_SEPARATOR);
+        if (StringUtils.isBlank(targetAttribute)) {
+            return beacon;
+        }
 
-            for (int i = 0; i < VALUE_NAMES.length; i++) {
-                String resultKey = ATTRIBUTE_KEY + "." + VALUE_NAMES[i];
+        String[] fieldNames = new String[FIELD_NAMES.length];
+        String[] fieldValues = new String[FIELD_NAMES.length];
+        int count = 0;
 
-                String value;
-                if (i >= attributes.length || StringUtils.isBlank(attributes[i])) {
-                    value = "0";
-                } else {
-                    value = attributes[i];
+        int length = targetAttribute.length();
+        int groupStart = 0;
+        for (int i = 0; i < FIELD_NAMES.length; i++) {
+            String value = DEFAULT_VALUE;
+            if (groupStart <= length) {
+                int groupEnd = targetAttribute.indexOf(GROUP_SEPARATOR, groupStart);
+                if (groupEnd < 0) {
+                    groupEnd = length;
                 }
-
-                if (NumberUtils.isCreatable(value)) {
-                    bmrAttributes.put(resultKey, value);
-                } else {
-                    log.trace("Error parsing the value <'{}'>: invalid number.", attributes[i]);
+                if (!isBlank(targetAttribute, groupStart, groupEnd)) {
+                    value = targetAttribute.substring(groupStart, groupEnd);
                 }
+                groupStart = groupEnd + 1;
+            }
+
+            if (isNumber(value)) {
+                fieldNames[count] = FIELD_NAMES[i];
+                fieldValues[count] = value;
+                count++;
+            } else {
+                log.trace("Error parsing the value <'{}'>: invalid number.", value);
+            }
+        }
+        return beacon.merge(fieldNames, fieldValues, count);
+    }
+
+    /**
+     * Checks whether the given value is a valid number. Plain integers are checked without any allocation, all other
+     * values are checked using {@link NumberUtils#isCreatable(String)}.
+     */
+    private static boolean isNumber(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return NumberUtils.isCreatable(value);
+            }
+        }
+        return !value.isEmpty();
+    }
+
+    /**
+     * Checks whether the given region of the value is empty or only contains whitespaces.
+     */
+    private static boolean isBlank(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(value.charAt(i))) {
+                return false;
             }
-            beacon = beacon.merge(bmrAttributes);
         }
-        return beacon;
+        return true;
     }
 }
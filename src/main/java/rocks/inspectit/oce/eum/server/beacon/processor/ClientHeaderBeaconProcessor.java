@@ -4,13 +4,13 @@ import com.google.common.annotations.VisibleForTesting;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
-import rocks.inspectit.oce.eum.server.utils.RequestUtils;
+import rocks.inspectit.oce.eum.server.utils.ClientContext;
 
-import jakarta.servlet.http.HttpServletRequest;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 /**
  * Processor to enrich the beacon with client header information. Each header will be available at a new attribute
@@ -25,23 +25,39 @@ public class ClientHeaderBeaconProcessor implements BeaconProcessor {
     private final String HEADER_PREFIX = "client.header.";
 
     /**
-     * Supplier for accessing the current request.
+     * Supplier for accessing the client context of the current request.
      */
     @VisibleForTesting
-    Supplier<HttpServletRequest> requestSupplier = RequestUtils::getCurrentRequest;
+    Supplier<ClientContext> clientContextSupplier = ClientContext::current;
+
+    @Override
+    public Set<String> getInputFields() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<String> getOutputFields() {
+        return Collections.singleton(HEADER_PREFIX + WILDCARD);
+    }
 
     @Override
     public Beacon process(Beacon beacon) {
-        HttpServletRequest request = requestSupplier.get();
-        if (request == null) {
+        ClientContext clientContext = clientContextSupplier.get();
+        if (clientContext == null) {
             return beacon;
         }
 
-        Map<String, String> requestHeaders = Collections.list(request.getHeaderNames())
-                .stream()
-                .collect(Collectors.toMap(header -> HEADER_PREFIX + header, header -> String.join(",", Collections.list(request
-                        .getHeaders(header)))));
+        Map<String, List<String>> headers = clientContext.getHeaders();
+        String[] fieldNames = new String[headers.size()];
+        String[] fieldValues = new String[headers.size()];
+        int count = 0;
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            List<String> values = header.getValue();
+            fieldNames[count] = HEADER_PREFIX.concat(header.getKey());
+            fieldValues[count] = values.size() == 1 ? values.get(0) : String.join(",", values);
+            count++;
+        }
 
-        return beacon.merge(requestHeaders);
+        return beacon.merge(fieldNames, fieldValues, count);
     }
 }
@@ -1,18 +1,48 @@
 package rocks.inspectit.oce.eum.server.beacon.processor;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableMap;
+import lombok.Getter;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconFieldUsage;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.exporters.beacon.BeaconHttpExporter;
 import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
+import rocks.inspectit.oce.eum.server.utils.ClientContext;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Beacon Processor acting as composite component to invoke all available {@link BeaconProcessor}s.
+ * <p>
+ * On startup, the processors are grouped into stages based on the fields they are reading and writing: a processor is
+ * placed in a later stage than all processors writing any of the fields it reads. Processors which do not declare
+ * their fields are executed in a stage of their own. In case parallel processing is enabled, the processors of a stage
+ * are executed concurrently on virtual threads. Their results are merged in the order of the processors, thus, the
+ * resulting beacon equals the result of the sequential execution.
+ * <p>
+ * In case skipping of unused processors is enabled, processors whose output fields are neither consumed by the metric
+ * definitions, the beacon tags, the beacon recorders nor any other required processor are not executed at all.
  */
 @Component
 @Slf4j
@@ -24,23 +54,331 @@ public class CompositeBeaconProcessor implements BeaconProcessor {
     @Autowired
     private SelfMonitoringMetricManager selfMonitoring;
 
+    @Autowired
+    private EumServerConfiguration configuration;
+
+    @Autowired
+    private BeaconFieldUsage beaconFieldUsage;
+
+    @Autowired(required = false)
+    private BeaconHttpExporter beaconHttpExporter;
+
+    /**
+     * The processors which are executed, in the order of their execution.
+     */
+    private List<BeaconProcessor> activeProcessors;
+
+    /**
+     * The processors grouped by the stage they are executed in.
+     */
+    private List<List<BeaconProcessor>> stages;
+
+    /**
+     * The state of all available processors, exposed for diagnostic purposes.
+     */
+    @Getter
+    private List<ProcessorState> processorStates;
+
+    /**
+     * The executor running the processors of a stage concurrently, <code>null</code> in case the processors are
+     * executed sequentially.
+     */
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void initialize() {
+        Map<BeaconProcessor, String> requiredProcessors = findRequiredProcessors();
+        activeProcessors = processorList.stream().filter(requiredProcessors::containsKey).collect(Collectors.toList());
+
+        stages = buildStages(activeProcessors);
+        log.info("Beacon processors are executed in {} stage(s): {}", stages.size(), stages.stream()
+                .map(stage -> stage.stream().map(CompositeBeaconProcessor::getName).toList())
+                .collect(Collectors.toList()));
+
+        processorStates = new ArrayList<>();
+        for (BeaconProcessor processor : processorList) {
+            String reason = requiredProcessors.get(processor);
+            if (reason == null) {
+                log.info("Beacon processor <{}> is disabled because none of its output fields {} is consumed.", getName(processor), processor
+                        .getOutputFields());
+                processorStates.add(new ProcessorState(getName(processor), false, "none of its output fields is consumed", null, processor
+                        .getInputFields(), processor.getOutputFields()));
+            } else {
+                int stage = findStage(processor);
+                processorStates.add(new ProcessorState(getName(processor), true, reason, stage, processor.getInputFields(), processor
+                        .getOutputFields()));
+            }
+        }
+
+        boolean parallel = configuration.getProcessing() != null && configuration.getProcessing().isParallel();
+        if (parallel && stages.stream().anyMatch(stage -> stage.size() > 1)) {
+            executor = Executors.newVirtualThreadPerTaskExecutor();
+        }
+    }
+
+    /**
+     * Determines the processors which have to be executed. The processors are checked in reverse order, so the input
+     * fields of required processors are known to be consumed when checking the preceding processors.
+     *
+     * @return the required processors mapped to the reason why they are required
+     */
+    private Map<BeaconProcessor, String> findRequiredProcessors() {
+        Map<BeaconProcessor, String> requiredProcessors = new HashMap<>();
+        String reason = null;
+        if (configuration.getProcessing() == null || !configuration.getProcessing().isSkipUnused()) {
+            reason = "skipping of unused processors is disabled";
+        } else if (beaconHttpExporter != null) {
+            reason = "the beacon exporter consumes all fields";
+        }
+        Set<String> consumedFields = reason == null ? beaconFieldUsage.collectConsumedFields() : null;
+        if (reason == null && consumedFields == null) {
+            reason = "not all beacon recorders declare their input fields";
+        }
+        if (reason != null) {
+            for (BeaconProcessor processor : processorList) {
+                requiredProcessors.put(processor, reason);
+            }
+            return requiredProcessors;
+        }
+
+        boolean allFieldsConsumed = false;
+        for (int i = processorList.size() - 1; i >= 0; i--) {
+            BeaconProcessor processor = processorList.get(i);
+            Set<String> outputFields = processor.getOutputFields();
+            if (allFieldsConsumed) {
+                requiredProcessors.put(processor, "a succeeding processor does not declare its input fields");
+            } else if (outputFields == null) {
+                requiredProcessors.put(processor, "its output fields are not declared");
+            } else {
+                Set<String> usedOutputFields = outputFields.stream()
+                        .filter(output -> consumedFields.stream().anyMatch(field -> BeaconProcessor.matches(output, field)))
+                        .collect(Collectors.toCollection(TreeSet::new));
+                if (!usedOutputFields.isEmpty()) {
+                    requiredProcessors.put(processor, "its output fields " + usedOutputFields + " are consumed");
+                }
+            }
+
+            if (requiredProcessors.containsKey(processor)) {
+                Set<String> inputFields = processor.getInputFields();
+                if (inputFields == null) {
+                    allFieldsConsumed = true;
+                } else {
+                    consumedFields.addAll(inputFields);
+                }
+            }
+        }
+        return requiredProcessors;
+    }
+
+    private int findStage(BeaconProcessor processor) {
+        for (int i = 0; i < stages.size(); i++) {
+            if (stages.get(i).contains(processor)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String getName(BeaconProcessor processor) {
+        return processor.getClass().getSimpleName();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Groups the given processors into stages. Each processor is placed in the stage following the last stage
+     * containing a preceding processor it depends on. In case it writes a field which is read or written by a preceding
+     * processor, it is placed at least in the stage of that processor, so the results of the stage, which are merged in
+     * the processors' order, are the same as of a sequential execution.
+     *
+     * @param processors the processors in the order of their execution
+     *
+     * @return the stages, each containing the processors in their original order
+     */
+    @VisibleForTesting
+    static List<List<BeaconProcessor>> buildStages(List<BeaconProcessor> processors) {
+        int[] levels = new int[processors.size()];
+        List<List<BeaconProcessor>> stages = new ArrayList<>();
+        for (int i = 0; i < processors.size(); i++) {
+            BeaconProcessor processor = processors.get(i);
+            int level = 0;
+            for (int j = 0; j < i; j++) {
+                if (levels[j] >= level && dependsOn(processor, processors.get(j))) {
+                    level = levels[j] + 1;
+                } else if (levels[j] > level && conflictsWith(processor, processors.get(j))) {
+                    level = levels[j];
+                }
+            }
+            levels[i] = level;
+
+            if (level == stages.size()) {
+                stages.add(new ArrayList<>());
+            }
+            stages.get(level).add(processor);
+        }
+        return stages;
+    }
+
+    /**
+     * Checks whether the given processor reads any field written by the preceding processor. In case any of the fields
+     * are unknown, a dependency is assumed.
+     */
+    private static boolean dependsOn(BeaconProcessor processor, BeaconProcessor precedingProcessor) {
+        Set<String> inputFields = processor.getInputFields();
+        Set<String> outputFields = precedingProcessor.getOutputFields();
+        if (inputFields == null || outputFields == null) {
+            return true;
+        }
+        return inputFields.stream()
+                .anyMatch(input -> outputFields.stream().anyMatch(output -> BeaconProcessor.matches(output, input)));
+    }
+
+    /**
+     * Checks whether the given processor writes any field read or written by the preceding processor. In case any of
+     * the fields are unknown, a conflict is assumed.
+     */
+    private static boolean conflictsWith(BeaconProcessor processor, BeaconProcessor precedingProcessor) {
+        Set<String> outputFields = processor.getOutputFields();
+        Set<String> precedingInputFields = precedingProcessor.getInputFields();
+        Set<String> precedingOutputFields = precedingProcessor.getOutputFields();
+        if (outputFields == null || precedingInputFields == null || precedingOutputFields == null) {
+            return true;
+        }
+        return outputFields.stream().anyMatch(output -> precedingInputFields.stream()
+                .anyMatch(input -> BeaconProcessor.matches(output, input)) || precedingOutputFields.stream()
+                .anyMatch(precedingOutput -> BeaconProcessor.matches(output, precedingOutput) || BeaconProcessor.matches(precedingOutput, output)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The input fields of the composite are the input fields of all executed processors. In case any processor does
+     * not declare its input fields, <code>null</code> is returned.
+     */
+    @Override
+    public Set<String> getInputFields() {
+        Set<String> inputFields = new HashSet<>();
+        for (BeaconProcessor beaconProcessor : activeProcessors) {
+            Set<String> processorInputFields = beaconProcessor.getInputFields();
+            if (processorInputFields == null) {
+                return null;
+            }
+            inputFields.addAll(processorInputFields);
+        }
+        return inputFields;
+    }
+
     @Override
     public Beacon process(Beacon beacon) {
-        for (BeaconProcessor beaconProcessor : processorList) {
-            boolean isError = false;
-            Stopwatch stopwatch = Stopwatch.createStarted();
-            try {
-                beacon = beacon.merge(beaconProcessor.process(beacon));
-            } catch (Exception e) {
-                log.error("BeaconProcessor <{}> encountered an Exception! Ignoring the processor!", beaconProcessor.getClass()
-                        .getName(), e);
-                isError = true;
+        if (executor == null) {
+            for (BeaconProcessor beaconProcessor : activeProcessors) {
+                // processors usually return a beacon derived from the given one, which is merged without copying any fields
+                beacon = beacon.merge(invoke(beaconProcessor, beacon));
             }
-            stopwatch.stop();
-            ImmutableMap<String, String> tagMap = ImmutableMap.of("beacon_processor", beaconProcessor.getClass()
-                    .getSimpleName(), "isError", String.valueOf(isError));
-            selfMonitoring.record("beacons_processor", stopwatch.elapsed(TimeUnit.MILLISECONDS), tagMap);
+            return beacon;
+        }
+
+        ClientContext clientContext = ClientContext.current();
+        for (List<BeaconProcessor> stage : stages) {
+            beacon = stage.size() == 1 ? beacon.merge(invoke(stage.get(0), beacon)) : processConcurrently(stage, beacon, clientContext);
         }
         return beacon;
     }
+
+    /**
+     * Executes the processors of the given stage concurrently and merges their results in the order of the processors.
+     */
+    private Beacon processConcurrently(List<BeaconProcessor> stage, Beacon beacon, ClientContext clientContext) {
+        List<Future<Beacon>> results = new ArrayList<>(stage.size());
+        for (BeaconProcessor beaconProcessor : stage) {
+            results.add(executor.submit(() -> {
+                try (ClientContext.Scope scope = ClientContext.bind(clientContext)) {
+                    return invoke(beaconProcessor, beacon);
+                }
+            }));
+        }
+
+        Beacon result = beacon;
+        for (int i = 0; i < stage.size(); i++) {
+            try {
+                // only the fields added by the processor are merged, as all results share the given beacon
+                result = result.mergeDerived(results.get(i).get(), beacon);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.forEach(future -> future.cancel(true));
+                log.error("Processing of beacon was interrupted.", e);
+                return result;
+            } catch (ExecutionException e) {
+                log.error("BeaconProcessor <{}> encountered an Exception! Ignoring the processor!", stage.get(i)
+                        .getClass()
+                        .getName(), e.getCause());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Invokes the given processor and records its duration.
+     *
+     * @return the processed beacon or the given beacon in case the processor failed
+     */
+    private Beacon invoke(BeaconProcessor beaconProcessor, Beacon beacon) {
+        Beacon result = beacon;
+        boolean isError = false;
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        try {
+            result = Objects.requireNonNull(beaconProcessor.process(beacon), "The processor did not return a beacon.");
+        } catch (Exception e) {
+            log.error("BeaconProcessor <{}> encountered an Exception! Ignoring the processor!", beaconProcessor.getClass()
+                    .getName(), e);
+            isError = true;
+        }
+        stopwatch.stop();
+        ImmutableMap<String, String> tagMap = ImmutableMap.of("beacon_processor", beaconProcessor.getClass()
+                .getSimpleName(), "isError", String.valueOf(isError));
+        selfMonitoring.record("beacons_processor", stopwatch.elapsed(TimeUnit.MILLISECONDS), tagMap);
+        return result;
+    }
+
+    /**
+     * The state of a beacon processor.
+     */
+    @Value
+    public static class ProcessorState {
+
+        /**
+         * The name of the processor.
+         */
+        String name;
+
+        /**
+         * Whether the processor is executed.
+         */
+        boolean enabled;
+
+        /**
+         * The reason why the processor is enabled or disabled.
+         */
+        String reason;
+
+        /**
+         * The stage the processor is executed in, <code>null</code> if it is disabled.
+         */
+        Integer stage;
+
+        /**
+         * The declared input fields, <code>null</code> if they are unknown.
+         */
+        Set<String> inputFields;
+
+        /**
+         * The declared output fields, <code>null</code> if they are unknown.
+         */
+        Set<String> outputFields;
+    }
 }
@@ -1,35 +1,63 @@
 package rocks.inspectit.oce.eum.server.beacon.processor;
 
 import com.google.common.collect.ImmutableMap;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
 import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.utils.CidrTrie;
+import rocks.inspectit.oce.eum.server.utils.ClientContext;
 import rocks.inspectit.oce.eum.server.utils.GeolocationResolver;
-import rocks.inspectit.oce.eum.server.utils.IPUtils;
 
+import jakarta.annotation.PostConstruct;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * BeaconProcessor to attach country code to Beacon.
  */
 @Component
+@Slf4j
 public class CountryCodeBeaconProcessor implements BeaconProcessor {
 
     public static final String TAG_COUNTRY_CODE = "COUNTRY_CODE";
 
-    @Autowired
-    private IPUtils ipUtils;
-
     @Autowired
     private GeolocationResolver geolocationResolver;
 
     @Autowired
     private EumServerConfiguration configuration;
 
+    /**
+     * The custom IP mapping, compiled into a trie for matching the IPs of the beacons.
+     */
+    private CidrTrie<String> customIpMapping;
+
+    @PostConstruct
+    public void initialize() {
+        CidrTrie.Builder<String> builder = CidrTrie.builder();
+        Map<String, List<String>> customIpMappingSettings = configuration.getTags().getCustomIPMapping();
+        if (customIpMappingSettings != null) {
+            customIpMappingSettings.forEach((countryCode, networks) -> networks.forEach(network -> builder.put(network, countryCode)));
+        }
+        customIpMapping = builder.build();
+        if (!customIpMapping.isEmpty()) {
+            log.info("Compiled {} custom IP mappings.", customIpMapping.size());
+        }
+    }
+
+    @Override
+    public Set<String> getInputFields() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Set<String> getOutputFields() {
+        return Collections.singleton(TAG_COUNTRY_CODE);
+    }
 
     @Override
     public Beacon process(Beacon beacon) {
@@ -44,9 +72,9 @@ public class CountryCodeBeaconProcessor implements BeaconProcessor {
      */
     private String resolveCountryCode() {
         String countryCode = "";
-        ServletRequestAttributes requestAttributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        if (requestAttributes != null) {
-            String ip = ipUtils.getClientIpAddress(requestAttributes.getRequest());
+        ClientContext clientContext = ClientContext.current();
+        if (clientContext != null) {
+            String ip = clientContext.getClientAddress();
             countryCode = resolveCustomIPMapping(ip);
             if (countryCode == null) {
                 countryCode = geolocationResolver.getCountryCode(ip);
@@ -57,21 +85,12 @@ public class CountryCodeBeaconProcessor implements BeaconProcessor {
     }
 
     /**
-     * Resolves custom ip mapping, if defined.
+     * Resolves custom ip mapping, if defined. In case multiple networks contain the IP, the most specific one is used.
      *
      * @param ip the IP of the beacon
      * @return the CountryCode
      */
     private String resolveCustomIPMapping(String ip) {
-        Map<String, List<String>> customIpMapping = configuration.getTags().getCustomIPMapping();
-        if (customIpMapping != null) {
-            for (Map.Entry<String, List<String>> customCountryCodeDefinition : customIpMapping.entrySet()) {
-                if (customCountryCodeDefinition.getValue().stream()
-                        .anyMatch(address -> address.contains("/") ? ipUtils.containsIp(address, ip) : address.equals(ip))) {
-                    return customCountryCodeDefinition.getKey();
-                }
-            }
-        }
-        return null;
+        return customIpMapping.findLongestMatch(ip);
     }
 }
@@ -3,7 +3,9 @@ package rocks.inspectit.oce.eum.server.beacon.processor;
 import org.springframework.stereotype.Component;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Set;
 
 /**
  * Processor to expand comma separated key values pairs. The expanded values will be available at a new attribute
@@ -20,34 +22,107 @@ public class CsvKeyValueExpanderBeaconProcessor implements BeaconProcessor {
     private static final String ATTRIBUTE_KEY = "t_other";
 
     /**
-     * The regex (character) used to separate individual value groups.
+     * The prefix of the expanded fields.
      */
-    private static final String GROUP_SEPARATOR = ",";
+    private static final String FIELD_PREFIX = ATTRIBUTE_KEY + ".";
 
     /**
-     * The regex (character) used to separate key and value.
+     * The character used to separate individual value groups.
      */
-    private static final String KEY_VALUE_SEPARATOR = "\\|";
+    private static final char GROUP_SEPARATOR = ',';
+
+    /**
+     * The character used to separate key and value.
+     */
+    private static final char KEY_VALUE_SEPARATOR = '|';
+
+    /**
+     * The initial capacity of the arrays collecting the expanded fields.
+     */
+    private static final int INITIAL_CAPACITY = 8;
 
+    @Override
+    public Set<String> getInputFields() {
+        return Collections.singleton(ATTRIBUTE_KEY);
+    }
+
+    @Override
+    public Set<String> getOutputFields() {
+        return Collections.singleton(FIELD_PREFIX + WILDCARD);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The attribute is scanned once and all expanded values are written to the beacon in a single batch. A group is
+     * only expanded if it consists of exactly one key and one non-empty value, where trailing separators are ignored.
+     */
     @Override
     public Beacon process(Beacon beacon) {
         String targetAttribute = beacon.get(ATTRIBUTE_KEY);
+        if (targetAttribute == null) {
+            return beacon;
+        }
 
-        if (targetAttribute != null) {
-            String[] attributes = targetAttribute.split(GROUP_SEPARATOR);
-
-            for (String attribute : attributes) {
-                String[] splitAttributes = attribute.split(KEY_VALUE_SEPARATOR);
+        String[] fieldNames = null;
+        String[] fieldValues = null;
+        int count = 0;
 
-                if (splitAttributes.length == 2) {
-                    String resultKey = ATTRIBUTE_KEY + "." + splitAttributes[0];
-                    String resultValue = splitAttributes[1];
+        int length = targetAttribute.length();
+        int groupStart = 0;
+        while (groupStart < length) {
+            int groupEnd = targetAttribute.indexOf(GROUP_SEPARATOR, groupStart);
+            if (groupEnd < 0) {
+                groupEnd = length;
+            }
 
-                    beacon = beacon.merge(Collections.singletonMap(resultKey, resultValue));
+            int keyEnd = indexOf(targetAttribute, KEY_VALUE_SEPARATOR, groupStart, groupEnd);
+            if (keyEnd >= 0) {
+                int valueStart = keyEnd + 1;
+                int valueEnd = indexOf(targetAttribute, KEY_VALUE_SEPARATOR, valueStart, groupEnd);
+                if (valueEnd < 0) {
+                    valueEnd = groupEnd;
+                }
+                if (valueEnd > valueStart && onlySeparators(targetAttribute, valueEnd, groupEnd)) {
+                    if (fieldNames == null) {
+                        fieldNames = new String[INITIAL_CAPACITY];
+                        fieldValues = new String[INITIAL_CAPACITY];
+                    } else if (count == fieldNames.length) {
+                        fieldNames = Arrays.copyOf(fieldNames, count * 2);
+                        fieldValues = Arrays.copyOf(fieldValues, count * 2);
+                    }
+                    fieldNames[count] = FIELD_PREFIX.concat(targetAttribute.substring(groupStart, keyEnd));
+                    fieldValues[count] = targetAttribute.substring(valueStart, valueEnd);
+                    count++;
                 }
             }
+            groupStart = groupEnd + 1;
         }
 
-        return beacon;
+        return beacon.merge(fieldNames, fieldValues, count);
+    }
+
+    /**
+     * @return the index of the given character within the given region or -1 if it is not contained
+     */
+    private static int indexOf(String value, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether the given region only consists of key-value separators.
+     */
+    private static boolean onlySeparators(String value, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (value.charAt(i) != KEY_VALUE_SEPARATOR) {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -0,0 +1,213 @@
+package rocks.inspectit.oce.eum.server.beacon.processor;
+
+import com.google.common.annotations.VisibleForTesting;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.PatternAndReplacement;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled set of rules, where the first rule whose pattern matches the whole input is applied.
+ * <p>
+ * Most rules, e.g. for normalizing paths, start with a literal prefix like <code>/user/</code>. The literal prefixes of
+ * all rules are stored in a prefix trie, thus, a single scan of the input determines the few rules which can match at
+ * all. Only these candidates and the rules without a literal prefix are evaluated using their regular expression, in
+ * the order of the rules.
+ */
+class PatternRuleSet {
+
+    /**
+     * Characters which have a special meaning in regular expressions.
+     */
+    private static final String META_CHARACTERS = "\\[](){}.*+?^$|";
+
+    /**
+     * The compiled patterns of the rules.
+     */
+    private final Pattern[] patterns;
+
+    /**
+     * The replacements of the rules.
+     */
+    private final String[] replacements;
+
+    /**
+     * The root of the trie containing the literal prefixes, the root holds the rules without a literal prefix.
+     */
+    private final Node root = new Node();
+
+    /**
+     * Compiles the given rules.
+     *
+     * @param rules the rules in the order of their priority
+     *
+     * @throws java.util.regex.PatternSyntaxException in case any pattern is invalid
+     */
+    PatternRuleSet(List<PatternAndReplacement> rules) {
+        patterns = new Pattern[rules.size()];
+        replacements = new String[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            PatternAndReplacement rule = rules.get(i);
+            patterns[i] = Pattern.compile(rule.getPattern());
+            replacements[i] = rule.getReplacement();
+
+            Node node = root;
+            for (char c : literalPrefix(rule.getPattern()).toCharArray()) {
+                node = node.children.computeIfAbsent(c, key -> new Node());
+            }
+            node.rules.add(i);
+        }
+        root.freeze();
+    }
+
+    /**
+     * Applies the first rule matching the whole input.
+     *
+     * @param input the value to match
+     *
+     * @return the replacement of the first matching rule or <code>null</code> in case no rule matches
+     */
+    String apply(String input) {
+        int[] candidates = collectCandidates(input);
+        for (int rule : candidates) {
+            Matcher matcher = patterns[rule].matcher(input);
+            if (matcher.matches()) {
+                StringBuilder result = new StringBuilder();
+                matcher.appendReplacement(result, replacements[rule]);
+                // the match covers the whole input, thus, appendReplacement only appended the replacement
+                return result.toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Walks the trie along the input and returns all rules whose literal prefix is a prefix of the input, sorted by
+     * their priority.
+     */
+    private int[] collectCandidates(String input) {
+        int[] candidates = root.ruleIndices;
+        int count = candidates.length;
+        boolean copied = false;
+
+        Node node = root;
+        for (int i = 0; i < input.length() && node != null; i++) {
+            node = node.child(input.charAt(i));
+            if (node != null && node.ruleIndices.length > 0) {
+                int length = node.ruleIndices.length;
+                if (!copied || count + length > candidates.length) {
+                    candidates = Arrays.copyOf(candidates, Math.max(count + length, candidates.length * 2));
+                    copied = true;
+                }
+                System.arraycopy(node.ruleIndices, 0, candidates, count, length);
+                count += length;
+            }
+        }
+
+        if (!copied) {
+            return candidates;
+        }
+        int[] result = Arrays.copyOf(candidates, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns the literal characters every match of the given pattern has to start with.
+     *
+     * @param pattern the regular expression
+     *
+     * @return the literal prefix, which may be empty
+     */
+    @VisibleForTesting
+    static String literalPrefix(String pattern) {
+        if (pattern.indexOf('|') >= 0) {
+            // alternations may allow different prefixes
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        int i = pattern.startsWith("^") ? 1 : 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            int next;
+            if (c == '\\') {
+                // escaped non-alphanumeric characters are literals, e.g. "\/", while e.g. "\d" is a character class
+                if (i + 1 >= pattern.length() || Character.isLetterOrDigit(pattern.charAt(i + 1))) {
+                    break;
+                }
+                c = pattern.charAt(i + 1);
+                next = i + 2;
+            } else if (META_CHARACTERS.indexOf(c) >= 0) {
+                break;
+            } else {
+                next = i + 1;
+            }
+
+            if (next < pattern.length() && "?*{".indexOf(pattern.charAt(next)) >= 0) {
+                // the character is optional
+                break;
+            }
+            prefix.append(c);
+            i = next;
+        }
+        return prefix.toString();
+    }
+
+    /**
+     * A node of the prefix trie.
+     */
+    private static class Node {
+
+        /**
+         * The children, only used while the trie is built.
+         */
+        private Map<Character, Node> children = new HashMap<>();
+
+        /**
+         * The rules whose literal prefix ends at this node, only used while the trie is built.
+         */
+        private List<Integer> rules = new ArrayList<>();
+
+        /**
+         * The sorted characters of the children.
+         */
+        private char[] childKeys;
+
+        /**
+         * The children, in the order of {@link #childKeys}.
+         */
+        private Node[] childNodes;
+
+        /**
+         * The sorted indices of the rules whose literal prefix ends at this node.
+         */
+        private int[] ruleIndices;
+
+        /**
+         * Converts the node and its children into their compact representation.
+         */
+        private void freeze() {
+            ruleIndices = rules.stream().mapToInt(Integer::intValue).sorted().toArray();
+            List<Character> keys = new ArrayList<>(children.keySet());
+            Collections.sort(keys);
+            childKeys = new char[keys.size()];
+            childNodes = new Node[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                childKeys[i] = keys.get(i);
+                childNodes[i] = children.get(keys.get(i));
+                childNodes[i].freeze();
+            }
+            children = null;
+            rules = null;
+        }
+
+        /**
+         * @return the child for the given character or <code>null</code> if it does not exist
+         */
+        private Node child(char c) {
+            int index = Arrays.binarySearch(childKeys, c);
+            return index < 0 ? null : childNodes[index];
+        }
+    }
+}
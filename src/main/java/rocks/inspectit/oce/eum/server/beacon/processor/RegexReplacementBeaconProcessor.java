@@ -1,34 +1,72 @@
 package rocks.inspectit.oce.eum.server.beacon.processor;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
 import lombok.Builder;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconField;
+import rocks.inspectit.oce.eum.server.beacon.BeaconFieldDictionary;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.BeaconTagCacheSettings;
 import rocks.inspectit.oce.eum.server.configuration.model.tags.BeaconTagSettings;
 import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
 import rocks.inspectit.oce.eum.server.configuration.model.tags.PatternAndReplacement;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.RuleSetSettings;
+import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
  * Performs regex replacements on beacon fields.
  * Every replacement results in a new beacon field.
+ * <p>
+ * All patterns are compiled once when the processor is created. Tags can optionally cache their derived values by
+ * their input value, see {@link BeaconTagCacheSettings}.
  */
 @Slf4j
 @Component
 public class RegexReplacementBeaconProcessor implements BeaconProcessor {
 
+    /**
+     * The interval in which the cache statistics are recorded by the self-monitoring.
+     */
+    private static final long MONITORING_INTERVAL_MS = 15000;
+
+    @Autowired
+    private SelfMonitoringMetricManager selfMonitoring;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutor;
+
     private List<RegexDerivedTag> derivedTags;
 
+    /**
+     * The cache statistics of each cached tag, which have been recorded last.
+     */
+    private final Map<String, CacheStats> recordedCacheStats = new HashMap<>();
+
+    private ScheduledFuture<?> monitoringTask;
+
     @Autowired
     public RegexReplacementBeaconProcessor(EumServerConfiguration config) {
         Map<String, RegexDerivedTag> unorderedTags = config.getTags().getBeacon().entrySet().stream()
                 .map(e -> RegexDerivedTag.fromSettings(e.getKey(), e.getValue()))
+                .filter(Objects::nonNull)
                 .collect(Collectors.toMap(RegexDerivedTag::getTagName, t -> t));
         derivedTags = getInTopologicalOrder(unorderedTags.values(), tag -> {
             String input = tag.getInputBeaconField();
@@ -40,6 +78,30 @@ public class RegexReplacementBeaconProcessor implements BeaconProcessor {
         });
     }
 
+    @PostConstruct
+    public void initialize() {
+        if (derivedTags.stream().anyMatch(tag -> tag.getCache() != null)) {
+            monitoringTask = scheduledExecutor.scheduleAtFixedRate(this::recordCacheStatistics, MONITORING_INTERVAL_MS, MONITORING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (monitoringTask != null) {
+            monitoringTask.cancel(false);
+        }
+    }
+
+    @Override
+    public Set<String> getInputFields() {
+        return derivedTags.stream().map(tag -> tag.getInputField().getName()).collect(Collectors.toSet());
+    }
+
+    @Override
+    public Set<String> getOutputFields() {
+        return derivedTags.stream().map(RegexDerivedTag::getTagName).collect(Collectors.toSet());
+    }
+
     @Override
     public Beacon process(Beacon beacon) {
         Map<String, String> newTags = new HashMap<>();
@@ -47,7 +109,7 @@ public class RegexReplacementBeaconProcessor implements BeaconProcessor {
         for (RegexDerivedTag derivedTag : derivedTags) {
             String input = newTags.get(derivedTag.getInputBeaconField());
             if (input == null) {
-                input = beacon.get(derivedTag.getInputBeaconField());
+                input = beacon.get(derivedTag.getInputField());
             }
 
             String tagValue = deriveTag(derivedTag, input);
@@ -68,12 +130,66 @@ public class RegexReplacementBeaconProcessor implements BeaconProcessor {
                 return null;
             }
         }
-        return applyAllReplacements(value, tag.getReplacements());
+
+        Cache<String, Optional<String>> cache = tag.getCache();
+        if (cache == null) {
+            return applyRules(tag, value);
+        }
+        // the input value is the only input of the replacements, thus, it can be used as key - also in case it is the value of another tag
+        Optional<String> cachedValue = cache.getIfPresent(value);
+        if (cachedValue == null) {
+            cachedValue = Optional.ofNullable(applyRules(tag, value));
+            cache.put(value, cachedValue);
+        }
+        return cachedValue.orElse(null);
+    }
+
+    /**
+     * Applies the replacements and the rule set of the given tag.
+     */
+    private String applyRules(RegexDerivedTag tag, String value) {
+        String result = applyAllReplacements(value, tag.getReplacements());
+        if (result == null || tag.getRuleSet() == null) {
+            return result;
+        }
+        try {
+            String ruleResult = tag.getRuleSet().apply(result);
+            if (ruleResult != null) {
+                return ruleResult;
+            }
+        } catch (Exception ex) {
+            log.error("Error applying rule set of beacon tag <{}>!", tag.getTagName());
+        }
+        return tag.isRuleSetKeepNoMatch() ? result : null;
+    }
+
+    /**
+     * Records the hits, misses and evictions of the tag caches since the last time they have been recorded.
+     */
+    @VisibleForTesting
+    void recordCacheStatistics() {
+        for (RegexDerivedTag tag : derivedTags) {
+            if (tag.getCache() != null) {
+                CacheStats stats = tag.getCache().stats();
+                CacheStats delta = stats.minus(recordedCacheStats.getOrDefault(tag.getTagName(), new CacheStats(0, 0, 0, 0, 0, 0)));
+                recordedCacheStats.put(tag.getTagName(), stats);
+
+                recordCacheEvent(tag.getTagName(), "hit", delta.hitCount());
+                recordCacheEvent(tag.getTagName(), "miss", delta.missCount());
+                recordCacheEvent(tag.getTagName(), "eviction", delta.evictionCount());
+            }
+        }
+    }
+
+    private void recordCacheEvent(String tagName, String event, long count) {
+        if (count > 0) {
+            selfMonitoring.record("beacon_tag_cache", count, ImmutableMap.of("tag", tagName, "event", event));
+        }
     }
 
-    private String applyAllReplacements(String input, List<PatternAndReplacement> replacements) {
+    private String applyAllReplacements(String input, List<CompiledReplacement> replacements) {
         String result = input;
-        for (PatternAndReplacement setting : replacements) {
+        for (CompiledReplacement setting : replacements) {
             if (result == null) {
                 return null;
             }
@@ -82,12 +198,20 @@ public class RegexReplacementBeaconProcessor implements BeaconProcessor {
         return result;
     }
 
-    private String applyReplacement(PatternAndReplacement replacement, String value) {
-        Pattern regex = Pattern.compile(replacement.getPattern());
+    /**
+     * Replaces all matches of the replacement's pattern in the given value. The value is only scanned once, the
+     * replacement starts at the first match found.
+     */
+    private String applyReplacement(CompiledReplacement replacement, String value) {
         try {
-            boolean anyRegexMatch = regex.matcher(value).find();
-            if (anyRegexMatch) {
-                return regex.matcher(value).replaceAll(replacement.getReplacement());
+            Matcher matcher = replacement.getPattern().matcher(value);
+            if (matcher.find()) {
+                StringBuilder result = new StringBuilder(value.length());
+                do {
+                    matcher.appendReplacement(result, replacement.getReplacement());
+                } while (matcher.find());
+                matcher.appendTail(result);
+                return result.toString();
             }
         } catch (Exception ex) {
             log.error("Error applying replacement regex <{}> with replacement <{}>!", replacement.getPattern(), replacement
@@ -147,20 +271,98 @@ public class RegexReplacementBeaconProcessor implements BeaconProcessor {
          */
         String inputBeaconField;
 
+        /**
+         * The handle of the input beacon field.
+         */
+        BeaconField inputField;
+
         /**
          * Specify whether the input field should be considered as an empty string if it does not exists.
          */
         boolean nullAsEmpty;
 
-        List<PatternAndReplacement> replacements;
+        List<CompiledReplacement> replacements;
 
+        /**
+         * The cache of the derived values by their input value, <code>null</code> if caching is disabled.
+         */
+        Cache<String, Optional<String>> cache;
+
+        /**
+         * The rule set applied after the replacements, <code>null</code> if not configured.
+         */
+        PatternRuleSet ruleSet;
+
+        /**
+         * Whether the value is kept in case no rule of the {@link #ruleSet} matches.
+         */
+        boolean ruleSetKeepNoMatch;
+
+        /**
+         * @return the derived tag or <code>null</code> in case any of its patterns is invalid
+         */
         private static RegexDerivedTag fromSettings(String tagName, BeaconTagSettings settings) {
+            List<CompiledReplacement> replacements = new ArrayList<>();
+            for (PatternAndReplacement replacement : settings.getAllReplacements()) {
+                try {
+                    replacements.add(CompiledReplacement.compile(replacement));
+                } catch (Exception e) {
+                    log.error("Invalid replacement regex <{}> for beacon tag <{}>, the tag will not be derived!", replacement.getPattern(), tagName, e);
+                    return null;
+                }
+            }
+
+            PatternRuleSet ruleSet = null;
+            RuleSetSettings ruleSetSettings = settings.getRuleSet();
+            if (ruleSetSettings != null) {
+                try {
+                    ruleSet = new PatternRuleSet(ruleSetSettings.getRules());
+                } catch (Exception e) {
+                    log.error("Invalid rule set for beacon tag <{}>, the tag will not be derived!", tagName, e);
+                    return null;
+                }
+            }
+
+            // the resulting field is registered, so it can be stored by its id
+            BeaconFieldDictionary.register(tagName);
             return RegexDerivedTag.builder()
                     .tagName(tagName)
                     .inputBeaconField(settings.getInput())
+                    .inputField(BeaconFieldDictionary.register(settings.getInput()))
                     .nullAsEmpty(settings.isNullAsEmpty())
-                    .replacements(settings.getAllReplacements())
+                    .replacements(replacements)
+                    .cache(createCache(settings.getCache()))
+                    .ruleSet(ruleSet)
+                    .ruleSetKeepNoMatch(ruleSetSettings == null || ruleSetSettings.isKeepNoMatch())
                     .build();
         }
+
+        private static Cache<String, Optional<String>> createCache(BeaconTagCacheSettings settings) {
+            if (settings == null) {
+                return null;
+            }
+            CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(settings.getMaxSize()).recordStats();
+            if (settings.getTtl() != null) {
+                builder.expireAfterWrite(settings.getTtl());
+            }
+            return builder.build();
+        }
+    }
+
+    /**
+     * A {@link PatternAndReplacement} with its compiled pattern.
+     */
+    @Value
+    private static class CompiledReplacement {
+
+        Pattern pattern;
+
+        String replacement;
+
+        boolean keepNoMatch;
+
+        private static CompiledReplacement compile(PatternAndReplacement settings) {
+            return new CompiledReplacement(Pattern.compile(settings.getPattern()), settings.getReplacement(), settings.isKeepNoMatch());
+        }
     }
 }
@@ -0,0 +1,322 @@
+package rocks.inspectit.oce.eum.server.beacon.processor;
+
+import com.google.common.annotations.VisibleForTesting;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconField;
+import rocks.inspectit.oce.eum.server.beacon.BeaconFieldDictionary;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.processing.UrlDecompositionSettings;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Processor decomposing the URLs of the configured beacon fields into their parts. Each URL is scanned once, without
+ * using regular expressions. The parts are stored in new beacon fields, prefixed by the URL field's name:
+ * <ul>
+ * <li><code>[field].scheme</code>: the scheme, e.g. <code>https</code></li>
+ * <li><code>[field].host</code>: the host, e.g. <code>example.com</code></li>
+ * <li><code>[field].port</code>: the port, only if it is explicitly specified</li>
+ * <li><code>[field].path</code>: the path, without query and fragment</li>
+ * <li><code>[field].no_query</code>: the URL without its query</li>
+ * <li><code>[field].path_template</code>: the path where identifiers are replaced by <code>{id}</code>, if enabled</li>
+ * </ul>
+ * Scheme, host, port and path are only available for URLs containing an authority (<code>//host</code>).
+ * <p>
+ * The processor runs before all other processors, so the resulting fields can be used as input of beacon tags.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class UrlDecompositionBeaconProcessor implements BeaconProcessor {
+
+    public static final String SCHEME_SUFFIX = ".scheme";
+
+    public static final String HOST_SUFFIX = ".host";
+
+    public static final String PORT_SUFFIX = ".port";
+
+    public static final String PATH_SUFFIX = ".path";
+
+    public static final String NO_QUERY_SUFFIX = ".no_query";
+
+    public static final String PATH_TEMPLATE_SUFFIX = ".path_template";
+
+    /**
+     * The replacement of path segments representing identifiers.
+     */
+    @VisibleForTesting
+    static final String ID_PLACEHOLDER = "{id}";
+
+    /**
+     * The minimum length of a hexadecimal path segment to be considered as identifier.
+     */
+    private static final int MIN_HEX_ID_LENGTH = 16;
+
+    /**
+     * The maximum number of parts a single URL is decomposed into.
+     */
+    private static final int MAX_PARTS = 6;
+
+    /**
+     * The URL fields to decompose.
+     */
+    private final List<UrlField> urlFields;
+
+    /**
+     * Whether path templates are derived.
+     */
+    private final boolean pathTemplate;
+
+    @Autowired
+    public UrlDecompositionBeaconProcessor(EumServerConfiguration configuration) {
+        UrlDecompositionSettings settings = configuration.getProcessing() == null ? null : configuration.getProcessing()
+                .getUrlDecomposition();
+        if (settings == null) {
+            urlFields = Collections.emptyList();
+            pathTemplate = false;
+        } else {
+            urlFields = settings.getFields().stream().distinct().map(UrlField::new).collect(Collectors.toList());
+            pathTemplate = settings.isPathTemplate();
+        }
+    }
+
+    @Override
+    public Set<String> getInputFields() {
+        return urlFields.stream().map(field -> field.getInput().getName()).collect(Collectors.toSet());
+    }
+
+    @Override
+    public Set<String> getOutputFields() {
+        Set<String> outputFields = new HashSet<>();
+        for (UrlField field : urlFields) {
+            outputFields.addAll(Arrays.asList(field.getScheme(), field.getHost(), field.getPort(), field.getPath(), field.getNoQuery()));
+            if (pathTemplate) {
+                outputFields.add(field.getPathTemplate());
+            }
+        }
+        return outputFields;
+    }
+
+    @Override
+    public Beacon process(Beacon beacon) {
+        if (urlFields.isEmpty()) {
+            return beacon;
+        }
+
+        String[] fieldNames = new String[urlFields.size() * MAX_PARTS];
+        String[] fieldValues = new String[fieldNames.length];
+        int count = 0;
+        for (UrlField field : urlFields) {
+            String url = beacon.get(field.getInput());
+            if (url != null) {
+                count = decompose(url, field, fieldNames, fieldValues, count);
+            }
+        }
+        return beacon.merge(fieldNames, fieldValues, count);
+    }
+
+    /**
+     * Decomposes the given URL and stores its parts in the given arrays, starting at the specified index.
+     *
+     * @return the number of used array elements after adding the parts
+     */
+    private int decompose(String url, UrlField field, String[] fieldNames, String[] fieldValues, int count) {
+        int length = url.length();
+        int queryStart = url.indexOf('?');
+        fieldNames[count] = field.getNoQuery();
+        fieldValues[count++] = queryStart < 0 ? url : url.substring(0, queryStart);
+
+        // scheme: ALPHA *( ALPHA / DIGIT / "+" / "-" / "." ) ":"
+        int schemeEnd = 0;
+        while (schemeEnd < length && isSchemeChar(url.charAt(schemeEnd), schemeEnd)) {
+            schemeEnd++;
+        }
+        boolean hasScheme = schemeEnd > 0 && schemeEnd < length && url.charAt(schemeEnd) == ':';
+        int authorityStart = hasScheme ? schemeEnd + 1 : 0;
+
+        if (!url.startsWith("//", authorityStart)) {
+            return count;
+        }
+        authorityStart += 2;
+        if (hasScheme) {
+            fieldNames[count] = field.getScheme();
+            fieldValues[count++] = url.substring(0, schemeEnd);
+        }
+
+        int authorityEnd = authorityStart;
+        int userInfoEnd = -1;
+        while (authorityEnd < length) {
+            char c = url.charAt(authorityEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            } else if (c == '@') {
+                userInfoEnd = authorityEnd;
+            }
+            authorityEnd++;
+        }
+
+        int hostStart = userInfoEnd < 0 ? authorityStart : userInfoEnd + 1;
+        int hostEnd = hostStart;
+        if (hostStart < authorityEnd && url.charAt(hostStart) == '[') {
+            // IPv6 address
+            while (hostEnd < authorityEnd && url.charAt(hostEnd) != ']') {
+                hostEnd++;
+            }
+            hostEnd = Math.min(hostEnd + 1, authorityEnd);
+        } else {
+            while (hostEnd < authorityEnd && url.charAt(hostEnd) != ':') {
+                hostEnd++;
+            }
+        }
+        fieldNames[count] = field.getHost();
+        fieldValues[count++] = url.substring(hostStart, hostEnd);
+
+        if (hostEnd + 1 < authorityEnd && url.charAt(hostEnd) == ':' && isDigits(url, hostEnd + 1, authorityEnd)) {
+            fieldNames[count] = field.getPort();
+            fieldValues[count++] = url.substring(hostEnd + 1, authorityEnd);
+        }
+
+        int pathEnd = authorityEnd;
+        while (pathEnd < length && url.charAt(pathEnd) != '?' && url.charAt(pathEnd) != '#') {
+            pathEnd++;
+        }
+        String path = url.substring(authorityEnd, pathEnd);
+        fieldNames[count] = field.getPath();
+        fieldValues[count++] = path;
+
+        if (pathTemplate) {
+            fieldNames[count] = field.getPathTemplate();
+            fieldValues[count++] = toPathTemplate(path);
+        }
+        return count;
+    }
+
+    /**
+     * Replaces all segments of the given path which represent identifiers with {@link #ID_PLACEHOLDER}.
+     *
+     * @param path the path to normalize
+     *
+     * @return the path template, which is the given path in case it does not contain any identifiers
+     */
+    @VisibleForTesting
+    static String toPathTemplate(String path) {
+        StringBuilder template = null;
+        int segmentStart = 0;
+        int length = path.length();
+        while (segmentStart <= length) {
+            int segmentEnd = path.indexOf('/', segmentStart);
+            if (segmentEnd < 0) {
+                segmentEnd = length;
+            }
+
+            if (isIdentifier(path, segmentStart, segmentEnd)) {
+                if (template == null) {
+                    template = new StringBuilder(length).append(path, 0, segmentStart);
+                }
+                template.append(ID_PLACEHOLDER);
+            } else if (template != null) {
+                template.append(path, segmentStart, segmentEnd);
+            }
+            if (template != null && segmentEnd < length) {
+                template.append('/');
+            }
+            segmentStart = segmentEnd + 1;
+        }
+        return template == null ? path : template.toString();
+    }
+
+    /**
+     * Checks whether the given path segment is a number, a UUID or a hexadecimal hash.
+     */
+    private static boolean isIdentifier(String path, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return false;
+        }
+        if (isDigits(path, start, end)) {
+            return true;
+        }
+
+        boolean uuidFormat = length == 36;
+        boolean containsDigit = false;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            int position = i - start;
+            boolean dashPosition = position == 8 || position == 13 || position == 18 || position == 23;
+            if (uuidFormat && dashPosition) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (Character.digit(c, 16) < 0) {
+                return false;
+            } else if (c <= '9') {
+                containsDigit = true;
+            }
+        }
+        return uuidFormat || length >= MIN_HEX_ID_LENGTH && containsDigit;
+    }
+
+    private static boolean isDigits(String value, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSchemeChar(char c, int position) {
+        boolean alpha = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        if (position == 0) {
+            return alpha;
+        }
+        return alpha || (c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.';
+    }
+
+    /**
+     * A URL field and the names of the resulting fields.
+     */
+    @Value
+    private static class UrlField {
+
+        BeaconField input;
+
+        String scheme;
+
+        String host;
+
+        String port;
+
+        String path;
+
+        String noQuery;
+
+        String pathTemplate;
+
+        private UrlField(String input) {
+            this.input = BeaconFieldDictionary.register(input);
+            scheme = register(input + SCHEME_SUFFIX);
+            host = register(input + HOST_SUFFIX);
+            port = register(input + PORT_SUFFIX);
+            path = register(input + PATH_SUFFIX);
+            noQuery = register(input + NO_QUERY_SUFFIX);
+            pathTemplate = register(input + PATH_TEMPLATE_SUFFIX);
+        }
+
+        /**
+         * Registers the given field, so it can be stored by its id.
+         */
+        private static String register(String field) {
+            return BeaconFieldDictionary.register(field).getName();
+        }
+    }
+}
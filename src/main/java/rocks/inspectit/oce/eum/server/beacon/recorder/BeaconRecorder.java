@@ -2,6 +2,8 @@ package rocks.inspectit.oce.eum.server.beacon.recorder;
 
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
 
+import java.util.Set;
+
 /**
  * Interface for all components acting as {@link BeaconRecorder}.
  * BeaconRecorder are intended to record custom complicated metrics from a fully-processed Beacon.
@@ -16,4 +18,14 @@ public interface BeaconRecorder {
      */
     void record(Beacon beacon);
 
+    /**
+     * Returns the beacon fields which are read by this recorder. Fields which are not read by any component can be
+     * dropped from received beacons.
+     *
+     * @return the names of the read fields or <code>null</code> in case they are unknown
+     */
+    default Set<String> getInputFields() {
+        return null;
+    }
+
 }
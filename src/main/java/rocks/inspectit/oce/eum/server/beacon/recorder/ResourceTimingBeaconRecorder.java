@@ -2,6 +2,7 @@ package rocks.inspectit.oce.eum.server.beacon.recorder;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableSet;
 import io.opencensus.common.Scope;
 import lombok.Builder;
 import lombok.RequiredArgsConstructor;
@@ -58,6 +59,11 @@ public class ResourceTimingBeaconRecorder implements BeaconRecorder {
     @Autowired
     private final EumServerConfiguration configuration;
 
+    /**
+     * The beacon fields read by this recorder.
+     */
+    private static final Set<String> INPUT_FIELDS = ImmutableSet.of("u", "restiming");
+
     /**
      * Name of the metric
      */
@@ -98,6 +104,11 @@ public class ResourceTimingBeaconRecorder implements BeaconRecorder {
         measuresAndViewsManager.updateMetrics(RESOURCE_TIME_METRIC_NAME, RESOURCE_TIME);
     }
 
+    @Override
+    public Set<String> getInputFields() {
+        return INPUT_FIELDS;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -4,8 +4,13 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
+import rocks.inspectit.oce.eum.server.configuration.model.client.ClientAddressSettings;
 import rocks.inspectit.oce.eum.server.configuration.model.exporters.ExportersSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.geolocation.GeolocationSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.ingestion.IngestionSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.metric.ExpressionSettings;
 import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.BeaconMetricDefinitionSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.processing.ProcessingSettings;
 import rocks.inspectit.oce.eum.server.configuration.model.security.SecuritySettings;
 import rocks.inspectit.oce.eum.server.configuration.model.selfmonitoring.SelfMonitoringSettings;
 import rocks.inspectit.oce.eum.server.configuration.model.tags.TagsSettings;
@@ -32,6 +37,12 @@ public class EumServerConfiguration {
     @NotNull
     private Map<@NotBlank String, @NotNull @Valid BeaconMetricDefinitionSettings> definitions = Collections.emptyMap();
 
+    /**
+     * The settings how the value expressions of the metric definitions are evaluated.
+     */
+    @Valid
+    private ExpressionSettings expressions;
+
     /**
      * Map of tags
      */
@@ -59,4 +70,28 @@ public class EumServerConfiguration {
     @Valid
     private SecuritySettings security;
 
+    /**
+     * The settings how beacons and spans are ingested.
+     */
+    @Valid
+    private IngestionSettings ingestion;
+
+    /**
+     * The settings of the beacon processors.
+     */
+    @Valid
+    private ProcessingSettings processing;
+
+    /**
+     * The settings of the geolocation resolution.
+     */
+    @Valid
+    private GeolocationSettings geolocation;
+
+    /**
+     * The settings of the resolution of the clients' addresses.
+     */
+    @Valid
+    private ClientAddressSettings clientAddress;
+
 }
@@ -0,0 +1,42 @@
+package rocks.inspectit.oce.eum.server.configuration.model.client;
+
+import lombok.Data;
+import org.springframework.validation.annotation.Validated;
+import rocks.inspectit.oce.eum.server.utils.CidrTrie;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of the resolution of the clients' addresses. The forwarded-header of a request is only evaluated, if the
+ * request has been sent by a trusted proxy. Thus, clients cannot spoof their address by sending the header themselves.
+ */
+@Data
+@Validated
+public class ClientAddressSettings {
+
+    /**
+     * The addresses or networks (CIDR notation) of the proxies whose forwarded-header is trusted.
+     */
+    private List<String> trustedProxies = new ArrayList<>();
+
+    /**
+     * The header containing the comma-separated chain of addresses the request has been forwarded for, the
+     * original client being the first one.
+     */
+    @NotBlank
+    private String forwardedHeader = "X-Forwarded-For";
+
+    @AssertTrue(message = "The trusted proxies must be valid IP addresses or CIDRs")
+    public boolean isTrustedProxiesValid() {
+        CidrTrie.Builder<Boolean> builder = CidrTrie.builder();
+        try {
+            trustedProxies.forEach(proxy -> builder.put(proxy, true));
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
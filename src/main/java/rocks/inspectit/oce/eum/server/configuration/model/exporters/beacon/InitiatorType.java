@@ -1,6 +1,8 @@
 package rocks.inspectit.oce.eum.server.configuration.model.exporters.beacon;
 
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconField;
+import rocks.inspectit.oce.eum.server.beacon.BeaconFieldDictionary;
 
 /**
  * Types of initiators for beacons.
@@ -32,6 +34,16 @@ public enum InitiatorType {
         }
     };
 
+    /**
+     * The name of the beacon field containing the initiator.
+     */
+    public static final String HTTP_INITIATOR_FIELD = "http.initiator";
+
+    /**
+     * The beacon field containing the initiator.
+     */
+    private static final BeaconField HTTP_INITIATOR = BeaconFieldDictionary.register(HTTP_INITIATOR_FIELD);
+
     abstract boolean isEqualToBeaconHttpInitiator(String httpInitiatorValue);
 
     /**
@@ -42,7 +54,7 @@ public enum InitiatorType {
      * @return true, if the initiator matches
      */
     public boolean hasInitiator(Beacon beacon) {
-        return isEqualToBeaconHttpInitiator(beacon.get("http.initiator"));
+        return isEqualToBeaconHttpInitiator(beacon.get(HTTP_INITIATOR));
     }
 
 }
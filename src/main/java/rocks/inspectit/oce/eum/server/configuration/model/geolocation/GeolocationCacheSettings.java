@@ -0,0 +1,47 @@
+package rocks.inspectit.oce.eum.server.configuration.model.geolocation;
+
+import lombok.Data;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+/**
+ * Settings of the cache storing resolved country codes. The country codes are cached per network, which is determined
+ * by the given prefix lengths, as client addresses are usually repeating within a network, e.g. behind a NAT. Networks
+ * containing more specific networks of the database are split into subnets, so caching does not change the results.
+ */
+@Data
+@Validated
+public class GeolocationCacheSettings {
+
+    /**
+     * Whether resolved country codes are cached.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The maximum number of cached networks. The least recently used networks are evicted first.
+     */
+    @Min(1)
+    private long maxSize = 10000;
+
+    /**
+     * The prefix length of IPv4 addresses, which is used as cache key.
+     */
+    @Min(0)
+    @Max(32)
+    private int ipv4PrefixLength = 24;
+
+    /**
+     * The prefix length of IPv6 addresses, which is used as cache key.
+     */
+    @Min(0)
+    @Max(128)
+    private int ipv6PrefixLength = 48;
+
+    /**
+     * Whether the nodes of the GeoIP database are additionally cached by the database reader.
+     */
+    private boolean databaseCache;
+}
@@ -0,0 +1,38 @@
+package rocks.inspectit.oce.eum.server.configuration.model.geolocation;
+
+import lombok.Data;
+import org.hibernate.validator.constraints.time.DurationMin;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Settings of the GeoIP database. By default, the GeoLite2 country database shipped with the server is loaded into
+ * the heap. Alternatively, a database file can be specified, which is memory-mapped and reloaded when it changes.
+ */
+@Data
+@Validated
+public class GeolocationDatabaseSettings {
+
+    /**
+     * Path to the GeoIP database file (MaxMind DB format). If not specified, the bundled database is used.
+     */
+    private String path;
+
+    /**
+     * Flag indicates if the database file should be watched for changes.
+     */
+    private boolean watch = true;
+
+    /**
+     * Duration how often the database file should be checked for changes.
+     */
+    @DurationMin(millis = 1000)
+    private Duration frequency = Duration.ofSeconds(60);
+
+    /**
+     * Duration after which a replaced database is closed, so that lookups which are still using it can finish.
+     */
+    @DurationMin(millis = 0)
+    private Duration gracePeriod = Duration.ofSeconds(30);
+}
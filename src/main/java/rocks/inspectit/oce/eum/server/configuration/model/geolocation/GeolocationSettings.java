@@ -0,0 +1,27 @@
+package rocks.inspectit.oce.eum.server.configuration.model.geolocation;
+
+import lombok.Data;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.Valid;
+
+/**
+ * Settings of the resolution of the clients' geolocation using the GeoIP database.
+ */
+@Data
+@Validated
+public class GeolocationSettings {
+
+    /**
+     * Settings of the GeoIP database used for resolving the country codes.
+     */
+    @Valid
+    private GeolocationDatabaseSettings database;
+
+    /**
+     * Settings of the cache storing resolved country codes.
+     */
+    @Valid
+    private GeolocationCacheSettings cache;
+
+}
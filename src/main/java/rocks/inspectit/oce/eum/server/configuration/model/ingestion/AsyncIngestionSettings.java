@@ -0,0 +1,46 @@
+package rocks.inspectit.oce.eum.server.configuration.model.ingestion;
+
+import lombok.Data;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Duration;
+
+/**
+ * Settings for the asynchronous beacon ingestion. When enabled, received beacons are put into a bounded queue and
+ * are processed by a pool of workers, thus, the request is answered before the beacon has been processed.
+ */
+@Data
+@Validated
+public class AsyncIngestionSettings {
+
+    /**
+     * Whether beacons should be processed asynchronously.
+     */
+    private boolean enabled;
+
+    /**
+     * The maximum number of beacons which can be queued for processing.
+     */
+    @Min(1)
+    private int queueCapacity;
+
+    /**
+     * The number of workers processing the queued beacons.
+     */
+    @Min(1)
+    private int workerThreads;
+
+    /**
+     * The delay clients are asked to wait before retrying in case the queue is full.
+     */
+    @NotNull
+    private Duration retryAfter;
+
+    @AssertTrue(message = "Retry-After has to be greater or equal to 1 second.")
+    public boolean isRetryAfterGreaterThanOne() {
+        return retryAfter == null || retryAfter.getSeconds() >= 1;
+    }
+}
@@ -0,0 +1,40 @@
+package rocks.inspectit.oce.eum.server.configuration.model.ingestion;
+
+import lombok.Data;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Settings for the decompression of request bodies which are sent with a <code>Content-Encoding</code> header.
+ */
+@Data
+@Validated
+public class DecompressionSettings {
+
+    /**
+     * Whether compressed request bodies are accepted.
+     */
+    private boolean enabled;
+
+    /**
+     * The maximum size of a compressed request body.
+     */
+    @NotNull
+    private DataSize maxCompressedSize;
+
+    /**
+     * The maximum size of a request body after its decompression.
+     */
+    @NotNull
+    private DataSize maxDecompressedSize;
+
+    /**
+     * The maximum ratio between the decompressed and the compressed size of a request body. Requests exceeding this
+     * ratio are considered to be decompression bombs and are rejected.
+     */
+    @Min(1)
+    private int maxCompressionRatio;
+}
@@ -0,0 +1,33 @@
+package rocks.inspectit.oce.eum.server.configuration.model.ingestion;
+
+import lombok.Data;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.Valid;
+
+/**
+ * Settings how incoming data is ingested by the EUM server.
+ */
+@Data
+@Validated
+public class IngestionSettings {
+
+    /**
+     * Settings for the asynchronous beacon ingestion.
+     */
+    @Valid
+    private AsyncIngestionSettings async;
+
+    /**
+     * Settings for the decompression of compressed request bodies.
+     */
+    @Valid
+    private DecompressionSettings decompression;
+
+    /**
+     * Settings for dropping beacon fields which are not used.
+     */
+    @Valid
+    private ProjectionSettings projection;
+
+}
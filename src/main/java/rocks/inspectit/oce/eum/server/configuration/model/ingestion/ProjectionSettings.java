@@ -0,0 +1,27 @@
+package rocks.inspectit.oce.eum.server.configuration.model.ingestion;
+
+import lombok.Data;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Settings for the field projection. When enabled, fields of received beacons which are neither used by a metric
+ * definition, a beacon tag, a beacon processor nor a beacon recorder are dropped before the beacon is processed.
+ */
+@Data
+@Validated
+public class ProjectionSettings {
+
+    /**
+     * Whether unused beacon fields should be dropped.
+     */
+    private boolean enabled;
+
+    /**
+     * Fields which are always retained, e.g. because they are required by the beacon exporter.
+     * In case the beacon exporter is enabled and no fields are specified, the projection is disabled.
+     */
+    private Set<String> retainedFields = Collections.emptySet();
+}
@@ -0,0 +1,18 @@
+package rocks.inspectit.oce.eum.server.configuration.model.metric;
+
+import lombok.Data;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Settings for the evaluation of the value expressions of the metric definitions.
+ */
+@Data
+@Validated
+public class ExpressionSettings {
+
+    /**
+     * Whether a class is generated for each value expression, which evaluates the expression using straight-line
+     * bytecode. Otherwise, or in case an expression cannot be compiled, the parsed expression is interpreted.
+     */
+    private boolean compile = true;
+}
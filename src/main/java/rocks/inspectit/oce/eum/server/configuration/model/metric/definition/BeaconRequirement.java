@@ -1,10 +1,17 @@
 package rocks.inspectit.oce.eum.server.configuration.model.metric.definition;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconField;
+import rocks.inspectit.oce.eum.server.beacon.BeaconFieldDictionary;
 import rocks.inspectit.oce.eum.server.configuration.model.exporters.beacon.InitiatorType;
 
 import jakarta.validation.constraints.AssertTrue;
@@ -73,6 +80,20 @@ public class BeaconRequirement {
      */
     private String field;
 
+    /**
+     * The handle of the {@link #field}, resolved when the field is set.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private BeaconField beaconField;
+
+    public void setField(String field) {
+        this.field = field;
+        beaconField = field == null ? null : BeaconFieldDictionary.register(field);
+    }
+
     /**
      * Checks whether the given beacon fulfills this requirement.
      *
@@ -83,9 +104,9 @@ public class BeaconRequirement {
     public boolean validate(Beacon beacon) {
         switch (requirement) {
             case EXISTS:
-                return beacon.contains(field);
+                return beacon.contains(beaconField);
             case NOT_EXISTS:
-                return !beacon.contains(field);
+                return !beacon.contains(beaconField);
             case HAS_INITIATOR:
                 return initiators.stream().anyMatch(initiatorType -> initiatorType.hasInitiator(beacon));
             default:
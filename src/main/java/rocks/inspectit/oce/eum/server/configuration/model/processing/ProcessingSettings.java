@@ -0,0 +1,33 @@
+package rocks.inspectit.oce.eum.server.configuration.model.processing;
+
+import lombok.Data;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.Valid;
+
+/**
+ * Settings of the processors enriching received beacons.
+ */
+@Data
+@Validated
+public class ProcessingSettings {
+
+    /**
+     * Settings for the decomposition of URLs contained in beacons.
+     */
+    @Valid
+    private UrlDecompositionSettings urlDecomposition;
+
+    /**
+     * Whether independent beacon processors are executed concurrently. The dependencies between the processors are
+     * derived from the fields they are reading and writing.
+     */
+    private boolean parallel;
+
+    /**
+     * Whether beacon processors are skipped in case none of their output fields is consumed by any metric definition,
+     * beacon tag, beacon recorder or other processor.
+     */
+    private boolean skipUnused;
+
+}
@@ -0,0 +1,29 @@
+package rocks.inspectit.oce.eum.server.configuration.model.processing;
+
+import lombok.Data;
+import org.springframework.validation.annotation.Validated;
+
+import jakarta.validation.constraints.NotBlank;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Settings for the decomposition of URLs contained in beacons. Each configured field is parsed once and its parts are
+ * stored in new beacon fields, prefixed by the name of the URL field, e.g. <code>u.host</code>.
+ */
+@Data
+@Validated
+public class UrlDecompositionSettings {
+
+    /**
+     * The beacon fields containing the URLs to decompose, e.g. "u".
+     */
+    private List<@NotBlank String> fields = Collections.emptyList();
+
+    /**
+     * Whether a normalized path template should be derived, where path segments representing identifiers (numbers,
+     * UUIDs or hexadecimal hashes) are replaced by <code>{id}</code>.
+     */
+    private boolean pathTemplate;
+
+}
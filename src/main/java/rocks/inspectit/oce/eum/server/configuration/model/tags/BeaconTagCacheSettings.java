@@ -0,0 +1,37 @@
+package rocks.inspectit.oce.eum.server.configuration.model.tags;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Min;
+import java.time.Duration;
+
+/**
+ * Settings of the cache storing the derived values of a beacon tag. As a tag's value only depends on the value of its
+ * input field, the derived value of frequently occurring input values can be reused.
+ */
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class BeaconTagCacheSettings {
+
+    /**
+     * The maximum number of cached input values. The least recently used values are evicted first.
+     */
+    @Min(1)
+    private long maxSize;
+
+    /**
+     * The duration after which a cached value expires. If not specified, values only expire when they are evicted.
+     */
+    private Duration ttl;
+
+    @AssertTrue(message = "The TTL of the beacon tag cache has to be positive.")
+    public boolean isTtlPositive() {
+        return ttl == null || !ttl.isNegative() && !ttl.isZero();
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import java.util.ArrayList;
@@ -69,6 +70,18 @@ public class BeaconTagSettings {
     @Builder.Default
     private List<PatternAndReplacement> replacements = Collections.emptyList();
 
+    /**
+     * Rule set which is applied after the {@link #replacements}, only the first matching rule is applied.
+     */
+    @Valid
+    private RuleSetSettings ruleSet;
+
+    /**
+     * Settings for caching the derived values of this tag. If not specified, the tag is derived for every beacon.
+     */
+    @Valid
+    private BeaconTagCacheSettings cache;
+
     /**
      * @return All replacements to perform, including the one specified via the deprecated settings.
      */
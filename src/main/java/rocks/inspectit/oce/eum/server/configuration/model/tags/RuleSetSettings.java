@@ -0,0 +1,36 @@
+package rocks.inspectit.oce.eum.server.configuration.model.tags;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * A set of rules, e.g. for normalizing paths, which is applied to the value of a beacon tag. In contrast to
+ * {@link BeaconTagSettings#getReplacements()}, which are all applied one after another, only the first rule whose
+ * pattern matches the <b>whole</b> value is applied. All rules are combined, thus, large rule sets can be matched
+ * efficiently.
+ */
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class RuleSetSettings {
+
+    /**
+     * The rules in the order of their priority. The replacement of the first rule matching the whole value is used as
+     * the new value, $1, $2 can be used to refer to capture groups. The rules' <code>keepNoMatch</code> flag is ignored.
+     */
+    @NotEmpty
+    private List<PatternAndReplacement> rules;
+
+    /**
+     * Decides the behaviour if no rule matches.
+     * If this is true, the value is kept unchanged, otherwise no value will be provided for the tag.
+     */
+    @Builder.Default
+    private boolean keepNoMatch = true;
+}
@@ -3,12 +3,11 @@ package rocks.inspectit.oce.eum.server.configuration.model.tags;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import rocks.inspectit.oce.eum.server.configuration.model.tags.providers.TagsProvidersSettings;
-import rocks.inspectit.oce.eum.server.utils.IPUtils;
+import rocks.inspectit.oce.eum.server.utils.CidrTrie;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.AssertFalse;
 import jakarta.validation.constraints.AssertTrue;
-import jakarta.validation.constraints.Pattern;
 import java.util.*;
 
 /**
@@ -29,29 +28,22 @@ public class TagsSettings {
      */
     private Map<String, String> extra = new HashMap<>();
 
-    private static final String IP_PATTERN = "^(([01]?\\d\\d?|2[0-4]\\d|25[0-5])\\.){3}([01]?\\d\\d?|2[0-4]\\d|25[0-5])($|(\\/[1-9]$|\\/[1-2][0-9]$|\\/3[0-2]$))";
-
     /**
      * List of tags, which are defined as global
      */
     private final Set<String> defineAsGlobal = new HashSet<>();
 
     /**
-     * Custom IP mapping for COUNTRY_CODE
+     * Custom IP mapping for COUNTRY_CODE, containing IP addresses or networks (CIDR notation)
      */
-    private final Map<String, List<@Pattern(regexp = IP_PATTERN) String>> customIPMapping = new HashMap<>();
+    private final Map<String, List<String>> customIPMapping = new HashMap<>();
 
     /**
      * Tags which are derived using regex-replace operations.
      * The keys are the names of the beacon fields under which the results of the given replacement operation will be stored.
      * Tags via regexes can depend on each other, as long as no cyclic dependency is involved.
      */
-    private Map<String, BeaconTagSettings> beacon = new HashMap<>();
-
-    /**
-     * IPUtils
-     */
-    private IPUtils ipUtils = new IPUtils();
+    private Map<String, @Valid BeaconTagSettings> beacon = new HashMap<>();
 
     @AssertFalse(message = "All defined global tags should exist either in extra tags or beacon tags")
     public boolean isGlobalTagMissing() {
@@ -68,30 +60,31 @@ public class TagsSettings {
         return getExtra().keySet().stream().allMatch(extraTag -> !beacon.containsKey(extraTag));
     }
 
-    @AssertTrue(message = "The ip definitions between the different categories must not overlap")
-    public boolean isCheckIpRangesDoNotOverlap() {
-        return customIPMapping.values().stream()
-                .allMatch(ipList -> ipList.stream()
-                        .allMatch(adresse -> customIPMapping.values().stream()
-                                .allMatch(listToCompare -> listToCompare == ipList || listToCompare.stream().noneMatch(adresseToCompare -> areOverlapping(adresse, adresseToCompare)))));
+    @AssertTrue(message = "The custom IP mappings must be valid IP addresses or CIDRs")
+    public boolean isCustomIPMappingValid() {
+        CidrTrie.Builder<String> builder = CidrTrie.builder();
+        try {
+            customIPMapping.forEach((countryCode, addresses) -> addresses.forEach(address -> builder.put(address, countryCode)));
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
     }
 
-    /**
-     * Helper method, which compares two address entries.
-     *
-     * @param address1
-     * @param address2
-     * @return
-     */
-    private boolean areOverlapping(String address1, String address2) {
-        if (address1.contains("/") && address2.contains("/")) {
-            return ipUtils.overlap(address1, address2);
-        } else if (address1.contains("/") && !address2.contains("/")) {
-            return ipUtils.containsIp(address1, address2);
-        } else if (!address1.contains("/") && address2.contains("/")) {
-            return ipUtils.containsIp(address2, address1);
-        } else {
-            return address1.equals(address2);
+    @AssertTrue(message = "The ip definitions between the different categories must not overlap")
+    public boolean isCheckIpRangesDoNotOverlap() {
+        CidrTrie.Builder<String> builder = CidrTrie.builder();
+        for (Map.Entry<String, List<String>> mapping : customIPMapping.entrySet()) {
+            for (String address : mapping.getValue()) {
+                try {
+                    if (builder.put(address, mapping.getKey()) != null) {
+                        return false;
+                    }
+                } catch (IllegalArgumentException e) {
+                    // invalid addresses are reported by isCustomIPMappingValid()
+                }
+            }
         }
+        return true;
     }
 }
@@ -2,17 +2,24 @@ package rocks.inspectit.oce.eum.server.metrics;
 
 import com.google.common.annotations.VisibleForTesting;
 import io.opencensus.common.Scope;
+import io.opencensus.tags.TagContext;
 import io.opencensus.tags.TagContextBuilder;
 import io.opencensus.tags.TagKey;
+import io.opencensus.tags.Tags;
+import lombok.Getter;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
+import rocks.inspectit.oce.eum.server.arithmetic.EvaluationPlan;
 import rocks.inspectit.oce.eum.server.arithmetic.RawExpression;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconField;
+import rocks.inspectit.oce.eum.server.beacon.BeaconFieldDictionary;
 import rocks.inspectit.oce.eum.server.beacon.recorder.BeaconRecorder;
-import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.BeaconRequirement;
+import rocks.inspectit.oce.eum.server.configuration.model.metric.ExpressionSettings;
 import rocks.inspectit.oce.eum.server.configuration.model.tags.BeaconTagSettings;
 import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
 import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.BeaconMetricDefinitionSettings;
@@ -45,9 +52,15 @@ public class BeaconMetricManager {
     Set<String> registeredBeaconTags = Collections.emptySet();
 
     /**
-     * Maps metric definitions to expressions.
+     * The beacon fields and tag keys of the {@link #registeredBeaconTags}, resolved once when the tags are registered.
      */
-    private final Map<BeaconMetricDefinitionSettings, RawExpression> expressionCache = new HashMap<>();
+    private List<BeaconTagField> registeredBeaconTagFields = Collections.emptyList();
+
+    /**
+     * The configured metric definitions, the evaluation plan of their value expressions and their index. Created when
+     * beacons are processed for the first time and recreated in case the definitions have changed.
+     */
+    private volatile PlannedDefinitions plannedDefinitions;
 
     @EventListener
     public void processUsedTags(RegisteredTagsEvent registeredTagsEvent) {
@@ -57,6 +70,9 @@ public class BeaconMetricManager {
                 .stream()
                 .filter(beaconTagSettings::containsKey)
                 .collect(Collectors.toSet());
+        registeredBeaconTagFields = registeredBeaconTags.stream()
+                .map(tag -> new BeaconTagField(BeaconFieldDictionary.register(tag), TagUtils.createTagKey(tag)))
+                .collect(Collectors.toList());
     }
 
     /**
@@ -68,27 +84,44 @@ public class BeaconMetricManager {
      */
     public boolean processBeacon(Beacon beacon) {
         boolean successful = false;
+        BeaconTags tags = new BeaconTags(beacon);
 
         Map<String, BeaconMetricDefinitionSettings> definitions = configuration.getDefinitions();
         if (CollectionUtils.isEmpty(definitions)) {
             successful = true;
         } else {
-            for (Map.Entry<String, BeaconMetricDefinitionSettings> metricDefinitionEntry : definitions.entrySet()) {
-                String metricName = metricDefinitionEntry.getKey();
-                BeaconMetricDefinitionSettings metricDefinition = metricDefinitionEntry.getValue();
-
-                if (BeaconRequirement.validate(beacon, metricDefinition.getBeaconRequirements())) {
-                    recordMetric(metricName, metricDefinition, beacon);
-                    successful = true;
-                } else {
-                    log.debug("Skipping beacon because requirements are not fulfilled.");
+            PlannedDefinitions planned = getPlannedDefinitions(definitions);
+            DefinitionIndex.Selection selection = planned.getIndex().select(beacon);
+            EvaluationPlan.Evaluation evaluation = planned.getPlan().evaluate(beacon);
+            MeasuresAndViewsManager.MeasureBatch measures = null;
+            try {
+                for (int i = 0; i < planned.getNames().length; i++) {
+                    if (selection.fulfillsRequirements(i)) {
+                        if (selection.isSolvable(i)) {
+                            Number value = evaluation.solve(i);
+                            if (value != null) {
+                                if (measures == null) {
+                                    measures = measuresAndViewsManager.newMeasureBatch();
+                                }
+                                measuresAndViewsManager.updateMetrics(planned.getNames()[i], planned.getDefinitions()[i]);
+                                measures.put(planned.getNames()[i], planned.getDefinitions()[i], value);
+                            }
+                        }
+                        successful = true;
+                    } else {
+                        log.debug("Skipping beacon because requirements are not fulfilled.");
+                    }
+                }
+            } finally {
+                if (measures != null) {
+                    measures.record(tags.get());
                 }
             }
         }
 
         // allow each beacon recorder to record stuff
         if (!CollectionUtils.isEmpty(beaconRecorders)) {
-            try (Scope scope = getTagContextForBeacon(beacon).buildScoped()) {
+            try (Scope scope = Tags.getTagger().withTagContext(tags.get())) {
                 beaconRecorders.forEach(beaconRecorder -> beaconRecorder.record(beacon));
             }
         }
@@ -97,28 +130,20 @@ public class BeaconMetricManager {
     }
 
     /**
-     * Extracts the metric value from the given beacon according to the specified metric definition.
-     * In case the metric definition's value expression is not solvable using the given beacon (not all required
-     * fields are existing) nothing is done.
-     *
-     * @param metricName       the metric name
-     * @param metricDefinition the metric's definition
-     * @param beacon           the current beacon
+     * Returns the planned definitions, which are created in case the given definitions have not been planned yet.
      */
-    private void recordMetric(String metricName, BeaconMetricDefinitionSettings metricDefinition, Beacon beacon) {
-        RawExpression expression = expressionCache.computeIfAbsent(metricDefinition, definition -> new RawExpression(definition
-                .getValueExpression()));
-
-        if (expression.isSolvable(beacon)) {
-            Number value = expression.solve(beacon);
-
-            if (value != null) {
-                measuresAndViewsManager.updateMetrics(metricName, metricDefinition);
-                try (Scope scope = getTagContextForBeacon(beacon).buildScoped()) {
-                    measuresAndViewsManager.recordMeasure(metricName, metricDefinition, value);
-                }
-            }
+    private PlannedDefinitions getPlannedDefinitions(Map<String, BeaconMetricDefinitionSettings> definitions) {
+        PlannedDefinitions planned = plannedDefinitions;
+        if (planned == null || planned.getSource() != definitions) {
+            planned = new PlannedDefinitions(definitions, isCompileExpressions());
+            plannedDefinitions = planned;
         }
+        return planned;
+    }
+
+    private boolean isCompileExpressions() {
+        ExpressionSettings expressionSettings = configuration.getExpressions();
+        return expressionSettings != null && expressionSettings.isCompile();
     }
 
     /**
@@ -128,11 +153,89 @@ public class BeaconMetricManager {
      */
     private TagContextBuilder getTagContextForBeacon(Beacon beacon) {
         TagContextBuilder tagContextBuilder = measuresAndViewsManager.getTagContext();
-        for (String key : registeredBeaconTags) {
-            if (beacon.contains(key)) {
-                tagContextBuilder.putLocal(TagKey.create(key), TagUtils.createTagValue(key, beacon.get(key)));
+        for (BeaconTagField tagField : registeredBeaconTagFields) {
+            BeaconField field = tagField.getField();
+            if (beacon.contains(field)) {
+                tagContextBuilder.putLocal(tagField.getTagKey(), TagUtils.createTagValue(field.getName(), beacon.get(field)));
             }
         }
         return tagContextBuilder;
     }
+
+    /**
+     * The tags of a single beacon, which are created once when they are accessed for the first time and are used for
+     * all measures of the beacon.
+     */
+    private class BeaconTags {
+
+        private final Beacon beacon;
+
+        private TagContext tagContext;
+
+        private BeaconTags(Beacon beacon) {
+            this.beacon = beacon;
+        }
+
+        private TagContext get() {
+            if (tagContext == null) {
+                tagContext = getTagContextForBeacon(beacon).build();
+            }
+            return tagContext;
+        }
+    }
+
+    /**
+     * The metric definitions in the order of their configuration, the evaluation plan of their value expressions and
+     * the index deciding which of them apply to a beacon.
+     */
+    @Getter
+    private static class PlannedDefinitions {
+
+        /**
+         * The configured definitions the plan has been created for.
+         */
+        private final Map<String, BeaconMetricDefinitionSettings> source;
+
+        private final String[] names;
+
+        private final BeaconMetricDefinitionSettings[] definitions;
+
+        private final RawExpression[] expressions;
+
+        private final EvaluationPlan plan;
+
+        private final DefinitionIndex index;
+
+        private PlannedDefinitions(Map<String, BeaconMetricDefinitionSettings> source, boolean compileExpressions) {
+            this.source = source;
+            names = new String[source.size()];
+            definitions = new BeaconMetricDefinitionSettings[source.size()];
+            expressions = new RawExpression[source.size()];
+            int i = 0;
+            for (Map.Entry<String, BeaconMetricDefinitionSettings> definitionEntry : source.entrySet()) {
+                names[i] = definitionEntry.getKey();
+                definitions[i] = definitionEntry.getValue();
+                // the expressions are compiled by the plan, once per distinct expression
+                expressions[i] = new RawExpression(definitions[i].getValueExpression(), false);
+                i++;
+            }
+            plan = new EvaluationPlan(Arrays.asList(expressions), compileExpressions);
+            index = new DefinitionIndex(Arrays.stream(definitions)
+                    .map(BeaconMetricDefinitionSettings::getBeaconRequirements)
+                    .collect(Collectors.toList()), Arrays.stream(expressions)
+                    .map(RawExpression::getBeaconFields)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * A registered beacon tag and the beacon field containing its value.
+     */
+    @Value
+    private static class BeaconTagField {
+
+        BeaconField field;
+
+        TagKey tagKey;
+    }
 }
@@ -0,0 +1,195 @@
+package rocks.inspectit.oce.eum.server.metrics;
+
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconField;
+import rocks.inspectit.oce.eum.server.beacon.BeaconFieldDictionary;
+import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.BeaconRequirement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index deciding which metric definitions apply to a beacon. The fields referenced by the {@link BeaconRequirement}s
+ * and value expressions of all definitions are numbered once. For each beacon, a bitset of the present fields is
+ * created by looking up each of these fields only once. Afterwards, whether a definition's requirements are fulfilled
+ * and whether its value expression is solvable are decided by matching the bitset against the masks of the definition.
+ * <p>
+ * Requirements which do not only depend on the presence of fields, e.g. {@link BeaconRequirement.RequirementType#HAS_INITIATOR},
+ * are still validated by the requirement itself.
+ */
+class DefinitionIndex {
+
+    /**
+     * The fields referenced by the definitions, the index of a field is its bit in the masks.
+     */
+    private final BeaconField[] fields;
+
+    /**
+     * The fields which have to exist for the requirements of each definition to be fulfilled.
+     */
+    private final long[][] requiredFields;
+
+    /**
+     * The fields which must not exist for the requirements of each definition to be fulfilled.
+     */
+    private final long[][] forbiddenFields;
+
+    /**
+     * The fields which have to exist for the value expression of each definition to be solvable.
+     */
+    private final long[][] expressionFields;
+
+    /**
+     * The requirements of each definition which cannot be decided by the presence of fields.
+     */
+    private final BeaconRequirement[][] remainingRequirements;
+
+    /**
+     * Creates the index of the given definitions.
+     *
+     * @param requirements     the requirements of each definition, may contain <code>null</code> elements
+     * @param expressionFields the fields referenced by the value expression of each definition
+     */
+    DefinitionIndex(List<? extends Collection<BeaconRequirement>> requirements, List<? extends Collection<BeaconField>> expressionFields) {
+        int definitions = requirements.size();
+        Map<BeaconField, Integer> fieldBits = new HashMap<>();
+        List<BeaconField> fieldList = new ArrayList<>();
+        List<List<BeaconField>> required = new ArrayList<>();
+        List<List<BeaconField>> forbidden = new ArrayList<>();
+        remainingRequirements = new BeaconRequirement[definitions][];
+
+        for (int i = 0; i < definitions; i++) {
+            List<BeaconField> requiredList = new ArrayList<>();
+            List<BeaconField> forbiddenList = new ArrayList<>();
+            List<BeaconRequirement> remaining = new ArrayList<>();
+            Collection<BeaconRequirement> definitionRequirements = requirements.get(i) == null ? Collections.emptyList() : requirements.get(i);
+            for (BeaconRequirement requirement : definitionRequirements) {
+                if (requirement.getRequirement() == BeaconRequirement.RequirementType.EXISTS && requirement.getField() != null) {
+                    requiredList.add(BeaconFieldDictionary.register(requirement.getField()));
+                } else if (requirement.getRequirement() == BeaconRequirement.RequirementType.NOT_EXISTS && requirement.getField() != null) {
+                    forbiddenList.add(BeaconFieldDictionary.register(requirement.getField()));
+                } else {
+                    remaining.add(requirement);
+                }
+            }
+            required.add(requiredList);
+            forbidden.add(forbiddenList);
+            remainingRequirements[i] = remaining.toArray(new BeaconRequirement[0]);
+
+            requiredList.forEach(field -> addField(field, fieldBits, fieldList));
+            forbiddenList.forEach(field -> addField(field, fieldBits, fieldList));
+            expressionFields.get(i).forEach(field -> addField(field, fieldBits, fieldList));
+        }
+
+        fields = fieldList.toArray(new BeaconField[0]);
+        requiredFields = new long[definitions][];
+        forbiddenFields = new long[definitions][];
+        this.expressionFields = new long[definitions][];
+        for (int i = 0; i < definitions; i++) {
+            requiredFields[i] = createMask(required.get(i), fieldBits);
+            forbiddenFields[i] = createMask(forbidden.get(i), fieldBits);
+            this.expressionFields[i] = createMask(expressionFields.get(i), fieldBits);
+        }
+    }
+
+    private static void addField(BeaconField field, Map<BeaconField, Integer> fieldBits, List<BeaconField> fieldList) {
+        fieldBits.computeIfAbsent(field, key -> {
+            fieldList.add(key);
+            return fieldList.size() - 1;
+        });
+    }
+
+    private long[] createMask(Collection<BeaconField> maskFields, Map<BeaconField, Integer> fieldBits) {
+        long[] mask = new long[words()];
+        for (BeaconField field : maskFields) {
+            int bit = fieldBits.get(field);
+            mask[bit >> 6] |= 1L << bit;
+        }
+        return mask;
+    }
+
+    private int words() {
+        return (fields.length + 63) >> 6;
+    }
+
+    /**
+     * Creates the selection of the definitions applying to the given beacon.
+     *
+     * @param beacon the beacon to select the definitions for
+     *
+     * @return the selection of the definitions
+     */
+    Selection select(Beacon beacon) {
+        long[] presentFields = new long[words()];
+        for (int bit = 0; bit < fields.length; bit++) {
+            if (beacon.contains(fields[bit])) {
+                presentFields[bit >> 6] |= 1L << bit;
+            }
+        }
+        return new Selection(beacon, presentFields);
+    }
+
+    /**
+     * The definitions applying to a single beacon.
+     */
+    class Selection {
+
+        private final Beacon beacon;
+
+        /**
+         * The bitset of the indexed fields which are present in the beacon.
+         */
+        private final long[] presentFields;
+
+        private Selection(Beacon beacon, long[] presentFields) {
+            this.beacon = beacon;
+            this.presentFields = presentFields;
+        }
+
+        /**
+         * Checks whether the beacon fulfills the requirements of the given definition,
+         * see {@link BeaconRequirement#validate(Beacon, Collection)}.
+         *
+         * @param definition the index of the definition
+         *
+         * @return true in case the beacon fulfills the requirements
+         */
+        boolean fulfillsRequirements(int definition) {
+            long[] required = requiredFields[definition];
+            long[] forbidden = forbiddenFields[definition];
+            for (int i = 0; i < presentFields.length; i++) {
+                if ((presentFields[i] & required[i]) != required[i] || (presentFields[i] & forbidden[i]) != 0) {
+                    return false;
+                }
+            }
+            for (BeaconRequirement requirement : remainingRequirements[definition]) {
+                if (!requirement.validate(beacon)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Checks whether the value expression of the given definition is solvable using the beacon, see
+         * {@link rocks.inspectit.oce.eum.server.arithmetic.RawExpression#isSolvable(Beacon)}.
+         *
+         * @param definition the index of the definition
+         *
+         * @return true in case all fields referenced by the value expression are present
+         */
+        boolean isSolvable(int definition) {
+            long[] mask = expressionFields[definition];
+            for (int i = 0; i < presentFields.length; i++) {
+                if ((presentFields[i] & mask[i]) != mask[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -2,8 +2,10 @@ package rocks.inspectit.oce.eum.server.metrics;
 
 import com.google.common.annotations.VisibleForTesting;
 import io.opencensus.stats.*;
+import io.opencensus.tags.TagContext;
 import io.opencensus.tags.TagContextBuilder;
 import io.opencensus.tags.TagKey;
+import io.opencensus.tags.TagValue;
 import io.opencensus.tags.Tags;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -58,6 +60,11 @@ public class MeasuresAndViewsManager {
     @VisibleForTesting
     Set<String> registeredExtraTags = Collections.emptySet();
 
+    /**
+     * The tag keys and values of the {@link #registeredExtraTags}, created once when the tags are registered.
+     */
+    private volatile Map<TagKey, TagValue> registeredExtraTagValues = Collections.emptyMap();
+
     /**
      * Records the measure.
      *
@@ -87,6 +94,15 @@ public class MeasuresAndViewsManager {
                 .getCurrentTagContext());
     }
 
+    /**
+     * Creates a batch, which records multiple measures at once.
+     *
+     * @return a new {@link MeasureBatch} instance
+     */
+    public MeasureBatch newMeasureBatch() {
+        return new MeasureBatch();
+    }
+
     /**
      * Updates the metrics
      */
@@ -178,7 +194,7 @@ public class MeasuresAndViewsManager {
 
         processRegisteredTags(tags);
 
-        return tags.stream().map(TagKey::create).collect(Collectors.toList());
+        return tags.stream().map(TagUtils::createTagKey).collect(Collectors.toList());
     }
 
     /**
@@ -193,9 +209,15 @@ public class MeasuresAndViewsManager {
         RegisteredTagsEvent registeredTagsEvent = new RegisteredTagsEvent(this, registeredTags);
         applicationEventPublisher.publishEvent(registeredTagsEvent);
 
+        Map<String, String> extraTags = configuration.getTags().getExtra();
         registeredExtraTags = registeredTags.stream()
-                .filter(configuration.getTags().getExtra()::containsKey)
+                .filter(extraTags::containsKey)
                 .collect(Collectors.toSet());
+        Map<TagKey, TagValue> extraTagValues = new LinkedHashMap<>();
+        for (String registeredExtraTag : registeredExtraTags) {
+            extraTagValues.put(TagUtils.createTagKey(registeredExtraTag), TagUtils.createTagValue(registeredExtraTag, extraTags.get(registeredExtraTag)));
+        }
+        registeredExtraTagValues = extraTagValues;
     }
 
     /**
@@ -204,11 +226,8 @@ public class MeasuresAndViewsManager {
     public TagContextBuilder getTagContext() {
         TagContextBuilder tagContextBuilder = Tags.getTagger().currentBuilder();
 
-        for (String registeredExtraTag : registeredExtraTags) {
-            tagContextBuilder.putLocal(TagKey.create(registeredExtraTag), TagUtils.createTagValue(registeredExtraTag, configuration
-                    .getTags()
-                    .getExtra()
-                    .get(registeredExtraTag)));
+        for (Map.Entry<TagKey, TagValue> extraTag : registeredExtraTagValues.entrySet()) {
+            tagContextBuilder.putLocal(extraTag.getKey(), extraTag.getValue());
         }
         return tagContextBuilder;
     }
@@ -224,7 +243,7 @@ public class MeasuresAndViewsManager {
         TagContextBuilder tagContextBuilder = getTagContext();
 
         for (Map.Entry<String, String> customTag : customTags.entrySet()) {
-            tagContextBuilder.putLocal(TagKey.create(customTag.getKey()), TagUtils.createTagValue(customTag.getKey(), customTag
+            tagContextBuilder.putLocal(TagUtils.createTagKey(customTag.getKey()), TagUtils.createTagValue(customTag.getKey(), customTag
                     .getValue()));
         }
 
@@ -249,4 +268,68 @@ public class MeasuresAndViewsManager {
         }
     }
 
+    /**
+     * Batch of measures, which are recorded using a single {@link MeasureMap} and the same tags. A batch must not be
+     * used concurrently.
+     */
+    public class MeasureBatch {
+
+        private MeasureMap measureMap;
+
+        /**
+         * The names of the added measures, used for recording them in the time window views.
+         */
+        private final List<String> measureNames = new ArrayList<>();
+
+        /**
+         * The values of the added measures.
+         */
+        private final List<Number> values = new ArrayList<>();
+
+        private MeasureBatch() {
+        }
+
+        /**
+         * Adds the given measure to this batch.
+         *
+         * @param measureName      the name of the measure
+         * @param metricDefinition The configuration of the metric, which is activated
+         * @param value            The value, which is going to be written.
+         */
+        public void put(String measureName, MetricDefinitionSettings metricDefinition, Number value) {
+            if (log.isDebugEnabled()) {
+                log.debug("Recording measure '{}' with value '{}'.", measureName, value);
+            }
+            if (measureMap == null) {
+                measureMap = recorder.newMeasureMap();
+            }
+
+            switch (metricDefinition.getType()) {
+                case LONG:
+                    measureMap.put((Measure.MeasureLong) metrics.get(measureName), value.longValue());
+                    break;
+                case DOUBLE:
+                    measureMap.put((Measure.MeasureDouble) metrics.get(measureName), value.doubleValue());
+                    break;
+            }
+
+            measureNames.add(measureName);
+            values.add(value);
+        }
+
+        /**
+         * Records all added measures using the given tags.
+         *
+         * @param tags the tags of the measures
+         */
+        public void record(TagContext tags) {
+            if (measureMap == null) {
+                return;
+            }
+            measureMap.record(tags);
+            for (int i = 0; i < measureNames.size(); i++) {
+                timeWindowViewManager.recordMeasurement(measureNames.get(i), values.get(i).doubleValue(), tags);
+            }
+        }
+    }
 }
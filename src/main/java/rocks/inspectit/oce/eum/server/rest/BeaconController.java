@@ -1,75 +1,225 @@
 package rocks.inspectit.oce.eum.server.rest;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
-import rocks.inspectit.oce.eum.server.beacon.processor.CompositeBeaconProcessor;
-import rocks.inspectit.oce.eum.server.exporters.beacon.BeaconHttpExporter;
-import rocks.inspectit.oce.eum.server.metrics.BeaconMetricManager;
+import rocks.inspectit.oce.eum.server.beacon.FormUrlEncodedBeaconParser;
+import rocks.inspectit.oce.eum.server.beacon.ingest.AsyncBeaconIngestQueue;
+import rocks.inspectit.oce.eum.server.beacon.ingest.BeaconFieldProjection;
+import rocks.inspectit.oce.eum.server.beacon.ingest.BeaconIngestService;
 import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
+import rocks.inspectit.oce.eum.server.utils.ClientContext;
 
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @RestController()
 @RequestMapping("/")
 @Slf4j
 public class BeaconController {
 
-    @Autowired
-    private BeaconMetricManager beaconMetricManager;
+    /**
+     * Media type of newline delimited JSON, where each line contains a single beacon.
+     */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * Type of a single beacon contained in a batch request.
+     */
+    private static final TypeReference<Map<String, String>> BEACON_TYPE = new TypeReference<>() {
+    };
 
     @Autowired
-    private CompositeBeaconProcessor beaconProcessor;
+    private BeaconIngestService ingestService;
+
+    @Autowired(required = false)
+    private AsyncBeaconIngestQueue ingestQueue;
+
+    @Autowired(required = false)
+    private BeaconFieldProjection fieldProjection;
 
     @Autowired
     private SelfMonitoringMetricManager selfMonitoringService;
 
-    @Autowired(required = false)
-    private BeaconHttpExporter beaconHttpExporter;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @ExceptionHandler({Exception.class})
-    public ResponseEntity<String> handleException(Exception exception) {
+    public ResponseEntity<String> handleException(Exception exception) throws RequestBodyTooLargeException {
         selfMonitoringService.record("beacons_received", 1, Collections.singletonMap("is_error", "true"));
+        if (exception instanceof RequestBodyTooLargeException) {
+            // propagated as-is, it is answered by the DecompressingRequestFilter
+            throw (RequestBodyTooLargeException) exception;
+        }
         log.error("Error while receiving beacon", exception);
+        if (exception instanceof ResponseStatusException) {
+            return new ResponseEntity<>(((ResponseStatusException) exception).getReason(), ((ResponseStatusException) exception).getStatusCode());
+        }
         return new ResponseEntity<>("There was an error", HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Receives a single beacon sent as form data. The request body is parsed directly into a {@link Beacon}, decoding
+     * its values lazily. In case the body has already been consumed, the request parameters are used instead.
+     *
+     * @param request the request containing the beacon
+     *
+     * @return the response used as result for the request
+     */
     @CrossOrigin
-    @PostMapping("beacon")
-    public ResponseEntity beaconPost(@RequestBody MultiValueMap<String, String> formData) {
-        return processBeacon(formData);
+    @PostMapping(value = "beacon", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity beaconPost(HttpServletRequest request) throws IOException {
+        Charset charset = request.getCharacterEncoding() != null ? Charset.forName(request.getCharacterEncoding()) : StandardCharsets.UTF_8;
+
+        Beacon beacon;
+        try (InputStream body = request.getInputStream()) {
+            beacon = FormUrlEncodedBeaconParser.parse(body, request.getContentLengthLong(), charset);
+        }
+
+        if (beacon.toMap().isEmpty() && !request.getParameterMap().isEmpty()) {
+            Map<String, String> parameters = new HashMap<>();
+            request.getParameterMap().forEach((key, values) -> parameters.put(key, values.length > 0 ? values[0] : null));
+            beacon = Beacon.of(parameters);
+        }
+
+        return processBeacon(beacon);
     }
 
     @CrossOrigin
     @GetMapping("beacon")
     public ResponseEntity beaconGet(@RequestParam MultiValueMap<String, String> requestParams) {
-        return processBeacon(requestParams);
+        return processBeacon(Beacon.of(requestParams.toSingleValueMap()));
+    }
+
+    /**
+     * Receives multiple beacons with a single request. The body is either a JSON array or newline delimited JSON (NDJSON),
+     * where each element represents the form-data of a single beacon. The whole batch is parsed before any of its
+     * beacons is ingested, thus, a malformed batch is rejected as a whole and can be resent without duplicating beacons.
+     * <p>
+     * In case the asynchronous ingestion is enabled, the beacons are enqueued in their order until the queue is full.
+     * The response contains the number of accepted beacons and the number of the remaining, rejected beacons. In case
+     * beacons have been rejected, the request is answered with status 429 (too many requests) and only the rejected
+     * beacons, i.e. the last ones of the batch, have to be resent.
+     *
+     * @param request the request containing the beacons
+     *
+     * @return the response used as result for the request
+     */
+    @CrossOrigin
+    @PostMapping(value = "beacons", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON_VALUE})
+    public ResponseEntity beaconsPost(HttpServletRequest request) throws IOException {
+        List<Beacon> beacons = new ArrayList<>();
+        try (InputStream body = request.getInputStream(); MappingIterator<Map<String, String>> elements = objectMapper.readerFor(BEACON_TYPE)
+                .readValues(body)) {
+            while (elements.hasNextValue()) {
+                beacons.add(project(Beacon.of(elements.nextValue())));
+            }
+        }
+
+        if (ingestQueue == null) {
+            for (Beacon beacon : beacons) {
+                try {
+                    ingestService.ingest(beacon);
+                } catch (Exception e) {
+                    // a single broken beacon should not prevent the remaining beacons of the batch from being processed
+                    ingestService.recordReceived(false);
+                    log.error("Error while processing beacon of batch", e);
+                }
+            }
+            return ResponseEntity.ok().build();
+        }
+
+        ClientContext clientContext = ClientContext.current();
+        if (clientContext != null) {
+            // the context is detached once, instead of once per beacon of the batch
+            clientContext = clientContext.detach();
+        }
+        int acceptedBeacons = 0;
+        while (acceptedBeacons < beacons.size() && ingestQueue.offer(beacons.get(acceptedBeacons), clientContext)) {
+            acceptedBeacons++;
+        }
+
+        BatchResult result = new BatchResult(acceptedBeacons, beacons.size() - acceptedBeacons);
+        if (result.getRejected() == 0) {
+            return ResponseEntity.accepted().body(result);
+        }
+        // the rejected beacon has already been counted as dropped by the queue
+        ingestQueue.drop(result.getRejected() - 1);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ingestQueue.getRetryAfterSeconds()))
+                .body(result);
     }
 
     /**
-     * Processes the incoming beacon data.
+     * Processes the incoming beacon. In case the asynchronous ingestion is enabled, the beacon is only enqueued.
      *
-     * @param beaconData the received EUM data
+     * @param receivedBeacon the received beacon
      *
      * @return the response used as result for the request
      */
-    private ResponseEntity<Object> processBeacon(MultiValueMap<String, String> beaconData) {
-        Beacon beacon = beaconProcessor.process(Beacon.of(beaconData.toSingleValueMap()));
+    private ResponseEntity<Object> processBeacon(Beacon receivedBeacon) {
+        Beacon beacon = project(receivedBeacon);
+        if (ingestQueue == null) {
+            ingestService.ingest(beacon);
+            return ResponseEntity.ok().build();
+        }
 
-        // export beacon
-        if (beaconHttpExporter != null) {
-            beaconHttpExporter.export(beacon);
+        if (ingestQueue.offer(beacon, ClientContext.current())) {
+            return ResponseEntity.accepted().build();
+        } else {
+            return tooManyRequests();
         }
+    }
+
+    /**
+     * Drops the unused fields of the given beacon, in case the field projection is enabled.
+     */
+    private Beacon project(Beacon beacon) {
+        return fieldProjection == null ? beacon : fieldProjection.apply(beacon);
+    }
 
-        // record metrics based on beacon data
-        boolean successful = beaconMetricManager.processBeacon(beacon);
+    /**
+     * @return the response used in case received beacons have been dropped because the ingest queue is full
+     */
+    private ResponseEntity<Object> tooManyRequests() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ingestQueue.getRetryAfterSeconds()))
+                .build();
+    }
+
+    /**
+     * The result of the asynchronous ingestion of a batch.
+     */
+    @Value
+    public static class BatchResult {
 
-        selfMonitoringService.record("beacons_received", 1, Collections.singletonMap("is_error", String.valueOf(!successful)));
+        /**
+         * The number of beacons which have been enqueued, these are the first beacons of the batch.
+         */
+        int accepted;
 
-        return ResponseEntity.ok().build();
+        /**
+         * The number of beacons which have been rejected, these are the last beacons of the batch.
+         */
+        int rejected;
     }
-}
\ No newline at end of file
+}
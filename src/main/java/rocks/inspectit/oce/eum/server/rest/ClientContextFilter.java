@@ -0,0 +1,32 @@
+package rocks.inspectit.oce.eum.server.rest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import rocks.inspectit.oce.eum.server.utils.ClientAddressResolver;
+import rocks.inspectit.oce.eum.server.utils.ClientContext;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Filter creating the {@link ClientContext} of a request and binding it to the request thread while the request is
+ * handled. Thus, the client information, e.g. the client's address, is only resolved once per request.
+ */
+@Component
+public class ClientContextFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private ClientAddressResolver clientAddressResolver;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        ClientContext clientContext = ClientContext.of(request, clientAddressResolver::resolve);
+        try (ClientContext.Scope scope = ClientContext.bind(clientContext)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
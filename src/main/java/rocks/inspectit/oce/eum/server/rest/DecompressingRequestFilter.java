@@ -0,0 +1,301 @@
+package rocks.inspectit.oce.eum.server.rest;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.CountingInputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.brotli.dec.BrotliInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.ingestion.DecompressionSettings;
+import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Filter decompressing request bodies which are compressed using <code>gzip</code>, <code>deflate</code> or
+ * <code>br</code>, as indicated by the request's <code>Content-Encoding</code> header. The body is decompressed while
+ * it is read, thus, it is never kept in memory as a whole.
+ * <p>
+ * In order to protect the server against decompression bombs, the compressed size, the decompressed size and the
+ * compression ratio of a request body are limited. Requests exceeding any of the limits are rejected with status 413.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(value = "inspectit-eum-server.ingestion.decompression.enabled", havingValue = "true")
+public class DecompressingRequestFilter extends OncePerRequestFilter {
+
+    /**
+     * The supported content encodings.
+     */
+    private static final Set<String> SUPPORTED_ENCODINGS = ImmutableSet.of("gzip", "x-gzip", "deflate", "br");
+
+    /**
+     * The compression ratio is only checked once the decompressed body exceeds this size, because small bodies cannot
+     * harm the server, even if they are highly compressed.
+     */
+    private static final long RATIO_CHECK_THRESHOLD = 1024 * 1024;
+
+    @Autowired
+    private EumServerConfiguration configuration;
+
+    @Autowired
+    private SelfMonitoringMetricManager selfMonitoring;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        return encoding == null || encoding.isBlank() || "identity".equalsIgnoreCase(encoding.trim());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING).trim().toLowerCase(Locale.ROOT);
+        if (!SUPPORTED_ENCODINGS.contains(encoding)) {
+            response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), "Unsupported content encoding: " + encoding);
+            return;
+        }
+
+        DecompressionSettings settings = configuration.getIngestion().getDecompression();
+        if (request.getContentLengthLong() > settings.getMaxCompressedSize().toBytes()) {
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), "The compressed request body is too large.");
+            return;
+        }
+
+        DecompressingRequestWrapper wrappedRequest = new DecompressingRequestWrapper(request, encoding, settings);
+        try {
+            filterChain.doFilter(wrappedRequest, response);
+        } catch (RequestBodyTooLargeException e) {
+            if (response.isCommitted()) {
+                throw e;
+            }
+            response.sendError(HttpStatus.PAYLOAD_TOO_LARGE.value(), e.getMessage());
+        } finally {
+            DecompressingInputStream body = wrappedRequest.body;
+            if (body != null) {
+                Map<String, String> tags = Collections.singletonMap("encoding", encoding);
+                selfMonitoring.record("request_compressed_bytes", body.compressedStream.getCount(), tags);
+                selfMonitoring.record("request_decompressed_bytes", body.decompressedBytes, tags);
+            }
+        }
+    }
+
+    /**
+     * Creates the stream decompressing the given stream using the specified encoding.
+     */
+    @VisibleForTesting
+    static InputStream createDecompressingStream(InputStream compressedStream, String encoding) throws IOException {
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(compressedStream);
+            case "deflate":
+                return new InflaterInputStream(compressedStream);
+            case "br":
+                return new BrotliInputStream(compressedStream);
+            default:
+                throw new IllegalArgumentException("Unsupported content encoding: " + encoding);
+        }
+    }
+
+    /**
+     * Request wrapper providing the decompressed request body. The headers describing the compressed body are hidden.
+     */
+    private static class DecompressingRequestWrapper extends HttpServletRequestWrapper {
+
+        /**
+         * Headers which are not valid for the decompressed body.
+         */
+        private static final Set<String> HIDDEN_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+        static {
+            HIDDEN_HEADERS.add(HttpHeaders.CONTENT_ENCODING);
+            HIDDEN_HEADERS.add(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        private final String encoding;
+
+        private final DecompressionSettings settings;
+
+        /**
+         * The decompressed body, created on its first access.
+         */
+        private DecompressingInputStream body;
+
+        private BufferedReader reader;
+
+        DecompressingRequestWrapper(HttpServletRequest request, String encoding, DecompressionSettings settings) {
+            super(request);
+            this.encoding = encoding;
+            this.settings = settings;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (body == null) {
+                body = new DecompressingInputStream(super.getInputStream(), encoding, settings);
+            }
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            if (reader == null) {
+                Charset charset = getCharacterEncoding() != null ? Charset.forName(getCharacterEncoding()) : StandardCharsets.ISO_8859_1;
+                reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+            }
+            return reader;
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return HIDDEN_HEADERS.contains(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return HIDDEN_HEADERS.contains(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            List<String> headerNames = Collections.list(super.getHeaderNames());
+            headerNames.removeIf(HIDDEN_HEADERS::contains);
+            return Collections.enumeration(headerNames);
+        }
+    }
+
+    /**
+     * Stream decompressing the request body while enforcing the configured limits.
+     */
+    @VisibleForTesting
+    static class DecompressingInputStream extends ServletInputStream {
+
+        /**
+         * The stream counting the read compressed bytes.
+         */
+        private final CountingInputStream compressedStream;
+
+        /**
+         * The stream providing the decompressed data, created on the first read.
+         */
+        private InputStream decompressedStream;
+
+        private final String encoding;
+
+        private final long maxCompressedSize;
+
+        private final long maxDecompressedSize;
+
+        private final int maxCompressionRatio;
+
+        /**
+         * The number of decompressed bytes which have been read.
+         */
+        private long decompressedBytes;
+
+        private boolean finished;
+
+        DecompressingInputStream(InputStream compressedStream, String encoding, DecompressionSettings settings) {
+            this.compressedStream = new CountingInputStream(compressedStream);
+            this.encoding = encoding;
+            maxCompressedSize = settings.getMaxCompressedSize().toBytes();
+            maxDecompressedSize = settings.getMaxDecompressedSize().toBytes();
+            maxCompressionRatio = settings.getMaxCompressionRatio();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] buffer = new byte[1];
+            int read = read(buffer, 0, 1);
+            return read == -1 ? -1 : buffer[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (finished) {
+                return -1;
+            }
+            if (decompressedStream == null) {
+                decompressedStream = createDecompressingStream(compressedStream, encoding);
+            }
+
+            int read = decompressedStream.read(buffer, offset, length);
+            if (read == -1) {
+                finished = true;
+                return -1;
+            }
+
+            decompressedBytes += read;
+            checkLimits();
+            return read;
+        }
+
+        /**
+         * Throws an exception in case the data read so far exceeds one of the limits.
+         */
+        private void checkLimits() throws RequestBodyTooLargeException {
+            long compressedBytes = compressedStream.getCount();
+            if (compressedBytes > maxCompressedSize) {
+                throw new RequestBodyTooLargeException("The compressed request body is too large.");
+            }
+            if (decompressedBytes > maxDecompressedSize) {
+                throw new RequestBodyTooLargeException("The decompressed request body is too large.");
+            }
+            if (decompressedBytes > RATIO_CHECK_THRESHOLD && decompressedBytes > compressedBytes * maxCompressionRatio) {
+                throw new RequestBodyTooLargeException("The compression ratio of the request body is too high.");
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Asynchronous reading of compressed request bodies is not supported.");
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (decompressedStream != null) {
+                decompressedStream.close();
+            } else {
+                compressedStream.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package rocks.inspectit.oce.eum.server.rest;
+
+import java.io.IOException;
+
+/**
+ * Thrown while reading a request body which exceeds one of the limits of the {@link DecompressingRequestFilter}. Being
+ * an {@link IOException}, it passes through the parsers reading the body and is mapped to status 413 by the filter.
+ */
+public class RequestBodyTooLargeException extends IOException {
+
+    public RequestBodyTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -10,16 +10,23 @@ import io.opentelemetry.sdk.trace.export.SpanExporter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
 import rocks.inspectit.oce.eum.server.tracing.opentelemtry.OpenTelemetryProtoConverter;
 
-import jakarta.validation.constraints.NotBlank;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -28,6 +35,16 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class TraceController {
 
+    /**
+     * Media types of binary protobuf data.
+     */
+    private static final List<MediaType> PROTOBUF_MEDIA_TYPES = Arrays.asList(MediaType.parseMediaType("application/x-protobuf"), MediaType.parseMediaType("application/protobuf"));
+
+    /**
+     * Parser for the JSON representation of the trace requests.
+     */
+    private static final JsonFormat.Parser JSON_PARSER = JsonFormat.parser();
+
     @Autowired
     private OpenTelemetryProtoConverter converter;
 
@@ -37,9 +54,18 @@ public class TraceController {
     @Autowired
     private SelfMonitoringMetricManager selfMonitoring;
 
+    /**
+     * Receives an OTLP trace export request. Requests of type <code>application/x-protobuf</code> are parsed directly
+     * from the request's stream, any other request is expected to contain the JSON representation which is streamed
+     * as well.
+     *
+     * @param httpRequest the request containing the spans
+     *
+     * @return the response used as result for the request
+     */
     @CrossOrigin
     @PostMapping("spans")
-    public ResponseEntity<Void> spans(@RequestBody @NotBlank String data) {
+    public ResponseEntity<Void> spans(HttpServletRequest httpRequest) throws RequestBodyTooLargeException {
 
         boolean isError = false;
         Stopwatch stopwatch = Stopwatch.createStarted();
@@ -51,10 +77,8 @@ public class TraceController {
                 throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "No SpanExporter to process the request exists in the EUM server. To fix this, update the EUM server's configuration at 'exporters.tracing' to add a span exporter, e.g. for OTLP.");
             }
 
-            // use protobuf to convert request string to the open-telemetry proto impl
-            ExportTraceServiceRequest.Builder requestBuilder = ExportTraceServiceRequest.newBuilder();
-            JsonFormat.parser().merge(data, requestBuilder);
-            ExportTraceServiceRequest request = requestBuilder.build();
+            // use protobuf to convert the request body to the open-telemetry proto impl
+            ExportTraceServiceRequest request = parseRequest(httpRequest);
 
             // then convert using our converter
             Collection<SpanData> spans = converter.convert(request);
@@ -71,13 +95,20 @@ public class TraceController {
             isError = true;
             // simply rethrow since it already is a fitting ResponseStatusException
             throw e;
+        } catch (RequestBodyTooLargeException e) {
+            isError = true;
+            // propagated as-is, it is answered by the DecompressingRequestFilter
+            throw e;
         } catch (InvalidProtocolBufferException e) {
             isError = true;
+            if (e.getCause() instanceof RequestBodyTooLargeException) {
+                throw (RequestBodyTooLargeException) e.getCause();
+            }
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "OpenTelemetry data corrupted.", e);
         } catch (Exception e) {
             isError = true;
             // catch any exception in order to log
-            log.warn("Exception thrown processing OpenTelemetry trace service request with post data=[{}].", data, e);
+            log.warn("Exception thrown processing OpenTelemetry trace service request.", e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, null, e);
         } finally {
             stopwatch.stop();
@@ -89,4 +120,44 @@ public class TraceController {
         }
     }
 
+    /**
+     * Parses the body of the given request to an {@link ExportTraceServiceRequest}, without copying it into memory first.
+     *
+     * @param httpRequest the request containing the spans
+     *
+     * @return the parsed {@link ExportTraceServiceRequest}
+     */
+    private ExportTraceServiceRequest parseRequest(HttpServletRequest httpRequest) throws IOException {
+        PushbackInputStream body = new PushbackInputStream(httpRequest.getInputStream(), 1);
+        int firstByte = body.read();
+        if (firstByte == -1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Request body is missing.");
+        }
+        body.unread(firstByte);
+
+        if (isProtobuf(httpRequest.getContentType())) {
+            return ExportTraceServiceRequest.parseFrom(body);
+        }
+
+        Charset charset = httpRequest.getCharacterEncoding() != null ? Charset.forName(httpRequest.getCharacterEncoding()) : StandardCharsets.UTF_8;
+        ExportTraceServiceRequest.Builder requestBuilder = ExportTraceServiceRequest.newBuilder();
+        JSON_PARSER.merge(new InputStreamReader(body, charset), requestBuilder);
+        return requestBuilder.build();
+    }
+
+    /**
+     * @return whether the given content type represents binary protobuf data
+     */
+    private boolean isProtobuf(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            return PROTOBUF_MEDIA_TYPES.stream().anyMatch(mediaType::isCompatibleWith);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
 }
@@ -15,9 +15,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
-import rocks.inspectit.oce.eum.server.utils.RequestUtils;
+import rocks.inspectit.oce.eum.server.utils.ClientContext;
 
-import jakarta.servlet.http.HttpServletRequest;
 import java.util.*;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -29,8 +28,11 @@ public class OpenTelemetryProtoConverter {
     @Autowired
     private EumServerConfiguration configuration;
 
+    /**
+     * Supplier for accessing the client context of the current request.
+     */
     @VisibleForTesting
-    Supplier<HttpServletRequest> requestSupplier = RequestUtils::getCurrentRequest;
+    Supplier<ClientContext> clientContextSupplier = ClientContext::current;
 
     /**
      * Converts open-telemetry proto data to the open-telemetry SDK span data.
@@ -75,16 +77,17 @@ public class OpenTelemetryProtoConverter {
     }
 
     /**
-     * @return Returns the current {@link HttpServletRequest} or <code>null</code> in case no request exists.
+     * @return Returns the attributes added to all spans of the current request, e.g. the client's address. An empty
+     * map in case no request exists.
      */
     @VisibleForTesting
     Map<String, String> getCustomSpanAttributes() {
-        HttpServletRequest request = requestSupplier.get();
-        if (request == null) {
+        ClientContext clientContext = clientContextSupplier.get();
+        if (clientContext == null) {
             return Collections.emptyMap();
         }
 
-        String clientIp = request.getRemoteAddr();
+        String clientIp = clientContext.getClientAddress();
 
         if (configuration.getExporters() != null && configuration.getExporters()
                 .getTracing() != null && configuration.getExporters().getTracing().isMaskSpanIpAddresses()) {
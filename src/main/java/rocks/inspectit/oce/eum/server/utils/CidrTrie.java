@@ -0,0 +1,289 @@
+package rocks.inspectit.oce.eum.server.utils;
+
+import com.google.common.net.InetAddresses;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable binary radix trie mapping IPv4 and IPv6 networks to values. Networks are given either in CIDR notation
+ * (e.g. <code>10.0.0.0/16</code>) or as single addresses, which are handled as networks with the full prefix length.
+ * Lookups return the value of the most specific network containing the given address (longest prefix match) and
+ * require a single step per address bit, independent of the number of contained networks.
+ *
+ * @param <V> the type of the mapped values
+ */
+public final class CidrTrie<V> {
+
+    private static final int IPV4_BITS = 32;
+
+    private static final int IPV6_BITS = 128;
+
+    /**
+     * Index of the root node, which is never referenced as a child. Therefore, a child index of <code>0</code> marks a
+     * missing child.
+     */
+    private static final int ROOT = 0;
+
+    private final Nodes ipv4Nodes;
+
+    private final Nodes ipv6Nodes;
+
+    private final int size;
+
+    private CidrTrie(Builder<V> builder) {
+        ipv4Nodes = new Nodes(builder.ipv4Root);
+        ipv6Nodes = new Nodes(builder.ipv6Root);
+        size = builder.size;
+    }
+
+    /**
+     * @return a new builder for creating a trie
+     */
+    public static <V> Builder<V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * @return the number of networks contained in this trie
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return <code>true</code> if this trie does not contain any networks
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value of the most specific network containing the given IP.
+     *
+     * @param ip the IP address literal
+     *
+     * @return the value of the matching network, <code>null</code> if no network matches or the given string is not
+     * an IP address literal
+     */
+    public V findLongestMatch(String ip) {
+        if (isEmpty() || ip == null || !InetAddresses.isInetAddress(ip)) {
+            return null;
+        }
+        return findLongestMatch(InetAddresses.forString(ip));
+    }
+
+    /**
+     * Returns the value of the most specific network containing the given address.
+     *
+     * @param address the address
+     *
+     * @return the value of the matching network, <code>null</code> if no network matches
+     */
+    @SuppressWarnings("unchecked")
+    public V findLongestMatch(InetAddress address) {
+        byte[] bytes = address.getAddress();
+        Nodes nodes = address instanceof Inet4Address ? ipv4Nodes : ipv6Nodes;
+        int[] children = nodes.children;
+        Object[] values = nodes.values;
+
+        int node = ROOT;
+        Object match = values[ROOT];
+        int bits = bytes.length * Byte.SIZE;
+        for (int i = 0; i < bits; i++) {
+            node = children[2 * node + bit(bytes, i)];
+            if (node == ROOT) {
+                break;
+            }
+            if (values[node] != null) {
+                match = values[node];
+            }
+        }
+        return (V) match;
+    }
+
+    private static int bit(byte[] bytes, int index) {
+        return (bytes[index >>> 3] >>> (7 - (index & 7))) & 1;
+    }
+
+    /**
+     * The nodes of a trie, stored in arrays to keep lookups cache friendly. The children of the node with the index
+     * <code>i</code> are stored at <code>2 * i</code> (bit <code>0</code>) and <code>2 * i + 1</code> (bit
+     * <code>1</code>).
+     */
+    private static class Nodes {
+
+        private final int[] children;
+
+        private final Object[] values;
+
+        private Nodes(Builder.Node root) {
+            List<Builder.Node> nodes = new ArrayList<>();
+            nodes.add(root);
+            // breadth-first, so that the indices are assigned in the order the nodes are added
+            for (int i = 0; i < nodes.size(); i++) {
+                for (Builder.Node child : nodes.get(i).children) {
+                    if (child != null) {
+                        nodes.add(child);
+                    }
+                }
+            }
+
+            children = new int[nodes.size() * 2];
+            values = new Object[nodes.size()];
+            int nextIndex = 1;
+            for (int i = 0; i < nodes.size(); i++) {
+                Builder.Node node = nodes.get(i);
+                values[i] = node.value;
+                for (int bit = 0; bit < 2; bit++) {
+                    if (node.children[bit] != null) {
+                        children[2 * i + bit] = nextIndex++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Builder for {@link CidrTrie}. Besides collecting the networks, it detects networks overlapping with networks
+     * which are mapped to a different value.
+     *
+     * @param <V> the type of the mapped values
+     */
+    public static class Builder<V> {
+
+        private final Node ipv4Root = new Node();
+
+        private final Node ipv6Root = new Node();
+
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds the given network to the trie. In case the same network is added multiple times, the first value is
+         * kept.
+         *
+         * @param network the network in CIDR notation or a single IP address
+         * @param value   the value of the network
+         *
+         * @return a value different from the given one, which is mapped to a network overlapping the given network,
+         * or <code>null</code> if there is no such value
+         *
+         * @throws IllegalArgumentException if the given network is not a valid IP address or CIDR
+         */
+        @SuppressWarnings("unchecked")
+        public V put(String network, V value) {
+            if (value == null) {
+                throw new IllegalArgumentException("The value of network '" + network + "' must not be null.");
+            }
+            int separator = network.indexOf('/');
+            String addressString = separator < 0 ? network : network.substring(0, separator);
+            if (!InetAddresses.isInetAddress(addressString)) {
+                throw new IllegalArgumentException("'" + network + "' is not a valid IP address or CIDR.");
+            }
+            InetAddress address = InetAddresses.forString(addressString);
+            int maxPrefixLength = address instanceof Inet4Address ? IPV4_BITS : IPV6_BITS;
+            int prefixLength = separator < 0 ? maxPrefixLength : parsePrefixLength(network, separator + 1, maxPrefixLength);
+
+            byte[] bytes = address.getAddress();
+            Node[] path = new Node[prefixLength + 1];
+            path[0] = address instanceof Inet4Address ? ipv4Root : ipv6Root;
+            for (int i = 0; i < prefixLength; i++) {
+                path[i + 1] = path[i].getOrCreateChild(bit(bytes, i));
+            }
+
+            // networks containing the given network
+            Object conflict = null;
+            for (int i = 0; i < prefixLength && conflict == null; i++) {
+                if (path[i].value != null && !path[i].value.equals(value)) {
+                    conflict = path[i].value;
+                }
+            }
+            // networks contained in the given network, including the network itself
+            Node node = path[prefixLength];
+            if (conflict == null && node.subtreeValue != null && (node.mixedSubtree || !node.subtreeValue.equals(value))) {
+                conflict = node.subtreeValue.equals(value) ? node.findValueOtherThan(value) : node.subtreeValue;
+            }
+
+            for (Node pathNode : path) {
+                pathNode.addSubtreeValue(value);
+            }
+            if (node.value == null) {
+                node.value = value;
+                size++;
+            }
+            return (V) conflict;
+        }
+
+        /**
+         * @return the immutable trie containing the added networks
+         */
+        public CidrTrie<V> build() {
+            return new CidrTrie<>(this);
+        }
+
+        private static int parsePrefixLength(String network, int start, int maxPrefixLength) {
+            try {
+                int prefixLength = Integer.parseInt(network.substring(start));
+                if (prefixLength >= 0 && prefixLength <= maxPrefixLength) {
+                    return prefixLength;
+                }
+            } catch (NumberFormatException e) {
+                // handled below
+            }
+            throw new IllegalArgumentException("'" + network + "' does not have a valid prefix length.");
+        }
+
+        private static class Node {
+
+            private final Node[] children = new Node[2];
+
+            /**
+             * The value of the network represented by this node, <code>null</code> if this node only is an
+             * intermediate node.
+             */
+            private Object value;
+
+            /**
+             * Any value of the networks in the subtree of this node, including this node itself.
+             */
+            private Object subtreeValue;
+
+            /**
+             * Whether the networks in the subtree of this node are mapped to different values.
+             */
+            private boolean mixedSubtree;
+
+            private Node getOrCreateChild(int bit) {
+                if (children[bit] == null) {
+                    children[bit] = new Node();
+                }
+                return children[bit];
+            }
+
+            private void addSubtreeValue(Object newValue) {
+                if (subtreeValue == null) {
+                    subtreeValue = newValue;
+                } else if (!subtreeValue.equals(newValue)) {
+                    mixedSubtree = true;
+                }
+            }
+
+            private Object findValueOtherThan(Object other) {
+                if (value != null && !value.equals(other)) {
+                    return value;
+                }
+                for (Node child : children) {
+                    if (child != null && child.subtreeValue != null && (child.mixedSubtree || !child.subtreeValue.equals(other))) {
+                        return child.findValueOtherThan(other);
+                    }
+                }
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package rocks.inspectit.oce.eum.server.utils;
+
+import com.google.common.net.InetAddresses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.client.ClientAddressSettings;
+
+import jakarta.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * Resolves the address of the client which has sent a request. In case the request has been sent by a trusted proxy,
+ * the addresses of its forwarded-header (e.g. <code>X-Forwarded-For: client, proxy1, proxy2</code>) are evaluated from
+ * right to left. The first address which does not belong to a trusted proxy is the client's address. Addresses in front
+ * of it are ignored, as they may have been spoofed by the client.
+ */
+@Component
+public class ClientAddressResolver {
+
+    @Autowired
+    private EumServerConfiguration configuration;
+
+    /**
+     * The networks of the trusted proxies.
+     */
+    private CidrTrie<Boolean> trustedProxies;
+
+    private String forwardedHeader;
+
+    @PostConstruct
+    public void initialize() {
+        CidrTrie.Builder<Boolean> builder = CidrTrie.builder();
+        ClientAddressSettings settings = configuration.getClientAddress();
+        if (settings != null) {
+            settings.getTrustedProxies().forEach(proxy -> builder.put(proxy, true));
+            forwardedHeader = settings.getForwardedHeader();
+        }
+        trustedProxies = builder.build();
+    }
+
+    /**
+     * Resolves the address of the client of the given context.
+     *
+     * @param clientContext the client information of the request
+     *
+     * @return the address of the client, the remote address in case it does not belong to a trusted proxy
+     */
+    public String resolve(ClientContext clientContext) {
+        String address = clientContext.getRemoteAddress();
+        if (!isTrustedProxy(address)) {
+            return address;
+        }
+
+        List<String> values = clientContext.getHeaderValues(forwardedHeader);
+        for (int i = values.size() - 1; i >= 0; i--) {
+            String value = values.get(i);
+            int end = value.length();
+            while (end >= 0) {
+                int start = value.lastIndexOf(',', end - 1);
+                String forwardedAddress = value.substring(start + 1, end).trim();
+                if (!InetAddresses.isInetAddress(forwardedAddress)) {
+                    // e.g. "unknown" or an obfuscated identifier, thus, the last known address is used
+                    return address;
+                }
+                address = forwardedAddress;
+                if (!isTrustedProxy(address)) {
+                    return address;
+                }
+                end = start;
+            }
+        }
+        // all addresses belong to trusted proxies, thus, the first one is the client
+        return address;
+    }
+
+    private boolean isTrustedProxy(String address) {
+        return !trustedProxies.isEmpty() && trustedProxies.findLongestMatch(address) != null;
+    }
+}
@@ -0,0 +1,211 @@
+package rocks.inspectit.oce.eum.server.utils;
+
+import lombok.Getter;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The client information of a request, e.g. its headers and remote address. A context is created once per request by
+ * the {@link rocks.inspectit.oce.eum.server.rest.ClientContextFilter} and is bound to the request thread, so it can be
+ * accessed using {@link #current()}.
+ * <p>
+ * The headers are read from the request on demand and are only copied, if all of them are accessed or the context is
+ * detached from the request using {@link #detach()}. A detached context can be used after the request has been
+ * completed, thus, it allows processing beacons outside the request thread. The address of the client is resolved
+ * once, when it is accessed for the first time.
+ */
+public class ClientContext {
+
+    /**
+     * The context bound to the current thread.
+     */
+    private static final ThreadLocal<ClientContext> CURRENT_CONTEXT = new ThreadLocal<>();
+
+    /**
+     * The remote address of the request, i.e. the address of the client or the last proxy.
+     */
+    @Getter
+    private final String remoteAddress;
+
+    /**
+     * The request whose headers are accessed, <code>null</code> if the context is detached.
+     */
+    private final HttpServletRequest request;
+
+    /**
+     * Function resolving the address of the client.
+     */
+    private final Function<ClientContext, String> clientAddressResolver;
+
+    /**
+     * The copied request headers, <code>null</code> as long as they have not been copied.
+     */
+    private volatile Map<String, List<String>> headers;
+
+    /**
+     * The resolved client address, <code>null</code> as long as it has not been resolved.
+     */
+    private volatile String clientAddress;
+
+    private ClientContext(String remoteAddress, HttpServletRequest request, Map<String, List<String>> headers, Function<ClientContext, String> clientAddressResolver) {
+        this.remoteAddress = remoteAddress;
+        this.request = request;
+        this.headers = headers;
+        this.clientAddressResolver = clientAddressResolver;
+    }
+
+    /**
+     * Creates a context of the given request, whose client address is the remote address of the request.
+     *
+     * @param request the request to use
+     *
+     * @return a new {@link ClientContext} instance
+     */
+    public static ClientContext of(HttpServletRequest request) {
+        return of(request, ClientContext::getRemoteAddress);
+    }
+
+    /**
+     * Creates a context of the given request.
+     *
+     * @param request               the request to use
+     * @param clientAddressResolver the function resolving the address of the client
+     *
+     * @return a new {@link ClientContext} instance
+     */
+    public static ClientContext of(HttpServletRequest request, Function<ClientContext, String> clientAddressResolver) {
+        return new ClientContext(request.getRemoteAddr(), request, null, clientAddressResolver);
+    }
+
+    /**
+     * Returns the context bound to the current thread.
+     *
+     * @return the current {@link ClientContext} or <code>null</code> in case no context is bound
+     */
+    public static ClientContext current() {
+        return CURRENT_CONTEXT.get();
+    }
+
+    /**
+     * Binds the given context to the current thread until the returned scope is closed.
+     *
+     * @param context the context to bind
+     *
+     * @return the scope which restores the previously bound context on close
+     */
+    public static Scope bind(ClientContext context) {
+        ClientContext previous = CURRENT_CONTEXT.get();
+        CURRENT_CONTEXT.set(context);
+        return () -> {
+            if (previous == null) {
+                CURRENT_CONTEXT.remove();
+            } else {
+                CURRENT_CONTEXT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Returns a context which does not access the request anymore, thus, can be used after the request has been
+     * completed. The headers of the request are copied, in case this has not been done yet.
+     *
+     * @return the detached context, this instance in case it is already detached
+     */
+    public ClientContext detach() {
+        if (request == null) {
+            return this;
+        }
+        ClientContext detached = new ClientContext(remoteAddress, null, getHeaders(), clientAddressResolver);
+        detached.clientAddress = clientAddress;
+        return detached;
+    }
+
+    /**
+     * Returns the address of the client. In case the request has been forwarded by proxies, this is not necessarily
+     * the remote address of the request.
+     *
+     * @return the address of the client
+     */
+    public String getClientAddress() {
+        String address = clientAddress;
+        if (address == null) {
+            address = clientAddressResolver.apply(this);
+            clientAddress = address;
+        }
+        return address;
+    }
+
+    /**
+     * Returns all request headers. The headers are copied from the request when they are accessed for the first time.
+     *
+     * @return the request headers, the header names are case-insensitive
+     */
+    public Map<String, List<String>> getHeaders() {
+        Map<String, List<String>> result = headers;
+        if (result == null) {
+            synchronized (this) {
+                result = headers;
+                if (result == null) {
+                    result = copyHeaders(request);
+                    headers = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first value of the given header.
+     *
+     * @param name the case-insensitive header name
+     *
+     * @return the header's first value or <code>null</code> if it does not exist
+     */
+    public String getHeader(String name) {
+        Map<String, List<String>> copiedHeaders = headers;
+        if (copiedHeaders == null) {
+            return request.getHeader(name);
+        }
+        List<String> values = copiedHeaders.get(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Returns all values of the given header.
+     *
+     * @param name the case-insensitive header name
+     *
+     * @return the header's values, an empty list if it does not exist
+     */
+    public List<String> getHeaderValues(String name) {
+        Map<String, List<String>> copiedHeaders = headers;
+        if (copiedHeaders == null) {
+            Enumeration<String> values = request.getHeaders(name);
+            return values == null ? Collections.emptyList() : Collections.list(values);
+        }
+        return copiedHeaders.getOrDefault(name, Collections.emptyList());
+    }
+
+    private static Map<String, List<String>> copyHeaders(HttpServletRequest request) {
+        Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+        for (String header : Collections.list(request.getHeaderNames())) {
+            headers.put(header, Collections.list(request.getHeaders(header)));
+        }
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * Scope of a bound {@link ClientContext}.
+     */
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
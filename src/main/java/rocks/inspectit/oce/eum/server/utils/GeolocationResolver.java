@@ -1,31 +1,117 @@
 package rocks.inspectit.oce.eum.server.utils;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.InetAddresses;
+import com.maxmind.db.CHMCache;
+import com.maxmind.db.Network;
+import com.maxmind.db.Reader;
 import com.maxmind.geoip2.DatabaseReader;
+import com.maxmind.geoip2.exception.AddressNotFoundException;
 import com.maxmind.geoip2.exception.GeoIp2Exception;
 import com.maxmind.geoip2.model.CountryResponse;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOCase;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.geolocation.GeolocationCacheSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.geolocation.GeolocationDatabaseSettings;
+import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.Inet4Address;
 import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Resolves the geolocation of given IP, by using the GeoLite2 database
  * (https://dev.maxmind.com/geoip/geoip2/geolite2/)
+ * <p>
+ * If a database file is configured, it is memory-mapped instead of being loaded into the heap. Changes of the file are
+ * detected and the database is swapped without interrupting lookups. Replaced databases are closed after a grace
+ * period.
+ * <p>
+ * If enabled, the resolved country codes are cached per network, i.e. per address prefix of the configured length. In
+ * case the database contains more specific networks within such a network, the country codes are cached per subnet,
+ * which is as small as the most specific of these networks, so caching does not change the results of lookups. Cached
+ * country codes are tagged with the generation of the database they have been resolved with, so that results
+ * of lookups which were still using a replaced database are not used.
  */
 @Component
 @Slf4j
 public class GeolocationResolver {
 
     /**
-     * Location of the geoip database.
+     * The interval in which the cache statistics are recorded by the self-monitoring.
      */
-    private final InputStream databaseStream = getClass().getResourceAsStream("/geoip-db/GeoLite2-Country.mmdb");
+    private static final long MONITORING_INTERVAL_MS = 15000;
 
-    private DatabaseReader databaseReader;
+    /**
+     * Location of the bundled geoip database.
+     */
+    private static final String BUNDLED_DATABASE = "/geoip-db/GeoLite2-Country.mmdb";
+
+    /**
+     * Parts of the database types which support country lookups, see {@link DatabaseReader#country(InetAddress)}.
+     */
+    private static final String[] COUNTRY_DATABASE_TYPES = {"Country", "City", "Enterprise"};
+
+    @Autowired
+    private EumServerConfiguration configuration;
+
+    @Autowired
+    private SelfMonitoringMetricManager selfMonitoring;
+
+    @Autowired
+    private ScheduledExecutorService scheduledExecutor;
+
+    /**
+     * The database which is currently used, replaced when the database file changes.
+     */
+    private volatile DatabaseReader databaseReader;
+
+    /**
+     * The generation of the current database, which is incremented after the database has been replaced.
+     */
+    private volatile int databaseGeneration;
+
+    private boolean databaseCache;
+
+    private File databaseFile;
+
+    private long gracePeriodMs;
+
+    private DirectoryPoller databasePoller;
+
+    /**
+     * The country codes of the networks, <code>null</code> if caching is disabled.
+     */
+    private Cache<CacheKey, CachedCountryCode> countryCodeCache;
+
+    private int ipv4PrefixLength;
+
+    private int ipv6PrefixLength;
+
+    /**
+     * The cache statistics which have been recorded last.
+     */
+    private CacheStats recordedCacheStats = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    private ScheduledFuture<?> monitoringTask;
 
     /**
      * Returns country code of current requester.
@@ -33,9 +119,67 @@ public class GeolocationResolver {
      * @return country code, empty string, if country code is not resolvable
      */
     public String getCountryCode(String ip) {
+        // the generation is read first, as the database is replaced before the generation is incremented
+        int generation = databaseGeneration;
+        DatabaseReader reader = databaseReader;
+        if (reader == null) {
+            return "";
+        }
+        if (countryCodeCache == null || !InetAddresses.isInetAddress(ip)) {
+            return lookupCountryCode(reader, ip);
+        }
+
+        InetAddress address = InetAddresses.forString(ip);
+        int prefixLength = address instanceof Inet4Address ? ipv4PrefixLength : ipv6PrefixLength;
+        CacheKey networkKey = new CacheKey(toNetwork(address, prefixLength), prefixLength);
+        CachedCountryCode cachedCountryCode = countryCodeCache.getIfPresent(networkKey);
+        int subnetPrefixLength = prefixLength;
+        if (cachedCountryCode != null && cachedCountryCode.getGeneration() == generation && cachedCountryCode.getPrefixLength() > prefixLength) {
+            // the network contains more specific networks of the database, thus, the country codes are cached per subnet
+            subnetPrefixLength = cachedCountryCode.getPrefixLength();
+            cachedCountryCode = countryCodeCache.getIfPresent(new CacheKey(toNetwork(address, subnetPrefixLength), subnetPrefixLength));
+        }
+        if (cachedCountryCode != null && cachedCountryCode.getGeneration() == generation) {
+            return cachedCountryCode.getCountryCode();
+        }
+
+        String countryCode;
+        int databasePrefixLength;
+        try {
+            CountryResponse response = reader.country(address);
+            countryCode = Strings.nullToEmpty(response.getCountry().getIsoCode());
+            Network databaseNetwork = response.getTraits().getNetwork();
+            databasePrefixLength = databaseNetwork == null ? prefixLength : databaseNetwork.getPrefixLength();
+        } catch (AddressNotFoundException e) {
+            log.debug("The requester address {} could not be resolved", ip);
+            countryCode = "";
+            databasePrefixLength = prefixLength;
+        } catch (GeoIp2Exception | IOException e) {
+            // the result is not cached, as the failure may be temporary
+            log.debug("The requester address {} could not be resolved", ip);
+            return "";
+        }
+
+        if (databasePrefixLength <= prefixLength) {
+            countryCodeCache.put(networkKey, new CachedCountryCode(generation, prefixLength, countryCode));
+        } else {
+            // the subnets are as small as the most specific network of the database within the network, so each subnet
+            // is contained in a single network of the database
+            subnetPrefixLength = Math.max(subnetPrefixLength, databasePrefixLength);
+            CachedCountryCode result = new CachedCountryCode(generation, subnetPrefixLength, countryCode);
+            countryCodeCache.put(new CacheKey(toNetwork(address, subnetPrefixLength), subnetPrefixLength), result);
+            countryCodeCache.put(networkKey, result);
+        }
+        return countryCode;
+    }
+
+    /**
+     * Resolves the country code of the given IP without using the cache.
+     */
+    private String lookupCountryCode(DatabaseReader reader, String ip) {
         try {
             InetAddress ipAddress = InetAddress.getByName(ip);
-            CountryResponse response = databaseReader.country(ipAddress);
+            CountryResponse response = reader.country(ipAddress);
 
             return response.getCountry().getIsoCode();
         } catch (GeoIp2Exception | IOException e) {
@@ -44,22 +188,203 @@ public class GeolocationResolver {
         }
     }
 
+    /**
+     * Returns the network of the given address, i.e. the address where all bits after the prefix are cleared.
+     */
+    @VisibleForTesting
+    static InetAddress toNetwork(InetAddress address, int prefixLength) {
+        byte[] bytes = address.getAddress();
+        for (int i = 0; i < bytes.length; i++) {
+            int remainingBits = prefixLength - i * Byte.SIZE;
+            if (remainingBits <= 0) {
+                bytes[i] = 0;
+            } else if (remainingBits < Byte.SIZE) {
+                bytes[i] &= (byte) (0xFF << (Byte.SIZE - remainingBits));
+            }
+        }
+        try {
+            return InetAddress.getByAddress(bytes);
+        } catch (UnknownHostException e) {
+            // cannot happen, as the address has a valid length
+            throw new IllegalStateException(e);
+        }
+    }
+
     @PostConstruct
     private void initialize() {
+        GeolocationCacheSettings cacheSettings = configuration.getGeolocation() == null ? null : configuration.getGeolocation()
+                .getCache();
+        GeolocationDatabaseSettings databaseSettings = configuration.getGeolocation() == null ? null : configuration.getGeolocation()
+                .getDatabase();
+        databaseCache = cacheSettings != null && cacheSettings.isDatabaseCache();
+
+        if (databaseSettings != null && StringUtils.isNotBlank(databaseSettings.getPath())) {
+            databaseFile = new File(databaseSettings.getPath()).getAbsoluteFile();
+            gracePeriodMs = databaseSettings.getGracePeriod().toMillis();
+            try {
+                databaseReader = openDatabaseFile();
+                log.info("Using GeoIP database <{}>", databaseFile);
+            } catch (IOException e) {
+                log.warn("The geoip database <{}> could not be opened!", databaseFile, e);
+            }
+            if (databaseSettings.isWatch()) {
+                startWatchingDatabaseFile(databaseSettings);
+            }
+        } else {
+            try (InputStream databaseStream = getClass().getResourceAsStream(BUNDLED_DATABASE)) {
+                databaseReader = newDatabaseBuilder(new DatabaseReader.Builder(databaseStream)).build();
+            } catch (Exception e) {
+                log.warn("The geoip database could not be found!", e);
+            }
+        }
+
+        if (cacheSettings != null && cacheSettings.isEnabled()) {
+            ipv4PrefixLength = cacheSettings.getIpv4PrefixLength();
+            ipv6PrefixLength = cacheSettings.getIpv6PrefixLength();
+            countryCodeCache = CacheBuilder.newBuilder().maximumSize(cacheSettings.getMaxSize()).recordStats().build();
+            monitoringTask = scheduledExecutor.scheduleAtFixedRate(this::recordCacheStatistics, MONITORING_INTERVAL_MS, MONITORING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private DatabaseReader.Builder newDatabaseBuilder(DatabaseReader.Builder builder) {
+        if (databaseCache) {
+            builder.withCache(new CHMCache());
+        }
+        return builder;
+    }
+
+    /**
+     * Opens the database file. The file is memory-mapped, so the database is not loaded into the heap and is shared
+     * with other processes using the same file through the page cache.
+     *
+     * @throws IOException if the file cannot be opened or the database does not support country lookups
+     */
+    private DatabaseReader openDatabaseFile() throws IOException {
+        DatabaseReader reader = newDatabaseBuilder(new DatabaseReader.Builder(databaseFile)).fileMode(Reader.FileMode.MEMORY_MAPPED)
+                .build();
+        String databaseType = reader.getMetadata().getDatabaseType();
+        if (!StringUtils.containsAny(databaseType, COUNTRY_DATABASE_TYPES)) {
+            reader.close();
+            throw new IOException("The database type '" + databaseType + "' does not support country lookups, a Country or City database is required.");
+        }
+        return reader;
+    }
+
+    private void startWatchingDatabaseFile(GeolocationDatabaseSettings databaseSettings) {
+        log.debug("Creating DirectoryPoller to listen for GeoIP database changes.");
+        try {
+            String fileName = databaseFile.getName();
+            databasePoller = DirectoryPoller.builder()
+                    .watchedDirectory(databaseFile.getParentFile())
+                    .fileFilter(file -> file.getName().equals(fileName))
+                    .anyChangeDetectedCallback(this::reloadDatabase)
+                    .executor(scheduledExecutor)
+                    .frequencyInMillis(databaseSettings.getFrequency().toMillis())
+                    .ioCase(IOCase.SYSTEM)
+                    .build()
+                    .start();
+        } catch (Exception e) {
+            log.error("Failed to start DirectoryPoller. The GeoIP database won't reload automatically!", e);
+        }
+    }
+
+    /**
+     * Opens the changed database file and replaces the current database. Lookups which are still using the previous
+     * database can finish, as it is only closed after the configured grace period. In case the changed file cannot be
+     * opened, e.g. because it has been deleted, the current database is kept.
+     */
+    @VisibleForTesting
+    void reloadDatabase() {
+        DatabaseReader newReader;
+        try {
+            newReader = openDatabaseFile();
+        } catch (IOException e) {
+            log.warn("The changed geoip database <{}> could not be opened, the previous database is kept.", databaseFile, e);
+            return;
+        }
+
+        DatabaseReader previousReader = databaseReader;
+        databaseReader = newReader;
+        databaseGeneration++;
+        if (countryCodeCache != null) {
+            countryCodeCache.invalidateAll();
+        }
+        log.info("Reloaded GeoIP database <{}>", databaseFile);
+
+        if (previousReader != null) {
+            scheduledExecutor.schedule(() -> closeDatabase(previousReader), gracePeriodMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void closeDatabase(DatabaseReader reader) {
         try {
-            databaseReader = new DatabaseReader.Builder(databaseStream).build();
+            reader.close();
         } catch (IOException e) {
-            log.warn("The geoip database could not be found!", e);
+            log.warn("Error closing GEO-IP db", e);
+        }
+    }
+
+    /**
+     * Records the hits, misses and evictions of the cache since the last time they have been recorded.
+     */
+    @VisibleForTesting
+    void recordCacheStatistics() {
+        CacheStats stats = countryCodeCache.stats();
+        CacheStats delta = stats.minus(recordedCacheStats);
+        recordedCacheStats = stats;
+
+        recordCacheEvent("hit", delta.hitCount());
+        recordCacheEvent("miss", delta.missCount());
+        recordCacheEvent("eviction", delta.evictionCount());
+    }
+
+    private void recordCacheEvent(String event, long count) {
+        if (count > 0) {
+            selfMonitoring.record("geolocation_cache", count, ImmutableMap.of("event", event));
         }
     }
 
+    /**
+     * A network used as cache key.
+     */
+    @Value
+    @VisibleForTesting
+    static class CacheKey {
+
+        InetAddress network;
+
+        int prefixLength;
+    }
+
+    /**
+     * A cached country code, the generation of the database it has been resolved with and the prefix length of the
+     * subnets the country codes are cached for. In case the prefix length exceeds the configured one, the entry of the
+     * configured network only refers to the entries of its subnets.
+     */
+    @Value
+    private static class CachedCountryCode {
+
+        int generation;
+
+        int prefixLength;
+
+        String countryCode;
+    }
+
     @PreDestroy
     private void shutdown() {
-        try {
-            databaseReader.close();
-            databaseStream.close();
-        } catch (Exception e) {
-            log.warn("Error shutting down GEO-IP db", e);
+        if (monitoringTask != null) {
+            monitoringTask.cancel(false);
+        }
+        if (databasePoller != null) {
+            try {
+                databasePoller.destroy();
+            } catch (Exception e) {
+                log.error("Failed to destroy DirectoryPoller", e);
+            }
+        }
+        if (databaseReader != null) {
+            closeDatabase(databaseReader);
         }
     }
 }
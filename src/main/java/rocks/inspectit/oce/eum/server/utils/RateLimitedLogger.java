@@ -0,0 +1,99 @@
+package rocks.inspectit.oce.eum.server.utils;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Logs warnings with a limited rate. At most {@link #maxMessages} messages are logged within a time window, further
+ * messages are suppressed until the window has passed. When messages are suppressed for the first time within a
+ * window, this is logged once. The logger can be used concurrently.
+ */
+public class RateLimitedLogger {
+
+    private final Logger logger;
+
+    /**
+     * The maximum number of messages which are logged within a window.
+     */
+    private final int maxMessages;
+
+    /**
+     * The duration of a window in ms.
+     */
+    private final long windowMillis;
+
+    /**
+     * The clock used for determining the windows.
+     */
+    private final Supplier<Long> clock;
+
+    /**
+     * The start of the current window in ms.
+     */
+    private long windowStart;
+
+    /**
+     * The number of messages which have been requested to be logged within the current window.
+     */
+    private int messageCount;
+
+    /**
+     * Whether no message has been logged yet, thus, no window has been started.
+     */
+    private boolean initial = true;
+
+    /**
+     * Constructor.
+     *
+     * @param logger      the logger used for logging the messages
+     * @param maxMessages the maximum number of messages which are logged within a window
+     * @param window      the duration of a window
+     */
+    public RateLimitedLogger(Logger logger, int maxMessages, Duration window) {
+        this(logger, maxMessages, window, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    RateLimitedLogger(Logger logger, int maxMessages, Duration window, Supplier<Long> clock) {
+        this.logger = logger;
+        this.maxMessages = maxMessages;
+        windowMillis = window.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Logs the given message as warning, in case the maximum number of messages has not been reached within the
+     * current window.
+     *
+     * @param format    the format of the message
+     * @param arguments the arguments of the message
+     */
+    public void warn(String format, Object... arguments) {
+        int count = nextMessage();
+        if (count <= maxMessages) {
+            logger.warn(format, arguments);
+        } else if (count == maxMessages + 1) {
+            logger.warn("Further log messages are suppressed");
+        }
+    }
+
+    /**
+     * @return the number of messages within the current window, including the new one
+     */
+    private synchronized int nextMessage() {
+        long now = clock.get();
+        if (initial || now - windowStart >= windowMillis) {
+            initial = false;
+            windowStart = now;
+            messageCount = 0;
+        }
+        // the count is not increased any further once the suppression has been logged
+        if (messageCount <= maxMessages + 1) {
+            messageCount++;
+        }
+        return messageCount;
+    }
+}
@@ -1,24 +0,0 @@
-package rocks.inspectit.oce.eum.server.utils;
-
-import lombok.AccessLevel;
-import lombok.NoArgsConstructor;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
-
-import jakarta.servlet.http.HttpServletRequest;
-
-@NoArgsConstructor(access = AccessLevel.PRIVATE)
-public class RequestUtils {
-
-    /**
-     * @return Returns the current {@link HttpServletRequest} or <code>null</code> in case no request exists.
-     */
-    public static HttpServletRequest getCurrentRequest() {
-        ServletRequestAttributes requestAttributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        if (requestAttributes == null) {
-            return null;
-        }
-        return requestAttributes.getRequest();
-    }
-
-}
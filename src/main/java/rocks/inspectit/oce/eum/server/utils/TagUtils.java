@@ -1,24 +1,32 @@
 package rocks.inspectit.oce.eum.server.utils;
 
-import com.google.common.annotations.VisibleForTesting;
 import io.opencensus.internal.StringUtils;
+import io.opencensus.tags.TagKey;
 import io.opencensus.tags.TagValue;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates OpenCensus tag keys and values. As the same keys and values are used for the tags of many beacons, the
+ * created keys and validated values are interned. The caches are bounded by clearing them once they are full, which is
+ * cheaper than tracking the least recently used entries and still retains the recurring entries, as these are added
+ * again right away.
+ */
 @Slf4j
 public final class TagUtils {
 
     /**
-     * Counter for the number of warnings that have already been printed
+     * The maximum number of cached tag keys.
      */
-    @VisibleForTesting
-    static int printedWarningCounter = 0;
+    private static final int MAX_CACHED_TAG_KEYS = 1_000;
 
     /**
-     * The time in ms when the last warning was printed
+     * The maximum number of cached tag values.
      */
-    @VisibleForTesting
-    static long lastWarningTime = 0;
+    private static final int MAX_CACHED_TAG_VALUES = 10_000;
 
     /**
      * The number of maximum warnings that are to be printed
@@ -26,19 +34,52 @@ public final class TagUtils {
     private final static int MAX_WARNING_PRINTS = 10;
 
     /**
-     * The duration in ms that needs to pass, if MAX_WARNING_PRINTS has been reached
+     * The duration that needs to pass, if MAX_WARNING_PRINTS has been reached
+     */
+    private final static Duration WARNING_WINDOW = Duration.ofMinutes(10);
+
+    /**
+     * The value used for invalid tag values.
+     */
+    private static final TagValue INVALID_TAG_VALUE = TagValue.create("<invalid>");
+
+    /**
+     * The created tag keys by their names.
      */
-    private final static int WAITING_TIME_IN_MILLI_SECONDS = 600_000;
+    private static final Map<String, TagKey> TAG_KEYS = new ConcurrentHashMap<>();
 
     /**
-     * Boolean that indicates whether the user gets a message that further logs are suppressed
+     * The valid tag values by their strings.
      */
-    private static boolean PRINT_FURTHER_MESSAGE = true;
+    private static final Map<String, TagValue> TAG_VALUES = new ConcurrentHashMap<>();
+
+    /**
+     * Logger for the warnings about invalid tag values.
+     */
+    private static final RateLimitedLogger WARNING_LOGGER = new RateLimitedLogger(log, MAX_WARNING_PRINTS, WARNING_WINDOW);
 
     private TagUtils() {
         // empty private default constructor for util class
     }
 
+    /**
+     * Returns the {@code io.opencensus.tags.TagKey} with the given name.
+     *
+     * @param name the name of the tag key
+     *
+     * @return the created or cached TagKey
+     *
+     * @throws IllegalArgumentException in case the name is not a valid tag key
+     */
+    public static TagKey createTagKey(String name) {
+        TagKey tagKey = TAG_KEYS.get(name);
+        if (tagKey == null) {
+            tagKey = TagKey.create(name);
+            intern(TAG_KEYS, MAX_CACHED_TAG_KEYS, name, tagKey);
+        }
+        return tagKey;
+    }
+
     /**
      * Constructs a {@code io.opencensus.tags.TagValue} from the given string.
      * If String is not valid an <code>&lt;invalid&gt;</code> TagName is created.
@@ -49,29 +90,27 @@ public final class TagUtils {
      * @return the created TagValue with 'v' or '&lt;invalid&gt;'
      */
     public static TagValue createTagValue(String tagKey, String value) {
+        TagValue tagValue = TAG_VALUES.get(value);
+        if (tagValue != null) {
+            return tagValue;
+        }
         if (isTagValueValid(value)) {
-            return TagValue.create(value);
+            tagValue = TagValue.create(value);
+            intern(TAG_VALUES, MAX_CACHED_TAG_VALUES, value, tagValue);
+            return tagValue;
         }
-        printWarning(tagKey, value);
-        return TagValue.create("<invalid>");
+        WARNING_LOGGER.warn("Error creating value for tag <{}>: illegal tag value <{}> converted to <invalid>", tagKey, value);
+        return INVALID_TAG_VALUE;
     }
 
-    private static boolean isTagValueValid(String value) {
-        return value.length() <= TagValue.MAX_LENGTH && StringUtils.isPrintableString(value);
+    private static <V> void intern(Map<String, V> cache, int maxSize, String key, V value) {
+        if (cache.size() >= maxSize) {
+            cache.clear();
+        }
+        cache.put(key, value);
     }
 
-    private static void printWarning(String tagKey, String value) {
-        if ((System.currentTimeMillis() - lastWarningTime) > WAITING_TIME_IN_MILLI_SECONDS) {
-            printedWarningCounter = 0;
-            PRINT_FURTHER_MESSAGE = true;
-        }
-        if (printedWarningCounter < MAX_WARNING_PRINTS) {
-            log.warn("Error creating value for tag <{}>: illegal tag value <{}> converted to <invalid>", tagKey, value);
-            printedWarningCounter++;
-            lastWarningTime = System.currentTimeMillis();
-        } else if (PRINT_FURTHER_MESSAGE) {
-            log.warn("Further log messages are suppressed");
-            PRINT_FURTHER_MESSAGE = false;
-        }
+    private static boolean isTagValueValid(String value) {
+        return value.length() <= TagValue.MAX_LENGTH && StringUtils.isPrintableString(value);
     }
-}
\ No newline at end of file
+}
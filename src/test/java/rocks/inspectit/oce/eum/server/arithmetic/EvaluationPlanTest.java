@@ -0,0 +1,113 @@
+package rocks.inspectit.oce.eum.server.arithmetic;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+
+class EvaluationPlanTest {
+
+    private static final List<String> EXPRESSIONS = Arrays.asList("{rt.end} - {rt.tstart}", "({rt.end} - {rt.tstart}) * 2", "{t_done}", "{t_done} / ({rt.end} - {rt.tstart})", "{t_done}{rt.end}", "-{t_done}^2");
+
+    private List<RawExpression> createExpressions(boolean compile) {
+        return EXPRESSIONS.stream().map(expression -> new RawExpression(expression, compile)).collect(Collectors.toList());
+    }
+
+    private Beacon createBeacon(String end, String start, String done) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("rt.end", end);
+        fields.put("rt.tstart", start);
+        fields.put("t_done", done);
+        return Beacon.of(fields);
+    }
+
+    @Nested
+    public class Constructor {
+
+        @Test
+        public void sharedNodes() {
+            EvaluationPlan plan = new EvaluationPlan(createExpressions(false), false);
+
+            // {rt.end}, {rt.tstart}, -, 2, *, {t_done}, /, ^ and the negation, the constant 2 is shared as well
+            assertThat(plan.getNodeCount()).isEqualTo(9);
+        }
+
+        @Test
+        public void compileOncePerRoot() {
+            List<RawExpression> expressions = createExpressions(false);
+            expressions.add(new RawExpression("{rt.end}-{rt.tstart}", false));
+
+            try (MockedStatic<ExpressionCompiler> compiler = Mockito.mockStatic(ExpressionCompiler.class, Answers.CALLS_REAL_METHODS)) {
+                new EvaluationPlan(expressions, true);
+
+                // all expressions except the duplicate, the selection expression and the expression which cannot be parsed
+                compiler.verify(() -> ExpressionCompiler.compile(any()), times(4));
+            }
+        }
+    }
+
+    @Nested
+    public class Solve {
+
+        @Test
+        public void sameResults() {
+            verifySameResults(false);
+        }
+
+        @Test
+        public void sameResultsCompiled() {
+            verifySameResults(true);
+        }
+
+        private void verifySameResults(boolean compile) {
+            List<RawExpression> expressions = createExpressions(compile);
+            EvaluationPlan plan = new EvaluationPlan(expressions, compile);
+            List<Beacon> beacons = Arrays.asList(createBeacon("1565601241723", "1565601241693", "60"), createBeacon("10", "-5", "2.5"), createBeacon("1.2.3", "1", "5"), createBeacon("1e3", "5", "-3"));
+
+            for (Beacon beacon : beacons) {
+                EvaluationPlan.Evaluation evaluation = plan.evaluate(beacon);
+                for (int i = 0; i < expressions.size(); i++) {
+                    Number result = evaluation.solve(i);
+
+                    assertThat(result).as("%s with %s", EXPRESSIONS.get(i), beacon).isEqualTo(expressions.get(i).solve(beacon));
+                }
+            }
+        }
+
+        @Test
+        public void sharedResults() {
+            EvaluationPlan plan = new EvaluationPlan(createExpressions(false), false);
+            EvaluationPlan.Evaluation evaluation = plan.evaluate(createBeacon("100", "40", "30"));
+
+            assertThat(evaluation.solve(0)).isEqualTo(60D);
+            assertThat(evaluation.solve(1)).isEqualTo(120D);
+            assertThat(evaluation.solve(3)).isEqualTo(0.5D);
+            assertThat(evaluation.solve(5)).isEqualTo(-900D);
+        }
+
+        @Test
+        public void missingField() {
+            EvaluationPlan plan = new EvaluationPlan(createExpressions(false), false);
+            Map<String, String> fields = new HashMap<>();
+            fields.put("rt.end", "100");
+            EvaluationPlan.Evaluation evaluation = plan.evaluate(Beacon.of(fields));
+
+            assertThatExceptionOfType(IllegalStateException.class)
+                    .isThrownBy(() -> evaluation.solve(0))
+                    .withMessage("The given beacon does not contain the required field 'rt.tstart'.");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package rocks.inspectit.oce.eum.server.arithmetic;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class ExpressionCompilerTest {
+
+    private static final List<String> FIELDS = Arrays.asList("a", "b");
+
+    @Nested
+    public class Compile {
+
+        @Test
+        public void sameResultsAsInterpretation() {
+            List<String> expressions = Arrays.asList("{a}-{b}", "1+{a}*2^3", "-{a}^2", "({a}+{b})/-{b}", "sqrt{a}+sin{b}-cos(0)*tan(45)", "{a}^{b}^0.5", "1/0");
+            double[][] values = {{10, 4}, {0, 0}, {-2.5, 3}, {1565601241723D, 1565601241693D}};
+
+            for (String expression : expressions) {
+                ExpressionNode tree = ExpressionParser.parse(expression, FIELDS);
+
+                ExpressionNode result = ExpressionCompiler.compile(tree);
+
+                assertThat(result).isNotInstanceOf(tree.getClass());
+                for (double[] fieldValues : values) {
+                    assertThat((Double) result.evaluate(fieldValues)).as("%s with %s", expression, Arrays.toString(fieldValues))
+                            .isEqualTo((Double) tree.evaluate(fieldValues));
+                }
+            }
+        }
+
+        @Test
+        public void unsupportedNode() {
+            ExpressionNode unsupported = fieldValues -> fieldValues[1] * 10;
+            ExpressionNode tree = new ExpressionNode.BinaryOperation(ExpressionNode.Operator.ADD, new ExpressionNode.Field(0, "a"), unsupported);
+
+            assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() -> ExpressionCompiler.compile(tree));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package rocks.inspectit.oce.eum.server.arithmetic;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class ExpressionParserTest {
+
+    private static final List<String> FIELDS = Arrays.asList("a", "b");
+
+    @Nested
+    public class Parse {
+
+        @Test
+        public void fieldDifference() {
+            ExpressionNode result = ExpressionParser.parse("{a}-{b}", FIELDS);
+
+            assertThat(result).isEqualTo(new ExpressionNode.BinaryOperation(ExpressionNode.Operator.SUBTRACT, new ExpressionNode.Field(0, "a"), new ExpressionNode.Field(1, "b")));
+            assertThat(result.evaluate(new double[]{10, 4})).isEqualTo(6D);
+        }
+
+        @Test
+        public void operatorPrecedence() {
+            ExpressionNode result = ExpressionParser.parse("1+{a}*2^3", FIELDS);
+
+            assertThat(result.evaluate(new double[]{2, 0})).isEqualTo(17D);
+        }
+
+        @Test
+        public void negatedPower() {
+            ExpressionNode result = ExpressionParser.parse("-{a}^2", FIELDS);
+
+            assertThat(result.evaluate(new double[]{5, 0})).isEqualTo(-25D);
+        }
+
+        @Test
+        public void functions() {
+            ExpressionNode result = ExpressionParser.parse("sqrt{a}+cos(0)", FIELDS);
+
+            assertThat(result.evaluate(new double[]{16, 0})).isEqualTo(5D);
+        }
+
+        @Test
+        public void missingClosingParenthesis() {
+            ExpressionNode result = ExpressionParser.parse("({a}+{b}", FIELDS);
+
+            assertThat(result.evaluate(new double[]{1, 2})).isEqualTo(3D);
+        }
+
+        @Test
+        public void adjacentFields() {
+            assertThatExceptionOfType(RuntimeException.class)
+                    .isThrownBy(() -> ExpressionParser.parse("{a}{b}", FIELDS));
+        }
+
+        @Test
+        public void fieldFollowedByNumber() {
+            assertThatExceptionOfType(RuntimeException.class)
+                    .isThrownBy(() -> ExpressionParser.parse("{a}5", FIELDS));
+        }
+
+        @Test
+        public void numberFollowedByField() {
+            assertThatExceptionOfType(RuntimeException.class)
+                    .isThrownBy(() -> ExpressionParser.parse("5{a}", FIELDS));
+        }
+
+        @Test
+        public void unknownField() {
+            assertThatExceptionOfType(RuntimeException.class)
+                    .isThrownBy(() -> ExpressionParser.parse("{c}", FIELDS));
+        }
+
+        @Test
+        public void unknownFunction() {
+            assertThatExceptionOfType(RuntimeException.class)
+                    .isThrownBy(() -> ExpressionParser.parse("log(1)", Collections.emptyList()));
+        }
+
+        @Test
+        public void invalidExpression() {
+            assertThatExceptionOfType(RuntimeException.class)
+                    .isThrownBy(() -> ExpressionParser.parse("5-*{a}", FIELDS));
+        }
+    }
+}
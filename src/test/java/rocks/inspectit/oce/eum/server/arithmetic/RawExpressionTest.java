@@ -4,8 +4,10 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
@@ -128,4 +130,50 @@ class RawExpressionTest {
             assertThat(result).isNull();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Verifies that solving the parsed expressions results in the same values as replacing the placeholders
+     * textually and solving the resulting expression, which has been done previously.
+     */
+    @Nested
+    public class Equivalence {
+
+        private final List<String> expressions = Arrays.asList("{a} - {b}", "({a} + {b}) * 2", "-{a}^2", "{a}^{b}", "sqrt{a}", "sin({a}) + cos {b}", "({a} - {b}", "{a}{b}", "{a}.5", "{a} / {b} + 1", "+{a}*-{b}");
+
+        private final List<String> values = Arrays.asList("5", "10", "0", "1565601241723", "12345678901234567890", "2.5", ".5", "-5", "1e3", "1.2.3", "", "5.");
+
+        @Test
+        public void sameResults() {
+            verifySameResults(false);
+        }
+
+        @Test
+        public void sameResultsCompiled() {
+            verifySameResults(true);
+        }
+
+        private void verifySameResults(boolean compile) {
+            for (String expressionString : expressions) {
+                RawExpression expression = new RawExpression(expressionString, compile);
+                for (String a : values) {
+                    for (String b : values) {
+                        Map<String, String> map = new HashMap<>();
+                        map.put("a", a);
+                        map.put("b", b);
+
+                        Number result = expression.solve(Beacon.of(map));
+
+                        String resolved = expressionString.replaceAll("\\s+", "").replace("{a}", a).replace("{b}", b);
+                        Double expected;
+                        try {
+                            expected = new ArithmeticExpression(resolved).eval();
+                        } catch (Exception e) {
+                            expected = null;
+                        }
+                        assertThat(result).as("%s with a=%s, b=%s", expressionString, a, b).isEqualTo(expected);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package rocks.inspectit.oce.eum.server.beacon;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BeaconFieldDictionaryTest {
+
+    @Nested
+    public class Register {
+
+        @Test
+        public void knownBoomerangField() {
+            BeaconField field = BeaconFieldDictionary.find("t_done");
+
+            assertThat(field).isNotNull();
+            assertThat(BeaconFieldDictionary.register("t_done")).isSameAs(field);
+        }
+
+        @Test
+        public void newField() {
+            assertThat(BeaconFieldDictionary.find("dictionary-test.new")).isNull();
+
+            BeaconField field = BeaconFieldDictionary.register("dictionary-test.new");
+
+            assertThat(field.getName()).isEqualTo("dictionary-test.new");
+            assertThat(BeaconFieldDictionary.find("dictionary-test.new")).isSameAs(field);
+            assertThat(BeaconFieldDictionary.get(field.getId())).isSameAs(field);
+            assertThat(BeaconFieldDictionary.size()).isGreaterThan(field.getId());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package rocks.inspectit.oce.eum.server.beacon;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import rocks.inspectit.oce.eum.server.beacon.recorder.BeaconRecorder;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.exporters.beacon.InitiatorType;
+import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.BeaconMetricDefinitionSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.BeaconRequirement;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.BeaconTagSettings;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BeaconFieldUsageTest {
+
+    @InjectMocks
+    private BeaconFieldUsage fieldUsage;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EumServerConfiguration configuration;
+
+    @Mock
+    private BeaconRecorder beaconRecorder;
+
+    @BeforeEach
+    public void beforeEach() {
+        BeaconRequirement requirement = new BeaconRequirement();
+        requirement.setRequirement(BeaconRequirement.RequirementType.EXISTS);
+        requirement.setField("t_page");
+        BeaconRequirement initiatorRequirement = new BeaconRequirement();
+        initiatorRequirement.setRequirement(BeaconRequirement.RequirementType.HAS_INITIATOR);
+        initiatorRequirement.setInitiators(Collections.singletonList(InitiatorType.XHR));
+        BeaconMetricDefinitionSettings definition = BeaconMetricDefinitionSettings.beaconMetricBuilder()
+                .valueExpression("{rt.end} - {rt.tstart}")
+                .beaconRequirements(Arrays.asList(requirement, initiatorRequirement))
+                .build();
+        lenient().when(configuration.getDefinitions()).thenReturn(ImmutableMap.of("page_time", definition));
+
+        BeaconTagSettings tag = BeaconTagSettings.builder().input("u").build();
+        lenient().when(configuration.getTags().getBeacon()).thenReturn(ImmutableMap.of("URL", tag));
+
+        lenient().when(beaconRecorder.getInputFields()).thenReturn(ImmutableSet.of("restiming"));
+        ReflectionTestUtils.setField(fieldUsage, "beaconRecorders", Collections.singletonList(beaconRecorder));
+    }
+
+    @Test
+    public void allComponents() {
+        assertThat(fieldUsage.collectConsumedFields()).containsExactlyInAnyOrder("rt.end", "rt.tstart", "t_page", "http.initiator", "URL", "u", "restiming");
+    }
+
+    @Test
+    public void undeclaredRecorderFields() {
+        when(beaconRecorder.getInputFields()).thenReturn(null);
+
+        assertThat(fieldUsage.collectConsumedFields()).isNull();
+    }
+
+    @Test
+    public void noRecorders() {
+        ReflectionTestUtils.setField(fieldUsage, "beaconRecorders", null);
+
+        assertThat(fieldUsage.collectConsumedFields()).doesNotContain("restiming").contains("URL");
+    }
+}
@@ -4,10 +4,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.entry;
 
 class BeaconTest {
 
@@ -77,4 +82,247 @@ class BeaconTest {
             assertThat(result).isFalse();
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    public class Merge {
+
+        private Beacon beacon;
+
+        @BeforeEach
+        private void before() {
+            HashMap<String, String> map = new HashMap<>();
+            map.put("first", "1");
+            map.put("second", "2");
+            beacon = Beacon.of(map);
+        }
+
+        @Test
+        public void mergeMap() {
+            Beacon result = beacon.merge(Collections.singletonMap("second", "3"));
+
+            assertThat(result).isNotSameAs(beacon);
+            assertThat(result.toMap()).containsOnly(entry("first", "1"), entry("second", "3"));
+            assertThat(beacon.toMap()).containsOnly(entry("first", "1"), entry("second", "2"));
+        }
+
+        @Test
+        public void mergeEmptyMap() {
+            Beacon result = beacon.merge(Collections.emptyMap());
+
+            assertThat(result).isSameAs(beacon);
+        }
+
+        @Test
+        public void mergeDerivedBeacon() {
+            Beacon derived = beacon.merge(Collections.singletonMap("third", "3")).merge(Collections.singletonMap("fourth", "4"));
+
+            Beacon result = beacon.merge(derived);
+
+            assertThat(result).isSameAs(derived);
+            assertThat(result.toMap()).containsOnly(entry("first", "1"), entry("second", "2"), entry("third", "3"), entry("fourth", "4"));
+        }
+
+        @Test
+        public void mergeUnrelatedBeacon() {
+            Beacon other = Beacon.of(Collections.singletonMap("first", "3")).merge(Collections.singletonMap("third", "4"));
+
+            Beacon result = beacon.merge(other);
+
+            assertThat(result.toMap()).containsOnly(entry("first", "3"), entry("second", "2"), entry("third", "4"));
+        }
+
+        @Test
+        public void mergeIndependentlyDerivedBeacons() {
+            Beacon first = beacon.merge(Collections.singletonMap("third", "3")).merge(Collections.singletonMap("second", "x"));
+            Beacon second = beacon.merge(Collections.singletonMap("fourth", "4"));
+
+            Beacon result = first.mergeDerived(second, beacon);
+
+            assertThat(result.toMap()).containsOnly(entry("first", "1"), entry("second", "x"), entry("third", "3"), entry("fourth", "4"));
+        }
+
+        @Test
+        public void mergeFlattenedDerivedBeacon() {
+            Beacon first = beacon.merge(Collections.singletonMap("second", "x"));
+            Beacon second = beacon;
+            for (int i = 0; i < 10; i++) {
+                second = second.merge(Collections.singletonMap("field" + i, String.valueOf(i)));
+            }
+
+            Beacon result = first.mergeDerived(second, beacon);
+
+            assertThat(result.toMap()).hasSize(12)
+                    .containsEntry("first", "1")
+                    .containsEntry("second", "x")
+                    .containsEntry("field0", "0")
+                    .containsEntry("field9", "9");
+            assertThat(beacon.merge(second)).isSameAs(second);
+        }
+
+        @Test
+        public void mergeRepeatedlyFlattenedDerivedBeacon() {
+            Beacon base = beacon;
+            for (int i = 0; i < 10; i++) {
+                base = base.merge(Collections.singletonMap("field" + i, String.valueOf(i)));
+            }
+            Beacon first = base.merge(Collections.singletonMap("second", "x"));
+            Beacon second = base.merge(Collections.singletonMap("field0", "changed"));
+            for (int i = 0; i < 20; i++) {
+                second = second.merge(Collections.singletonMap("other" + i, String.valueOf(i)));
+            }
+
+            Beacon result = first.mergeDerived(second, base);
+
+            assertThat(result.toMap()).hasSize(32)
+                    .containsEntry("second", "x")
+                    .containsEntry("field0", "changed")
+                    .containsEntry("field9", "9")
+                    .containsEntry("other0", "0")
+                    .containsEntry("other19", "19");
+            assertThat(base.merge(second)).isSameAs(second);
+        }
+
+        @Test
+        public void mergeDerivedWithoutChanges() {
+            Beacon first = beacon.merge(Collections.singletonMap("third", "3"));
+
+            Beacon result = first.mergeDerived(beacon, beacon);
+
+            assertThat(result).isSameAs(first);
+        }
+
+        @Test
+        public void mergeDerivedFromOtherBase() {
+            Beacon first = beacon.merge(Collections.singletonMap("third", "3"));
+            Beacon other = Beacon.of(Collections.singletonMap("first", "5"));
+
+            Beacon result = first.mergeDerived(other, beacon);
+
+            assertThat(result.toMap()).containsOnly(entry("first", "5"), entry("second", "2"), entry("third", "3"));
+        }
+
+        @Test
+        public void manyLayers() {
+            Beacon result = beacon;
+            for (int i = 0; i < 50; i++) {
+                result = result.merge(Collections.singletonMap("field" + i, String.valueOf(i)));
+            }
+            result = result.merge(Collections.singletonMap("first", "overwritten"));
+
+            assertThat(result.toMap()).hasSize(52)
+                    .containsEntry("first", "overwritten")
+                    .containsEntry("second", "2")
+                    .containsEntry("field0", "0")
+                    .containsEntry("field49", "49");
+            assertThat(result.contains("first", "field0", "field25")).isTrue();
+        }
+
+        @Test
+        public void nullValueIsNotOverwrittenByLowerLayer() {
+            Beacon result = beacon.merge(Collections.singletonMap("first", null));
+
+            assertThat(result.contains("first")).isTrue();
+            assertThat(result.get("first")).isNull();
+        }
+
+        @Test
+        public void resultIsImmutable() {
+            Beacon result = beacon.merge(Collections.singletonMap("third", "3"));
+
+            assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() -> result.toMap()
+                    .put("fourth", "4"));
+        }
+    }
+
+    @Nested
+    public class Fields {
+
+        @Test
+        public void getByField() {
+            BeaconField field = BeaconFieldDictionary.register("beacon-test.registered");
+            Beacon beacon = Beacon.of(Collections.singletonMap("beacon-test.registered", "1"));
+
+            assertThat(beacon.contains(field)).isTrue();
+            assertThat(beacon.get(field)).isEqualTo("1");
+            assertThat(beacon.get("beacon-test.registered")).isEqualTo("1");
+        }
+
+        @Test
+        public void fieldRegisteredAfterCreation() {
+            Beacon beacon = Beacon.of(Collections.singletonMap("beacon-test.late", "1"));
+            Beacon merged = beacon.merge(Collections.singletonMap("beacon-test.late-merged", "2"));
+
+            BeaconField field = BeaconFieldDictionary.register("beacon-test.late");
+            BeaconField mergedField = BeaconFieldDictionary.register("beacon-test.late-merged");
+
+            assertThat(merged.get(field)).isEqualTo("1");
+            assertThat(merged.get(mergedField)).isEqualTo("2");
+            assertThat(merged.contains(field)).isTrue();
+            assertThat(merged.contains(mergedField)).isTrue();
+        }
+
+        @Test
+        public void unknownAndKnownFields() {
+            HashMap<String, String> map = new HashMap<>();
+            map.put("t_done", "100");
+            map.put("beacon-test.unknown", "x");
+            Beacon beacon = Beacon.of(map).merge(Collections.singletonMap("t_done", "200"));
+
+            assertThat(beacon.toMap()).containsOnly(entry("t_done", "200"), entry("beacon-test.unknown", "x"));
+            assertThat(beacon.get(BeaconFieldDictionary.find("t_done"))).isEqualTo("200");
+        }
+    }
+
+    @Nested
+    public class Project {
+
+        @Test
+        public void dropFields() {
+            HashMap<String, String> map = new HashMap<>();
+            map.put("t_done", "100");
+            map.put("u", "http://test");
+            map.put("beacon-test.unused", "x");
+            Beacon beacon = Beacon.of(map);
+            Map<String, Integer> prunedFields = new HashMap<>();
+
+            Beacon result = beacon.project("t_done"::equals, prunedFields::put);
+
+            assertThat(result.toMap()).containsOnly(entry("t_done", "100"));
+            assertThat(prunedFields).containsOnly(entry("u", 12), entry("beacon-test.unused", 19));
+        }
+
+        @Test
+        public void encodedValues() {
+            Beacon beacon = FormUrlEncodedBeaconParser.parse("t_done=100&u=http%3A%2F%2Ftest".getBytes(), StandardCharsets.UTF_8);
+            Map<String, Integer> prunedFields = new HashMap<>();
+
+            Beacon result = beacon.project("t_done"::equals, prunedFields::put);
+
+            assertThat(result.toMap()).containsOnly(entry("t_done", "100"));
+            assertThat(prunedFields).containsOnly(entry("u", 18));
+        }
+
+        @Test
+        public void mergedLayers() {
+            Beacon beacon = Beacon.of(Collections.singletonMap("t_done", "100"))
+                    .merge(Collections.singletonMap("t_page", "50"))
+                    .merge(Collections.singletonMap("t_done", "200"));
+
+            Beacon result = beacon.project("t_done"::equals, (field, size) -> {
+            });
+
+            assertThat(result.toMap()).containsOnly(entry("t_done", "200"));
+        }
+
+        @Test
+        public void noFieldDropped() {
+            Beacon beacon = Beacon.of(Collections.singletonMap("t_done", "100"));
+
+            Beacon result = beacon.project(field -> true, (field, size) -> {
+                throw new AssertionError();
+            });
+
+            assertThat(result).isSameAs(beacon);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package rocks.inspectit.oce.eum.server.beacon;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class FormUrlEncodedBeaconParserTest {
+
+    private Beacon parse(String data) {
+        return FormUrlEncodedBeaconParser.parse(data.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+
+    @Nested
+    public class Parse {
+
+        @Test
+        public void simpleFields() {
+            Beacon result = parse("first=1&second=2");
+
+            assertThat(result.toMap()).containsOnly(entry("first", "1"), entry("second", "2"));
+        }
+
+        @Test
+        public void encodedFields() {
+            Beacon result = parse("u=http%3A%2F%2Fexample.com%2F%3Fa%3Db&name=hello+world&umlaut=%C3%A4&key%5B0%5D=x");
+
+            assertThat(result.get("u")).isEqualTo("http://example.com/?a=b");
+            assertThat(result.get("name")).isEqualTo("hello world");
+            assertThat(result.get("umlaut")).isEqualTo("ä");
+            assertThat(result.get("key[0]")).isEqualTo("x");
+        }
+
+        @Test
+        public void malformedEscapeSequences() {
+            Beacon result = parse("first=100%&second=%zz&third=%4");
+
+            assertThat(result.toMap()).containsOnly(entry("first", "100%"), entry("second", "%zz"), entry("third", "%4"));
+        }
+
+        @Test
+        public void emptyAndMissingValues() {
+            Beacon result = parse("empty=&missing&=ignored&&last=x");
+
+            assertThat(result.toMap()).containsOnly(entry("empty", ""), entry("missing", null), entry("last", "x"));
+        }
+
+        @Test
+        public void duplicateFields() {
+            Beacon result = parse("key=first&key=second");
+
+            assertThat(result.toMap()).containsOnly(entry("key", "first"));
+        }
+
+        @Test
+        public void valueContainingSeparator() {
+            Beacon result = parse("key=a=b");
+
+            assertThat(result.get("key")).isEqualTo("a=b");
+        }
+
+        @Test
+        public void emptyData() {
+            Beacon result = parse("");
+
+            assertThat(result.toMap()).isEmpty();
+        }
+
+        @Test
+        public void fromStream() throws Exception {
+            byte[] data = "first=1&second=a%20b".getBytes(StandardCharsets.UTF_8);
+
+            Beacon result = FormUrlEncodedBeaconParser.parse(new ByteArrayInputStream(data), data.length, StandardCharsets.UTF_8);
+
+            assertThat(result.toMap()).containsOnly(entry("first", "1"), entry("second", "a b"));
+        }
+
+        @Test
+        public void mergeKeepsEncodedValues() {
+            Beacon beacon = parse("first=a%20b&second=2");
+
+            Beacon result = beacon.merge(Beacon.of(Collections.singletonMap("second", "3")));
+
+            assertThat(result.toMap()).containsOnly(entry("first", "a b"), entry("second", "3"));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package rocks.inspectit.oce.eum.server.beacon.ingest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.ingestion.AsyncIngestionSettings;
+import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
+import rocks.inspectit.oce.eum.server.utils.ClientContext;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncBeaconIngestQueueTest {
+
+    @InjectMocks
+    private AsyncBeaconIngestQueue ingestQueue;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EumServerConfiguration configuration;
+
+    @Mock
+    private BeaconIngestService ingestService;
+
+    @Mock
+    private SelfMonitoringMetricManager selfMonitoring;
+
+    @Mock
+    private ScheduledExecutorService scheduledExecutor;
+
+    private AsyncIngestionSettings settings;
+
+    @BeforeEach
+    public void beforeEach() {
+        settings = new AsyncIngestionSettings();
+        settings.setEnabled(true);
+        settings.setQueueCapacity(2);
+        settings.setWorkerThreads(1);
+        settings.setRetryAfter(Duration.ofSeconds(5));
+
+        when(configuration.getIngestion().getAsync()).thenReturn(settings);
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception {
+        ingestQueue.destroy();
+    }
+
+    @Nested
+    public class Offer {
+
+        @Test
+        public void processBeacon() throws Exception {
+            CountDownLatch latch = new CountDownLatch(1);
+            when(ingestService.ingest(any())).then(i -> {
+                latch.countDown();
+                return true;
+            });
+            ingestQueue.initialize();
+
+            boolean result = ingestQueue.offer(Beacon.of(Collections.singletonMap("key", "value")), null);
+
+            assertThat(result).isTrue();
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+            ArgumentCaptor<Beacon> beaconCaptor = ArgumentCaptor.forClass(Beacon.class);
+            verify(ingestService).ingest(beaconCaptor.capture());
+            assertThat(beaconCaptor.getValue().toMap()).containsExactly(entry("key", "value"));
+        }
+
+        @Test
+        public void queueFull() throws Exception {
+            CountDownLatch blockWorker = new CountDownLatch(1);
+            CountDownLatch workerBlocked = new CountDownLatch(1);
+            when(ingestService.ingest(any())).then(i -> {
+                workerBlocked.countDown();
+                blockWorker.await();
+                return true;
+            });
+            ingestQueue.initialize();
+
+            // the first beacon is taken by the blocked worker
+            assertThat(ingestQueue.offer(Beacon.of(Collections.emptyMap()), null)).isTrue();
+            assertThat(workerBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(ingestQueue.offer(Beacon.of(Collections.emptyMap()), null)).isTrue();
+            assertThat(ingestQueue.offer(Beacon.of(Collections.emptyMap()), null)).isTrue();
+            assertThat(ingestQueue.offer(Beacon.of(Collections.emptyMap()), null)).isFalse();
+            assertThat(ingestQueue.size()).isEqualTo(2);
+
+            blockWorker.countDown();
+        }
+
+        @Test
+        public void retryAfter() {
+            ingestQueue.initialize();
+
+            assertThat(ingestQueue.getRetryAfterSeconds()).isEqualTo(5);
+        }
+    }
+
+    @Nested
+    public class Process {
+
+        @Test
+        public void clientContextIsBound() {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.setRemoteAddr("10.0.0.1");
+            ClientContext clientContext = ClientContext.of(request);
+            when(ingestService.ingest(any())).then(i -> {
+                assertThat(ClientContext.current()).isSameAs(clientContext);
+                return true;
+            });
+            ingestQueue.initialize();
+
+            ingestQueue.process(new AsyncBeaconIngestQueue.QueuedBeacon(Beacon.of(Collections.emptyMap()), clientContext));
+
+            verify(ingestService).ingest(any());
+            verifyNoMoreInteractions(ingestService);
+            assertThat(ClientContext.current()).isNull();
+        }
+
+        @Test
+        public void failingBeacon() {
+            when(ingestService.ingest(any())).thenThrow(new RuntimeException());
+            ingestQueue.initialize();
+
+            ingestQueue.process(new AsyncBeaconIngestQueue.QueuedBeacon(Beacon.of(Collections.emptyMap()), null));
+
+            verify(ingestService).ingest(any());
+            verify(ingestService).recordReceived(false);
+            verifyNoMoreInteractions(ingestService);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package rocks.inspectit.oce.eum.server.beacon.ingest;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconFieldUsage;
+import rocks.inspectit.oce.eum.server.beacon.processor.CompositeBeaconProcessor;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.ingestion.ProjectionSettings;
+import rocks.inspectit.oce.eum.server.exporters.beacon.BeaconHttpExporter;
+import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BeaconFieldProjectionTest {
+
+    @InjectMocks
+    private BeaconFieldProjection projection;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EumServerConfiguration configuration;
+
+    @Mock
+    private CompositeBeaconProcessor beaconProcessor;
+
+    @Mock
+    private BeaconFieldUsage beaconFieldUsage;
+
+    @Mock
+    private SelfMonitoringMetricManager selfMonitoring;
+
+    private ProjectionSettings settings;
+
+    @BeforeEach
+    public void beforeEach() {
+        settings = new ProjectionSettings();
+        settings.setEnabled(true);
+        lenient().when(configuration.getIngestion().getProjection()).thenReturn(settings);
+
+        lenient().when(beaconFieldUsage.collectConsumedFields())
+                .thenAnswer(invocation -> new HashSet<>(Arrays.asList("rt.end", "rt.tstart", "t_page", "http.initiator", "URL", "u", "restiming")));
+        lenient().when(beaconProcessor.getInputFields()).thenReturn(ImmutableSet.of("rt.bmr"));
+    }
+
+    private Beacon createBeacon() {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("rt.end", "200");
+        fields.put("rt.tstart", "100");
+        fields.put("rt.bmr", "1,2");
+        fields.put("t_page", "10");
+        fields.put("http.initiator", "xhr");
+        fields.put("u", "http://test");
+        fields.put("URL", "http://test");
+        fields.put("restiming", "{}");
+        fields.put("retained", "yes");
+        fields.put("dom.sz", "1234");
+        return Beacon.of(fields);
+    }
+
+    @Nested
+    public class CollectUsedFields {
+
+        @Test
+        public void allComponents() {
+            assertThat(projection.collectUsedFields()).containsExactlyInAnyOrder("rt.end", "rt.tstart", "t_page", "http.initiator", "URL", "u", "rt.bmr", "restiming");
+        }
+
+        @Test
+        public void undeclaredProcessorFields() {
+            when(beaconProcessor.getInputFields()).thenReturn(null);
+
+            assertThat(projection.collectUsedFields()).isNull();
+        }
+
+        @Test
+        public void undeclaredConsumedFields() {
+            when(beaconFieldUsage.collectConsumedFields()).thenReturn(null);
+
+            assertThat(projection.collectUsedFields()).isNull();
+        }
+    }
+
+    @Nested
+    public class Apply {
+
+        @Test
+        public void dropUnusedFields() {
+            settings.setRetainedFields(Collections.singleton("retained"));
+            projection.initialize();
+
+            Beacon result = projection.apply(createBeacon());
+
+            assertThat(result.toMap()).hasSize(9).doesNotContainKey("dom.sz").contains(entry("retained", "yes"));
+            verify(selfMonitoring).record("beacons_pruned_fields", 1L);
+            verify(selfMonitoring).record("beacons_pruned_bytes", 10L);
+        }
+
+        @Test
+        public void nothingDropped() {
+            settings.setRetainedFields(ImmutableSet.of("retained", "dom.sz"));
+            projection.initialize();
+            Beacon beacon = createBeacon();
+
+            Beacon result = projection.apply(beacon);
+
+            assertThat(result).isSameAs(beacon);
+            verifyNoInteractions(selfMonitoring);
+        }
+
+        @Test
+        public void disabledByUndeclaredFields() {
+            when(beaconProcessor.getInputFields()).thenReturn(null);
+            projection.initialize();
+            Beacon beacon = createBeacon();
+
+            Beacon result = projection.apply(beacon);
+
+            assertThat(result).isSameAs(beacon);
+        }
+
+        @Test
+        public void disabledByExporter() {
+            ReflectionTestUtils.setField(projection, "beaconHttpExporter", mock(BeaconHttpExporter.class));
+            projection.initialize();
+            Beacon beacon = createBeacon();
+
+            Beacon result = projection.apply(beacon);
+
+            assertThat(result).isSameAs(beacon);
+            verify(beaconProcessor, never()).getInputFields();
+        }
+
+        @Test
+        public void exporterWithRetainedFields() {
+            ReflectionTestUtils.setField(projection, "beaconHttpExporter", mock(BeaconHttpExporter.class));
+            settings.setRetainedFields(Collections.singleton("retained"));
+            projection.initialize();
+
+            Beacon result = projection.apply(createBeacon());
+
+            assertThat(result.toMap()).doesNotContainKey("dom.sz");
+            verify(selfMonitoring).record("beacons_pruned_fields", 1L);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package rocks.inspectit.oce.eum.server.beacon.ingest;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.processor.CompositeBeaconProcessor;
+import rocks.inspectit.oce.eum.server.exporters.beacon.BeaconHttpExporter;
+import rocks.inspectit.oce.eum.server.metrics.BeaconMetricManager;
+import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BeaconIngestServiceTest {
+
+    @InjectMocks
+    private BeaconIngestService ingestService;
+
+    @Mock
+    private BeaconMetricManager beaconMetricManager;
+
+    @Mock
+    private CompositeBeaconProcessor beaconProcessor;
+
+    @Mock
+    private SelfMonitoringMetricManager selfMonitoringService;
+
+    @Mock
+    private BeaconHttpExporter beaconHttpExporter;
+
+    @Nested
+    public class Ingest {
+
+        @Test
+        public void successful() {
+            Beacon beacon = Beacon.of(Collections.singletonMap("key", "value"));
+            Beacon processedBeacon = Beacon.of(Collections.singletonMap("key", "processed"));
+            when(beaconProcessor.process(beacon)).thenReturn(processedBeacon);
+            when(beaconMetricManager.processBeacon(any())).thenReturn(true);
+
+            boolean result = ingestService.ingest(beacon);
+
+            verify(beaconProcessor).process(beacon);
+            verify(beaconHttpExporter).export(processedBeacon);
+            verify(beaconMetricManager).processBeacon(processedBeacon);
+            verify(selfMonitoringService).record("beacons_received", 1, Collections.singletonMap("is_error", "false"));
+            verifyNoMoreInteractions(beaconMetricManager, beaconProcessor, selfMonitoringService, beaconHttpExporter);
+
+            assertThat(result).isTrue();
+        }
+
+        @Test
+        public void notSuccessful() {
+            when(beaconProcessor.process(any())).then(i -> i.getArguments()[0]);
+            when(beaconMetricManager.processBeacon(any())).thenReturn(false);
+
+            boolean result = ingestService.ingest(Beacon.of(Collections.emptyMap()));
+
+            verify(beaconProcessor).process(any());
+            verify(beaconHttpExporter).export(any());
+            verify(beaconMetricManager).processBeacon(any());
+            verify(selfMonitoringService).record("beacons_received", 1, Collections.singletonMap("is_error", "true"));
+            verifyNoMoreInteractions(beaconMetricManager, beaconProcessor, selfMonitoringService, beaconHttpExporter);
+
+            assertThat(result).isFalse();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package rocks.inspectit.oce.eum.server.beacon.processor;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures the heap memory allocated by the current thread, which is used to verify the allocations of processors.
+ */
+class AllocationMeasurement {
+
+    /**
+     * The number of warmup iterations, so the measured code has been compiled.
+     */
+    private static final int WARMUP_ITERATIONS = 20_000;
+
+    private static final int MEASURED_ITERATIONS = 1_000;
+
+    /**
+     * Returns the average number of bytes which are allocated by a single execution of the given action. The test is
+     * skipped in case the JVM does not support measuring the allocations of threads.
+     *
+     * @param action the action to measure
+     *
+     * @return the allocated bytes per execution
+     */
+    static long allocatedBytesPerExecution(Runnable action) {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean, "Measuring allocations is not supported.");
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled(), "Measuring allocations is not enabled.");
+
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            action.run();
+        }
+
+        long threadId = Thread.currentThread().threadId();
+        long before = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            action.run();
+        }
+        long after = allocationBean.getThreadAllocatedBytes(threadId);
+        return (after - before) / MEASURED_ITERATIONS;
+    }
+}
@@ -1,6 +1,7 @@
 package rocks.inspectit.oce.eum.server.beacon.processor;
 
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -144,4 +145,21 @@ class BmrBeaconProcessorTest {
                     .contains(entry("rt.bmr", "123,120,,,,1,,,7,,,"), entry("rt.bmr.startTime", "123"), entry("rt.bmr.responseEnd", "120"), entry("rt.bmr.secureConnectionStart", "1"), entry("rt.bmr.domainLookupStart", "7"));
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @Tag("allocation")
+    public class Allocations {
+
+        @Test
+        public void allocationsPerBeacon() {
+            Beacon beacon = Beacon.of(Collections.singletonMap("rt.bmr", "123,120,,,,1,,,7,,,"));
+            Beacon[] result = new Beacon[1];
+
+            long allocatedBytes = AllocationMeasurement.allocatedBytesPerExecution(() -> result[0] = processor.process(beacon));
+
+            // the resulting beacon layer, the four substrings of the values and the arrays collecting the fields
+            assertThat(allocatedBytes).isLessThanOrEqualTo(800);
+            assertThat(result[0].get("rt.bmr.domainLookupStart")).isEqualTo("7");
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockHttpServletRequest;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.utils.ClientContext;
 
 import java.util.Collections;
 
@@ -29,9 +30,7 @@ class ClientHeaderBeaconProcessorTest {
 
         @BeforeEach
         void getCurrentRequest() {
-            processor.requestSupplier = () -> {
-                return request;
-            };
+            processor.clientContextSupplier = () -> ClientContext.of(request);
         }
 
         @Test
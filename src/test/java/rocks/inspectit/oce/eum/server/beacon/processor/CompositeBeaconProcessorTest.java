@@ -2,21 +2,36 @@ package rocks.inspectit.oce.eum.server.beacon.processor;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.assertj.core.api.Assertions;
 import org.assertj.core.data.MapEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconFieldUsage;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.exporters.beacon.BeaconHttpExporter;
 import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
+import rocks.inspectit.oce.eum.server.utils.ClientContext;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -35,12 +50,19 @@ class CompositeBeaconProcessorTest {
     @Mock
     private SelfMonitoringMetricManager selfMonitoring;
 
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EumServerConfiguration configuration;
+
+    @Mock
+    private BeaconFieldUsage beaconFieldUsage;
+
     @Spy
     private List<BeaconProcessor> processorList = ImmutableList.of(beacon -> beacon.merge(ImmutableMap.of("key2", "value2")), beacon -> beacon
             .merge(ImmutableMap.of("key1", "value2")));
 
     @Test
     public void test() {
+        processor.initialize();
         Beacon processedBeacon = processor.process(Beacon.of(ImmutableMap.of("key1", "value1")));
 
         // Ensure value got properly overwritten
@@ -58,4 +80,291 @@ class CompositeBeaconProcessorTest {
         assertThat(tagCaptor.getAllValues()).flatExtracting(Map::entrySet).contains(processorTagEntries);
     }
 
-}
\ No newline at end of file
+    /**
+     * Processor adding a single field with the concatenated values of its input fields.
+     */
+    private static BeaconProcessor fieldProcessor(String output, String... inputs) {
+        return new BeaconProcessor() {
+            @Override
+            public Beacon process(Beacon beacon) {
+                String value = Stream.of(inputs).map(beacon::get).collect(Collectors.joining("|"));
+                return beacon.merge(ImmutableMap.of(output, value));
+            }
+
+            @Override
+            public Set<String> getInputFields() {
+                return ImmutableSet.copyOf(inputs);
+            }
+
+            @Override
+            public Set<String> getOutputFields() {
+                return ImmutableSet.of(output);
+            }
+        };
+    }
+
+    @Nested
+    public class BuildStages {
+
+        @Test
+        public void independentProcessors() {
+            BeaconProcessor first = fieldProcessor("a", "x");
+            BeaconProcessor second = fieldProcessor("b", "y");
+
+            List<List<BeaconProcessor>> stages = CompositeBeaconProcessor.buildStages(Arrays.asList(first, second));
+
+            assertThat(stages).containsExactly(Arrays.asList(first, second));
+        }
+
+        @Test
+        public void dependentProcessors() {
+            BeaconProcessor first = fieldProcessor("a", "x");
+            BeaconProcessor second = fieldProcessor("b", "y");
+            BeaconProcessor third = fieldProcessor("c", "a");
+            BeaconProcessor fourth = fieldProcessor("d", "c", "b");
+
+            List<List<BeaconProcessor>> stages = CompositeBeaconProcessor.buildStages(Arrays.asList(first, second, third, fourth));
+
+            assertThat(stages).containsExactly(Arrays.asList(first, second), Collections.singletonList(third), Collections.singletonList(fourth));
+        }
+
+        @Test
+        public void wildcardOutput() {
+            BeaconProcessor first = mock(BeaconProcessor.class);
+            when(first.getOutputFields()).thenReturn(ImmutableSet.of("client.header.*"));
+            BeaconProcessor second = fieldProcessor("b", "client.header.user-agent");
+
+            List<List<BeaconProcessor>> stages = CompositeBeaconProcessor.buildStages(Arrays.asList(first, second));
+
+            assertThat(stages).containsExactly(Collections.singletonList(first), Collections.singletonList(second));
+        }
+
+        @Test
+        public void undeclaredFields() {
+            BeaconProcessor first = fieldProcessor("a", "x");
+            BeaconProcessor undeclared = beacon -> beacon;
+            BeaconProcessor third = fieldProcessor("c", "y");
+
+            List<List<BeaconProcessor>> stages = CompositeBeaconProcessor.buildStages(Arrays.asList(first, undeclared, third));
+
+            assertThat(stages).containsExactly(Collections.singletonList(first), Collections.singletonList(undeclared), Collections.singletonList(third));
+        }
+
+        @Test
+        public void conflictingWriteNotMovedBeforePrecedingProcessor() {
+            BeaconProcessor first = fieldProcessor("x", "z");
+            BeaconProcessor reader = fieldProcessor("y", "x");
+            BeaconProcessor writer = fieldProcessor("y", "w");
+
+            List<List<BeaconProcessor>> stages = CompositeBeaconProcessor.buildStages(Arrays.asList(first, reader, writer));
+
+            assertThat(stages).containsExactly(Collections.singletonList(first), Arrays.asList(reader, writer));
+        }
+    }
+
+    @Nested
+    public class ParallelProcessing {
+
+        @BeforeEach
+        public void beforeEach() {
+            when(configuration.getProcessing().isParallel()).thenReturn(true);
+        }
+
+        @AfterEach
+        public void afterEach() {
+            processor.destroy();
+        }
+
+        @Test
+        public void sameResultAsSequential() {
+            List<BeaconProcessor> processors = Arrays.asList(fieldProcessor("a", "x"), fieldProcessor("b", "y"), fieldProcessor("x", "y"), fieldProcessor("c", "a", "b"), fieldProcessor("b", "x"));
+            ReflectionTestUtils.setField(processor, "processorList", processors);
+            Beacon beacon = Beacon.of(ImmutableMap.of("x", "1", "y", "2"));
+            Beacon expected = beacon;
+            for (BeaconProcessor beaconProcessor : processors) {
+                expected = beaconProcessor.process(expected);
+            }
+
+            processor.initialize();
+            Beacon result = processor.process(beacon);
+
+            assertThat(result.toMap()).isEqualTo(expected.toMap());
+            assertThat(result.toMap()).containsOnly(entry("x", "2"), entry("y", "2"), entry("a", "1"), entry("b", "2"), entry("c", "1|2"));
+            verify(selfMonitoring, times(processors.size())).record(eq("beacons_processor"), any(), any());
+        }
+
+        @Test
+        public void sameResultAsSequentialWithConflictingWrites() {
+            List<BeaconProcessor> processors = Arrays.asList(fieldProcessor("x", "z"), fieldProcessor("y", "x"), fieldProcessor("y", "w"));
+            ReflectionTestUtils.setField(processor, "processorList", processors);
+            Beacon beacon = Beacon.of(ImmutableMap.of("z", "1", "w", "2"));
+
+            processor.initialize();
+            Beacon result = processor.process(beacon);
+
+            assertThat(result.toMap()).containsOnly(entry("z", "1"), entry("w", "2"), entry("x", "1"), entry("y", "2"));
+        }
+
+        @Test
+        public void sameResultAsSequentialWithManyLayers() {
+            List<BeaconProcessor> processors = Arrays.asList(fieldProcessor("x", "y"), new BeaconProcessor() {
+                @Override
+                public Beacon process(Beacon beacon) {
+                    Beacon result = beacon;
+                    for (int i = 0; i < 10; i++) {
+                        result = result.merge(ImmutableMap.of("layer" + i, String.valueOf(i)));
+                    }
+                    return result;
+                }
+
+                @Override
+                public Set<String> getInputFields() {
+                    return Collections.emptySet();
+                }
+
+                @Override
+                public Set<String> getOutputFields() {
+                    return ImmutableSet.of("layer*");
+                }
+            });
+            ReflectionTestUtils.setField(processor, "processorList", processors);
+            Beacon beacon = Beacon.of(ImmutableMap.of("x", "1", "y", "2"));
+
+            processor.initialize();
+            Beacon result = processor.process(beacon);
+
+            assertThat(result.toMap()).hasSize(12).containsEntry("x", "2").containsEntry("layer0", "0").containsEntry("layer9", "9");
+        }
+
+        @Test
+        public void failingProcessorIsIgnored() {
+            BeaconProcessor failing = new BeaconProcessor() {
+                @Override
+                public Beacon process(Beacon beacon) {
+                    throw new IllegalStateException();
+                }
+
+                @Override
+                public Set<String> getInputFields() {
+                    return Collections.emptySet();
+                }
+
+                @Override
+                public Set<String> getOutputFields() {
+                    return ImmutableSet.of("b");
+                }
+            };
+            ReflectionTestUtils.setField(processor, "processorList", Arrays.asList(fieldProcessor("a", "x"), failing));
+
+            processor.initialize();
+            Beacon result = processor.process(Beacon.of(ImmutableMap.of("x", "1")));
+
+            assertThat(result.toMap()).containsOnly(entry("x", "1"), entry("a", "1"));
+            verify(selfMonitoring).record(eq("beacons_processor"), any(), eq(ImmutableMap.of("beacon_processor", failing.getClass()
+                    .getSimpleName(), "isError", "true")));
+        }
+
+        @Test
+        public void clientContextIsPropagated() {
+            BeaconProcessor addressProcessor = new BeaconProcessor() {
+                @Override
+                public Beacon process(Beacon beacon) {
+                    return beacon.merge(ImmutableMap.of("address", ClientContext.current().getRemoteAddress()));
+                }
+
+                @Override
+                public Set<String> getInputFields() {
+                    return Collections.emptySet();
+                }
+
+                @Override
+                public Set<String> getOutputFields() {
+                    return ImmutableSet.of("address");
+                }
+            };
+            ReflectionTestUtils.setField(processor, "processorList", Arrays.asList(fieldProcessor("a", "x"), addressProcessor));
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.setRemoteAddr("10.0.0.1");
+
+            processor.initialize();
+            Beacon result;
+            try (ClientContext.Scope scope = ClientContext.bind(ClientContext.of(request))) {
+                result = processor.process(Beacon.of(ImmutableMap.of("x", "1")));
+            }
+
+            assertThat(result.get("address")).isEqualTo("10.0.0.1");
+        }
+    }
+
+    @Nested
+    public class SkipUnusedProcessors {
+
+        private final BeaconProcessor consumed = fieldProcessor("a", "x");
+
+        private final BeaconProcessor unused = fieldProcessor("b", "y");
+
+        private final BeaconProcessor indirectlyConsumed = fieldProcessor("c", "z");
+
+        private final BeaconProcessor consumer = fieldProcessor("d", "c");
+
+        @BeforeEach
+        public void beforeEach() {
+            ReflectionTestUtils.setField(processor, "processorList", Arrays.asList(consumed, unused, indirectlyConsumed, consumer));
+            lenient().when(configuration.getProcessing().isSkipUnused()).thenReturn(true);
+            lenient().when(beaconFieldUsage.collectConsumedFields())
+                    .thenAnswer(invocation -> new HashSet<>(Arrays.asList("a", "d")));
+        }
+
+        @Test
+        public void unusedProcessorIsSkipped() {
+            processor.initialize();
+            Beacon result = processor.process(Beacon.of(ImmutableMap.of("x", "1", "y", "2", "z", "3")));
+
+            assertThat(result.toMap()).containsOnly(entry("x", "1"), entry("y", "2"), entry("z", "3"), entry("a", "1"), entry("c", "3"), entry("d", "3"));
+            assertThat(processor.getInputFields()).containsExactlyInAnyOrder("x", "z", "c");
+            assertThat(processor.getProcessorStates()).extracting(CompositeBeaconProcessor.ProcessorState::isEnabled)
+                    .containsExactly(true, false, true, true);
+            assertThat(processor.getProcessorStates()).extracting(CompositeBeaconProcessor.ProcessorState::getStage)
+                    .containsExactly(0, null, 0, 1);
+        }
+
+        @Test
+        public void skippingDisabled() {
+            when(configuration.getProcessing().isSkipUnused()).thenReturn(false);
+
+            processor.initialize();
+
+            assertThat(processor.getProcessorStates()).allMatch(CompositeBeaconProcessor.ProcessorState::isEnabled);
+            verifyNoInteractions(beaconFieldUsage);
+        }
+
+        @Test
+        public void beaconExporterConsumesAllFields() {
+            ReflectionTestUtils.setField(processor, "beaconHttpExporter", mock(BeaconHttpExporter.class));
+
+            processor.initialize();
+
+            assertThat(processor.getProcessorStates()).allMatch(CompositeBeaconProcessor.ProcessorState::isEnabled);
+        }
+
+        @Test
+        public void unknownConsumedFields() {
+            when(beaconFieldUsage.collectConsumedFields()).thenReturn(null);
+
+            processor.initialize();
+
+            assertThat(processor.getProcessorStates()).allMatch(CompositeBeaconProcessor.ProcessorState::isEnabled);
+        }
+
+        @Test
+        public void undeclaredOutputFields() {
+            BeaconProcessor undeclared = beacon -> beacon;
+            ReflectionTestUtils.setField(processor, "processorList", Arrays.asList(unused, undeclared));
+
+            processor.initialize();
+
+            assertThat(processor.getProcessorStates()).extracting(CompositeBeaconProcessor.ProcessorState::isEnabled)
+                    .containsExactly(true, true);
+        }
+    }
+}
@@ -1,22 +1,20 @@
 package rocks.inspectit.oce.eum.server.beacon.processor;
 
 import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockHttpServletRequest;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
 import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
 import rocks.inspectit.oce.eum.server.configuration.model.tags.TagsSettings;
+import rocks.inspectit.oce.eum.server.utils.ClientContext;
 import rocks.inspectit.oce.eum.server.utils.GeolocationResolver;
-import rocks.inspectit.oce.eum.server.utils.IPUtils;
 
 import java.util.Arrays;
 
@@ -35,9 +33,6 @@ class CountryCodeBeaconProcessorTest {
     @Mock
     private GeolocationResolver geolocationResolver;
 
-    @Spy
-    private IPUtils ipUtils = new IPUtils();
-
     @Mock
     private EumServerConfiguration configuration;
 
@@ -49,13 +44,19 @@ class CountryCodeBeaconProcessorTest {
 
     private MockHttpServletRequest request;
 
+    private ClientContext.Scope clientContextScope;
+
     @BeforeEach
     private void initializeBeacon() {
         beacon = Beacon.of(ImmutableMap.of("dummyMetric", "dummyValue"));
         request = new MockHttpServletRequest();
         request.setRemoteAddr(DEFAULT_IP_ADDRESS);
-        ServletRequestAttributes requestAttributes = new ServletRequestAttributes(request);
-        RequestContextHolder.setRequestAttributes(requestAttributes);
+        clientContextScope = ClientContext.bind(ClientContext.of(request));
+    }
+
+    @AfterEach
+    private void closeClientContext() {
+        clientContextScope.close();
     }
 
     @Nested
@@ -65,6 +66,7 @@ class CountryCodeBeaconProcessorTest {
         public void addEmptyCountryCode() {
             when(geolocationResolver.getCountryCode(DEFAULT_IP_ADDRESS)).thenReturn("");
             when(configuration.getTags()).thenReturn(tagsSettings);
+            preProcessor.initialize();
 
             Beacon b = preProcessor.process(beacon);
             assertThat(b.get(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isEqualTo("");
@@ -74,6 +76,7 @@ class CountryCodeBeaconProcessorTest {
         public void addGeoIPDBCountryCode() {
             when(geolocationResolver.getCountryCode(DEFAULT_IP_ADDRESS)).thenReturn("DE");
             when(configuration.getTags()).thenReturn(tagsSettings);
+            preProcessor.initialize();
 
             Beacon b = preProcessor.process(beacon);
             assertThat(b.contains(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isTrue();
@@ -84,6 +87,7 @@ class CountryCodeBeaconProcessorTest {
         public void addCustomLabelIPMatches() {
             tagsSettings.getCustomIPMapping().put("CUSTOM_TAG_1", Arrays.asList(new String[]{"10.10.10.10"}));
             when(configuration.getTags()).thenReturn(tagsSettings);
+            preProcessor.initialize();
 
             Beacon b = preProcessor.process(beacon);
             assertThat(b.get(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isEqualTo("CUSTOM_TAG_1");
@@ -95,6 +99,7 @@ class CountryCodeBeaconProcessorTest {
 
             when(geolocationResolver.getCountryCode(DEFAULT_IP_ADDRESS)).thenReturn("DE");
             when(configuration.getTags()).thenReturn(tagsSettings);
+            preProcessor.initialize();
 
             Beacon b = preProcessor.process(beacon);
             assertThat(b.get(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isEqualTo("DE");
@@ -106,6 +111,7 @@ class CountryCodeBeaconProcessorTest {
 
             when(geolocationResolver.getCountryCode(DEFAULT_IP_ADDRESS)).thenReturn("DE");
             when(configuration.getTags()).thenReturn(tagsSettings);
+            preProcessor.initialize();
 
             Beacon b = preProcessor.process(beacon);
             assertThat(b.get(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isEqualTo("DE");
@@ -115,6 +121,7 @@ class CountryCodeBeaconProcessorTest {
         public void addCustomLabelCIDRMatches1() {
             tagsSettings.getCustomIPMapping().put("CUSTOM_TAG_1", Arrays.asList(new String[]{"10.10.0.0/16"}));
             when(configuration.getTags()).thenReturn(tagsSettings);
+            preProcessor.initialize();
 
             Beacon b = preProcessor.process(beacon);
             assertThat(b.get(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isEqualTo("CUSTOM_TAG_1");
@@ -125,33 +132,50 @@ class CountryCodeBeaconProcessorTest {
             tagsSettings.getCustomIPMapping().put("CUSTOM_TAG_1", Arrays.asList(new String[]{"10.11.0.0/16"}));
             tagsSettings.getCustomIPMapping().put("CUSTOM_TAG_2", Arrays.asList(new String[]{"10.10.0.0/16"}));
             when(configuration.getTags()).thenReturn(tagsSettings);
+            preProcessor.initialize();
 
             Beacon b = preProcessor.process(beacon);
             assertThat(b.get(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isEqualTo("CUSTOM_TAG_2");
         }
 
         @Test
-        public void respectForwardedHeader() {
+        public void addCustomLabelMostSpecificCIDRMatches() {
+            tagsSettings.getCustomIPMapping().put("CUSTOM_TAG_1", Arrays.asList(new String[]{"10.0.0.0/8", "10.10.10.0/24"}));
+            tagsSettings.getCustomIPMapping().put("CUSTOM_TAG_2", Arrays.asList(new String[]{"11.10.10.0/24"}));
+            assertThat(tagsSettings.isCustomIPMappingValid()).isTrue();
+            assertThat(tagsSettings.isCheckIpRangesDoNotOverlap()).isTrue();
+            when(configuration.getTags()).thenReturn(tagsSettings);
+            preProcessor.initialize();
+
+            Beacon b = preProcessor.process(beacon);
+            assertThat(b.get(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isEqualTo("CUSTOM_TAG_1");
+        }
+
+        @Test
+        public void useClientAddressOfContext() {
             when(geolocationResolver.getCountryCode("10.0.0.0")).thenReturn("DE");
             when(configuration.getTags()).thenReturn(tagsSettings);
-            request.addHeader("X-Forwarded-For", "10.0.0.0");
+            preProcessor.initialize();
+            ClientContext clientContext = ClientContext.of(request, context -> "10.0.0.0");
 
-            Beacon result = preProcessor.process(beacon);
+            Beacon result;
+            try (ClientContext.Scope scope = ClientContext.bind(clientContext)) {
+                result = preProcessor.process(beacon);
+            }
 
             assertThat(result.contains(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isTrue();
             assertThat(result.get(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isEqualTo("DE");
         }
 
         @Test
-        public void respectForwardedHeader_multiValue() {
-            when(geolocationResolver.getCountryCode("10.0.0.0")).thenReturn("DE");
+        public void noClientContext() {
             when(configuration.getTags()).thenReturn(tagsSettings);
-            request.addHeader("X-Forwarded-For", new String[]{"10.0.0.0", "10.0.0.1"});
+            preProcessor.initialize();
+            clientContextScope.close();
 
             Beacon result = preProcessor.process(beacon);
 
-            assertThat(result.contains(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isTrue();
-            assertThat(result.get(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isEqualTo("DE");
+            assertThat(result.get(CountryCodeBeaconProcessor.TAG_COUNTRY_CODE)).isEmpty();
         }
     }
 }
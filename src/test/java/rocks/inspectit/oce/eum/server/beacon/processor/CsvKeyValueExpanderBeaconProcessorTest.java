@@ -1,6 +1,7 @@
 package rocks.inspectit.oce.eum.server.beacon.processor;
 
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -8,6 +9,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
 
 import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.entry;
@@ -61,5 +64,54 @@ class CsvKeyValueExpanderBeaconProcessorTest {
                     entry("t_other.value", "123"),
                     entry("t_other.another_value", "321"));
         }
+
+        @Test
+        public void invalidGroups() {
+            Beacon beacon = Beacon.of(Collections.singletonMap("t_other", "a|1|2,b|,c||,d|4|,,|5,e||6,f"));
+
+            Beacon result = processor.process(beacon);
+
+            assertThat(result.toMap()).containsOnly(
+                    entry("t_other", "a|1|2,b|,c||,d|4|,,|5,e||6,f"),
+                    entry("t_other.d", "4"),
+                    entry("t_other.", "5"));
+        }
+
+        @Test
+        public void duplicateKeys() {
+            Beacon beacon = Beacon.of(Collections.singletonMap("t_other", "a|1,a|2"));
+
+            Beacon result = processor.process(beacon);
+
+            assertThat(result.toMap()).containsOnly(entry("t_other", "a|1,a|2"), entry("t_other.a", "2"));
+        }
+
+        @Test
+        public void manyGroups() {
+            String attribute = IntStream.range(0, 20).mapToObj(i -> "key" + i + "|" + i).collect(Collectors.joining(","));
+            Beacon beacon = Beacon.of(Collections.singletonMap("t_other", attribute));
+
+            Beacon result = processor.process(beacon);
+
+            assertThat(result.toMap()).hasSize(21).contains(entry("t_other.key0", "0"), entry("t_other.key19", "19"));
+        }
+    }
+
+    @Nested
+    @Tag("allocation")
+    public class Allocations {
+
+        @Test
+        public void allocationsPerBeacon() {
+            Beacon beacon = Beacon.of(Collections.singletonMap("t_other", "t_domloaded|437,boomerang|12,boomr_fb|35"));
+            Beacon[] result = new Beacon[1];
+
+            long allocatedBytes = AllocationMeasurement.allocatedBytesPerExecution(() -> result[0] = processor.process(beacon));
+
+            // the resulting beacon layer including its map of unregistered fields, the field names and values and the
+            // arrays collecting the fields
+            assertThat(allocatedBytes).isLessThanOrEqualTo(1400);
+            assertThat(result[0].get("t_other.boomr_fb")).isEqualTo("35");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package rocks.inspectit.oce.eum.server.beacon.processor;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.PatternAndReplacement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class PatternRuleSetTest {
+
+    private static PatternAndReplacement rule(String pattern, String replacement) {
+        return PatternAndReplacement.builder().pattern(pattern).replacement(replacement).build();
+    }
+
+    @Nested
+    class Apply {
+
+        @Test
+        void firstMatchingRule() {
+            PatternRuleSet ruleSet = new PatternRuleSet(Arrays.asList(
+                    rule("/user/\\d+/orders", "/user/{id}/orders"),
+                    rule("/user/\\d+", "/user/{id}"),
+                    rule("/user/.*", "/user/*")));
+
+            assertThat(ruleSet.apply("/user/42")).isEqualTo("/user/{id}");
+            assertThat(ruleSet.apply("/user/42/orders")).isEqualTo("/user/{id}/orders");
+            assertThat(ruleSet.apply("/user/42/invoices")).isEqualTo("/user/*");
+        }
+
+        @Test
+        void wholeInputHasToMatch() {
+            PatternRuleSet ruleSet = new PatternRuleSet(Arrays.asList(rule("/user/\\d+", "/user/{id}")));
+
+            assertThat(ruleSet.apply("/user/42/orders")).isNull();
+            assertThat(ruleSet.apply("/admin/user/42")).isNull();
+        }
+
+        @Test
+        void priorityOfRulesWithoutPrefix() {
+            PatternRuleSet ruleSet = new PatternRuleSet(Arrays.asList(
+                    rule("/static/.*", "static"),
+                    rule(".*\\.js", "script"),
+                    rule("/static/lib/.*", "library")));
+
+            assertThat(ruleSet.apply("/static/lib/app.js")).isEqualTo("static");
+            assertThat(ruleSet.apply("/lib/app.js")).isEqualTo("script");
+        }
+
+        @Test
+        void captureGroups() {
+            PatternRuleSet ruleSet = new PatternRuleSet(Arrays.asList(rule("^/(shop|store)/(\\w+)/\\d+$", "/$1/$2/{id}")));
+
+            assertThat(ruleSet.apply("/store/item/12")).isEqualTo("/store/item/{id}");
+        }
+
+        @Test
+        void manyRules() {
+            List<PatternAndReplacement> rules = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                rules.add(rule("/service" + i + "/user/\\d+", "/service" + i + "/user/{id}"));
+            }
+            PatternRuleSet ruleSet = new PatternRuleSet(rules);
+
+            assertThat(ruleSet.apply("/service1/user/5")).isEqualTo("/service1/user/{id}");
+            assertThat(ruleSet.apply("/service999/user/5")).isEqualTo("/service999/user/{id}");
+            assertThat(ruleSet.apply("/service1000/user/5")).isNull();
+        }
+
+        @Test
+        void invalidPattern() {
+            assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> new PatternRuleSet(Arrays.asList(rule("(", "x"))));
+        }
+    }
+
+    @Nested
+    class LiteralPrefix {
+
+        @Test
+        void literalCharacters() {
+            assertThat(PatternRuleSet.literalPrefix("^/user/\\d+$")).isEqualTo("/user/");
+        }
+
+        @Test
+        void escapedCharacters() {
+            assertThat(PatternRuleSet.literalPrefix("\\/api\\.v1\\/.*")).isEqualTo("/api.v1/");
+        }
+
+        @Test
+        void optionalCharacter() {
+            assertThat(PatternRuleSet.literalPrefix("/users?/\\d+")).isEqualTo("/user");
+            assertThat(PatternRuleSet.literalPrefix("/ab*")).isEqualTo("/a");
+            assertThat(PatternRuleSet.literalPrefix("/ab{0,2}")).isEqualTo("/a");
+        }
+
+        @Test
+        void repeatedCharacter() {
+            assertThat(PatternRuleSet.literalPrefix("/a+b")).isEqualTo("/a");
+        }
+
+        @Test
+        void noPrefix() {
+            assertThat(PatternRuleSet.literalPrefix(".*\\.js")).isEmpty();
+            assertThat(PatternRuleSet.literalPrefix("(?i)/user")).isEmpty();
+            assertThat(PatternRuleSet.literalPrefix("/user|/admin")).isEmpty();
+        }
+    }
+}
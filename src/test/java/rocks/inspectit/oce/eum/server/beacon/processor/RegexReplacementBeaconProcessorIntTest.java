@@ -16,13 +16,19 @@ class RegexReplacementBeaconProcessorIntTest {
     @Autowired
     private RegexReplacementBeaconProcessor processor;
 
+    /**
+     * The URL tags of the default configuration use the fields of the URL decomposition.
+     */
+    @Autowired
+    private UrlDecompositionBeaconProcessor urlProcessor;
+
     @Test
     void testRemoveQueryParameters() {
         Beacon in = Beacon.of(ImmutableMap.of(
                 "u", "http://localhost:8080/a/b?param1=value1&param2=value2",
                 "pgu", "http://otherhost:8081/foo/bar?foo=bar")
         );
-        Beacon b = processor.process(in);
+        Beacon b = processor.process(urlProcessor.process(in));
 
         assertThat(b.get("U_NO_QUERY")).isEqualTo("http://localhost:8080/a/b");
         assertThat(b.get("U_PATH")).isEqualTo("/a/b");
@@ -39,7 +45,7 @@ class RegexReplacementBeaconProcessorIntTest {
         Beacon in = Beacon.of(ImmutableMap.of(
                 "u", "http://localhost/a/b?match[]={t=33}&parmam2=value1")
         );
-        Beacon b = processor.process(in);
+        Beacon b = processor.process(urlProcessor.process(in));
         assertThat(b.get("U_NO_QUERY")).isEqualTo("http://localhost/a/b");
         assertThat(b.get("U_PATH")).isEqualTo("/a/b");
         assertThat(b.get("U_HOST")).isEqualTo("localhost");
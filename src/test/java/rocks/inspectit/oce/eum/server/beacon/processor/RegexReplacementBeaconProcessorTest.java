@@ -3,17 +3,23 @@ package rocks.inspectit.oce.eum.server.beacon.processor;
 import com.google.common.collect.ImmutableMap;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.BeaconTagCacheSettings;
 import rocks.inspectit.oce.eum.server.configuration.model.tags.BeaconTagSettings;
 import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
 import rocks.inspectit.oce.eum.server.configuration.model.tags.TagsSettings;
 import rocks.inspectit.oce.eum.server.configuration.model.tags.PatternAndReplacement;
+import rocks.inspectit.oce.eum.server.configuration.model.tags.RuleSetSettings;
+import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 public class RegexReplacementBeaconProcessorTest {
 
@@ -331,5 +337,175 @@ public class RegexReplacementBeaconProcessorTest {
                     entry("value", "Hello Earth")
             );
         }
+    
+        @Test
+        void invalidPatternSkipsTag() {
+            BeaconTagSettings broken = BeaconTagSettings.builder()
+                    .input("value")
+                    .replacements(Arrays.asList(PatternAndReplacement.builder().pattern("(unclosed").replacement("x").build()))
+                    .build();
+            BeaconTagSettings valid = BeaconTagSettings.builder()
+                    .input("value")
+                    .replacements(Arrays.asList(PatternAndReplacement.builder().pattern("Hello").replacement("Bye").build()))
+                    .build();
+
+            Map<String, BeaconTagSettings> beaconTags = new LinkedHashMap<>();
+            beaconTags.put("broken", broken);
+            beaconTags.put("valid", valid);
+
+            EumServerConfiguration conf = new EumServerConfiguration();
+            conf.setTags(new TagsSettings());
+            conf.getTags().setBeacon(beaconTags);
+
+            RegexReplacementBeaconProcessor processor = new RegexReplacementBeaconProcessor(conf);
+
+            Beacon result = processor.process(Beacon.of(ImmutableMap.of("value", "Hello Earth")));
+
+            assertThat(result.toMap()).containsOnly(
+                    entry("value", "Hello Earth"),
+                    entry("valid", "Bye Earth")
+            );
+        }
+    }
+
+    @Nested
+    class Caching {
+
+        private RegexReplacementBeaconProcessor createProcessor(Map<String, BeaconTagSettings> beaconTags) {
+            EumServerConfiguration conf = new EumServerConfiguration();
+            conf.setTags(new TagsSettings());
+            conf.getTags().setBeacon(beaconTags);
+            return new RegexReplacementBeaconProcessor(conf);
+        }
+
+        @Test
+        void dependentTagsCached() {
+            BeaconTagSettings first = BeaconTagSettings.builder()
+                    .input("in")
+                    .replacements(Arrays.asList(PatternAndReplacement.builder().pattern("Hello").replacement("Bye").build()))
+                    .cache(BeaconTagCacheSettings.builder().maxSize(10).build())
+                    .build();
+            BeaconTagSettings second = BeaconTagSettings.builder()
+                    .input("first")
+                    .replacements(Arrays.asList(PatternAndReplacement.builder().pattern("World").replacement("Earth").build()))
+                    .cache(BeaconTagCacheSettings.builder().maxSize(10).build())
+                    .build();
+            Map<String, BeaconTagSettings> beaconTags = new LinkedHashMap<>();
+            beaconTags.put("second", second);
+            beaconTags.put("first", first);
+            RegexReplacementBeaconProcessor processor = createProcessor(beaconTags);
+
+            Beacon resultA = processor.process(Beacon.of(ImmutableMap.of("in", "Hello World")));
+            Beacon resultB = processor.process(Beacon.of(ImmutableMap.of("in", "Hello World!")));
+            Beacon resultC = processor.process(Beacon.of(ImmutableMap.of("in", "Hello World")));
+
+            assertThat(resultA.toMap()).contains(entry("first", "Bye World"), entry("second", "Bye Earth"));
+            assertThat(resultB.toMap()).contains(entry("first", "Bye World!"), entry("second", "Bye Earth!"));
+            assertThat(resultC.toMap()).contains(entry("first", "Bye World"), entry("second", "Bye Earth"));
+        }
+
+        @Test
+        void missingResultCached() {
+            BeaconTagSettings tag = BeaconTagSettings.builder()
+                    .input("in")
+                    .replacements(Arrays.asList(PatternAndReplacement.builder()
+                            .pattern("Hello")
+                            .replacement("Bye")
+                            .keepNoMatch(false)
+                            .build()))
+                    .cache(BeaconTagCacheSettings.builder().maxSize(10).build())
+                    .build();
+            RegexReplacementBeaconProcessor processor = createProcessor(ImmutableMap.of("out", tag));
+
+            Beacon resultA = processor.process(Beacon.of(ImmutableMap.of("in", "World")));
+            Beacon resultB = processor.process(Beacon.of(ImmutableMap.of("in", "World")));
+
+            assertThat(resultA.toMap()).containsOnly(entry("in", "World"));
+            assertThat(resultB.toMap()).containsOnly(entry("in", "World"));
+        }
+
+        @Test
+        void recordStatistics() {
+            BeaconTagSettings tag = BeaconTagSettings.builder()
+                    .input("in")
+                    .cache(BeaconTagCacheSettings.builder().maxSize(1).ttl(Duration.ofMinutes(1)).build())
+                    .build();
+            RegexReplacementBeaconProcessor processor = createProcessor(ImmutableMap.of("out", tag));
+            SelfMonitoringMetricManager selfMonitoring = mock(SelfMonitoringMetricManager.class);
+            ReflectionTestUtils.setField(processor, "selfMonitoring", selfMonitoring);
+
+            processor.process(Beacon.of(ImmutableMap.of("in", "first")));
+            processor.process(Beacon.of(ImmutableMap.of("in", "first")));
+            processor.process(Beacon.of(ImmutableMap.of("in", "second")));
+            processor.recordCacheStatistics();
+
+            verify(selfMonitoring).record("beacon_tag_cache", 1L, ImmutableMap.of("tag", "out", "event", "hit"));
+            verify(selfMonitoring).record("beacon_tag_cache", 2L, ImmutableMap.of("tag", "out", "event", "miss"));
+            verify(selfMonitoring).record("beacon_tag_cache", 1L, ImmutableMap.of("tag", "out", "event", "eviction"));
+
+            processor.recordCacheStatistics();
+
+            verifyNoMoreInteractions(selfMonitoring);
+        }
+    }
+
+    @Nested
+    class RuleSet {
+
+        private RegexReplacementBeaconProcessor createProcessor(BeaconTagSettings tag) {
+            EumServerConfiguration conf = new EumServerConfiguration();
+            conf.setTags(new TagsSettings());
+            conf.getTags().setBeacon(ImmutableMap.of("out", tag));
+            return new RegexReplacementBeaconProcessor(conf);
+        }
+
+        @Test
+        void appliedAfterReplacements() {
+            BeaconTagSettings tag = BeaconTagSettings.builder()
+                    .input("in")
+                    .replacements(Arrays.asList(PatternAndReplacement.builder().pattern("\\?.*").replacement("").build()))
+                    .ruleSet(RuleSetSettings.builder()
+                            .rules(Arrays.asList(
+                                    PatternAndReplacement.builder().pattern("/user/\\d+").replacement("/user/{id}").build(),
+                                    PatternAndReplacement.builder().pattern("/item/\\d+").replacement("/item/{id}").build()))
+                            .build())
+                    .build();
+            RegexReplacementBeaconProcessor processor = createProcessor(tag);
+
+            Beacon result = processor.process(Beacon.of(ImmutableMap.of("in", "/item/12?x=1")));
+
+            assertThat(result.toMap()).contains(entry("out", "/item/{id}"));
+        }
+
+        @Test
+        void keepNoMatch() {
+            BeaconTagSettings tag = BeaconTagSettings.builder()
+                    .input("in")
+                    .ruleSet(RuleSetSettings.builder()
+                            .rules(Arrays.asList(PatternAndReplacement.builder().pattern("/user/\\d+").replacement("/user/{id}").build()))
+                            .build())
+                    .build();
+            RegexReplacementBeaconProcessor processor = createProcessor(tag);
+
+            Beacon result = processor.process(Beacon.of(ImmutableMap.of("in", "/other")));
+
+            assertThat(result.toMap()).contains(entry("out", "/other"));
+        }
+
+        @Test
+        void discardNoMatch() {
+            BeaconTagSettings tag = BeaconTagSettings.builder()
+                    .input("in")
+                    .ruleSet(RuleSetSettings.builder()
+                            .rules(Arrays.asList(PatternAndReplacement.builder().pattern("/user/\\d+").replacement("/user/{id}").build()))
+                            .keepNoMatch(false)
+                            .build())
+                    .build();
+            RegexReplacementBeaconProcessor processor = createProcessor(tag);
+
+            Beacon result = processor.process(Beacon.of(ImmutableMap.of("in", "/other")));
+
+            assertThat(result.toMap()).containsOnly(entry("in", "/other"));
+        }
     }
 }
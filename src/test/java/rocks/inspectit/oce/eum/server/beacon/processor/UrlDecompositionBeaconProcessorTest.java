@@ -0,0 +1,149 @@
+package rocks.inspectit.oce.eum.server.beacon.processor;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.processing.ProcessingSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.processing.UrlDecompositionSettings;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class UrlDecompositionBeaconProcessorTest {
+
+    private UrlDecompositionBeaconProcessor createProcessor(boolean pathTemplate, String... fields) {
+        UrlDecompositionSettings settings = new UrlDecompositionSettings();
+        settings.setFields(Arrays.asList(fields));
+        settings.setPathTemplate(pathTemplate);
+        EumServerConfiguration configuration = new EumServerConfiguration();
+        configuration.setProcessing(new ProcessingSettings());
+        configuration.getProcessing().setUrlDecomposition(settings);
+        return new UrlDecompositionBeaconProcessor(configuration);
+    }
+
+    @Nested
+    class Process {
+
+        @Test
+        void fullUrl() {
+            UrlDecompositionBeaconProcessor processor = createProcessor(false, "u");
+
+            Beacon result = processor.process(Beacon.of(ImmutableMap.of("u", "https://user@example.com:8443/a/b?x=1#top")));
+
+            assertThat(result.toMap()).containsOnly(
+                    entry("u", "https://user@example.com:8443/a/b?x=1#top"),
+                    entry("u.scheme", "https"),
+                    entry("u.host", "example.com"),
+                    entry("u.port", "8443"),
+                    entry("u.path", "/a/b"),
+                    entry("u.no_query", "https://user@example.com:8443/a/b")
+            );
+        }
+
+        @Test
+        void withoutPortAndPath() {
+            UrlDecompositionBeaconProcessor processor = createProcessor(false, "u");
+
+            Beacon result = processor.process(Beacon.of(ImmutableMap.of("u", "http://localhost")));
+
+            assertThat(result.toMap()).containsOnly(
+                    entry("u", "http://localhost"),
+                    entry("u.scheme", "http"),
+                    entry("u.host", "localhost"),
+                    entry("u.path", ""),
+                    entry("u.no_query", "http://localhost")
+            );
+        }
+
+        @Test
+        void ipv6Host() {
+            UrlDecompositionBeaconProcessor processor = createProcessor(false, "u");
+
+            Beacon result = processor.process(Beacon.of(ImmutableMap.of("u", "http://[::1]:8080/path")));
+
+            assertThat(result.toMap()).contains(entry("u.host", "[::1]"), entry("u.port", "8080"), entry("u.path", "/path"));
+        }
+
+        @Test
+        void relativeUrl() {
+            UrlDecompositionBeaconProcessor processor = createProcessor(false, "u");
+
+            Beacon result = processor.process(Beacon.of(ImmutableMap.of("u", "/a/b?x=1")));
+
+            assertThat(result.toMap()).containsOnly(entry("u", "/a/b?x=1"), entry("u.no_query", "/a/b"));
+        }
+
+        @Test
+        void multipleFields() {
+            UrlDecompositionBeaconProcessor processor = createProcessor(false, "u", "pgu");
+
+            Beacon result = processor.process(Beacon.of(ImmutableMap.of("u", "http://a.com/x", "pgu", "http://b.com/y")));
+
+            assertThat(result.toMap()).contains(entry("u.host", "a.com"), entry("pgu.host", "b.com"));
+            assertThat(processor.getInputFields()).containsExactlyInAnyOrder("u", "pgu");
+        }
+
+        @Test
+        void missingField() {
+            UrlDecompositionBeaconProcessor processor = createProcessor(false, "u");
+            Beacon beacon = Beacon.of(ImmutableMap.of("pgu", "http://b.com/y"));
+
+            Beacon result = processor.process(beacon);
+
+            assertThat(result.toMap()).containsOnly(entry("pgu", "http://b.com/y"));
+        }
+
+        @Test
+        void pathTemplate() {
+            UrlDecompositionBeaconProcessor processor = createProcessor(true, "u");
+
+            Beacon result = processor.process(Beacon.of(ImmutableMap.of("u", "http://a.com/user/42/orders?x=1")));
+
+            assertThat(result.toMap()).contains(entry("u.path", "/user/42/orders"), entry("u.path_template", "/user/{id}/orders"));
+        }
+
+        @Test
+        void notConfigured() {
+            UrlDecompositionBeaconProcessor processor = new UrlDecompositionBeaconProcessor(new EumServerConfiguration());
+            Beacon beacon = Beacon.of(ImmutableMap.of("u", "http://a.com/x"));
+
+            assertThat(processor.process(beacon)).isSameAs(beacon);
+        }
+    }
+
+    @Nested
+    class ToPathTemplate {
+
+        @Test
+        void withoutIdentifiers() {
+            String path = "/shop/products/list";
+
+            assertThat(UrlDecompositionBeaconProcessor.toPathTemplate(path)).isSameAs(path);
+        }
+
+        @Test
+        void numbers() {
+            assertThat(UrlDecompositionBeaconProcessor.toPathTemplate("/user/123/order/4/")).isEqualTo("/user/{id}/order/{id}/");
+        }
+
+        @Test
+        void uuid() {
+            assertThat(UrlDecompositionBeaconProcessor.toPathTemplate("/item/123e4567-e89b-12d3-a456-426614174000/details"))
+                    .isEqualTo("/item/{id}/details");
+        }
+
+        @Test
+        void hexHash() {
+            assertThat(UrlDecompositionBeaconProcessor.toPathTemplate("/file/9f86d081884c7d65/raw/cafebabe")).isEqualTo("/file/{id}/raw/cafebabe");
+        }
+
+        @Test
+        void emptyPath() {
+            assertThat(UrlDecompositionBeaconProcessor.toPathTemplate("")).isEqualTo("");
+        }
+    }
+}
@@ -94,6 +94,50 @@ class TagsSettingsTest {
         }
     }
 
+    @Nested
+    public class IsCustomIPMappingValid {
+
+        @Test
+        public void validAddresses() {
+            TagsSettings settings = new TagsSettings();
+            settings.getCustomIPMapping().put("GER", Arrays.asList(new String[]{"10.0.0.0/8", "127.0.0.1", "fc00::/7"}));
+
+            boolean result = settings.isCustomIPMappingValid();
+
+            assertThat(result).isTrue();
+        }
+
+        @Test
+        public void leadingZeros() {
+            TagsSettings settings = new TagsSettings();
+            settings.getCustomIPMapping().put("GER", Arrays.asList(new String[]{"010.0.0.0/8"}));
+
+            boolean result = settings.isCustomIPMappingValid();
+
+            assertThat(result).isFalse();
+        }
+
+        @Test
+        public void invalidPrefixLength() {
+            TagsSettings settings = new TagsSettings();
+            settings.getCustomIPMapping().put("GER", Arrays.asList(new String[]{"10.0.0.0/33"}));
+
+            boolean result = settings.isCustomIPMappingValid();
+
+            assertThat(result).isFalse();
+        }
+
+        @Test
+        public void invalidAddress() {
+            TagsSettings settings = new TagsSettings();
+            settings.getCustomIPMapping().put("GER", Arrays.asList(new String[]{"10.0.0"}));
+
+            boolean result = settings.isCustomIPMappingValid();
+
+            assertThat(result).isFalse();
+        }
+    }
+
     @Nested
     public class IsCheckIPsRangesDoNotOverlap {
 
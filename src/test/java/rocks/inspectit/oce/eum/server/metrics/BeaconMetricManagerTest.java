@@ -10,6 +10,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import rocks.inspectit.oce.eum.server.arithmetic.RawExpression;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
 import rocks.inspectit.oce.eum.server.beacon.recorder.BeaconRecorder;
 import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.BeaconMetricDefinitionSettings;
@@ -154,5 +156,53 @@ public class BeaconMetricManagerTest {
             verifyNoMoreInteractions(viewManager, statsRecorder);
         }
 
+        @Test
+        void measuresRecordedInSingleBatch() {
+            BeaconMetricDefinitionSettings doubledDefinition = BeaconMetricDefinitionSettings.beaconMetricBuilder()
+                    .valueExpression("{dummy_beacon_field} * 2")
+                    .type(MetricDefinitionSettings.MeasureType.DOUBLE)
+                    .unit("ms")
+                    .enabled(true)
+                    .build();
+            definitionMap.put("Doubled metric name", doubledDefinition);
+            when(configuration.getDefinitions()).thenReturn(definitionMap);
+            MeasuresAndViewsManager.MeasureBatch measureBatch = mock(MeasuresAndViewsManager.MeasureBatch.class);
+            when(measuresAndViewsManager.newMeasureBatch()).thenReturn(measureBatch);
+            HashMap<String, String> beaconMap = new HashMap<>();
+            beaconMap.put("dummy_beacon_field", "5");
+
+            boolean result = beaconMetricManager.processBeacon(Beacon.of(beaconMap));
+
+            assertThat(result).isTrue();
+            verify(measureBatch).put("Dummy metric name", definitionMap.get("Dummy metric name"), 5D);
+            verify(measureBatch).put("Doubled metric name", doubledDefinition, 10D);
+            verify(measureBatch).record(any());
+            verify(measuresAndViewsManager).getTagContext();
+            verifyNoMoreInteractions(measureBatch);
+        }
+
+        @Test
+        void expressionsAreOnlyCompiledByPlan() {
+            definitionMap.clear();
+            for (String name : Arrays.asList("Doubled metric name", "Duplicate metric name")) {
+                definitionMap.put(name, BeaconMetricDefinitionSettings.beaconMetricBuilder()
+                        .valueExpression("{dummy_beacon_field} * 2")
+                        .type(MetricDefinitionSettings.MeasureType.DOUBLE)
+                        .unit("ms")
+                        .enabled(true)
+                        .build());
+            }
+            when(configuration.getDefinitions()).thenReturn(definitionMap);
+            when(configuration.getExpressions().isCompile()).thenReturn(true);
+
+            beaconMetricManager.processBeacon(Beacon.of(Collections.emptyMap()));
+
+            Object plannedDefinitions = ReflectionTestUtils.getField(beaconMetricManager, "plannedDefinitions");
+            RawExpression[] expressions = (RawExpression[]) ReflectionTestUtils.getField(plannedDefinitions, "expressions");
+            assertThat(expressions).hasSize(2).allSatisfy(expression -> assertThat(ReflectionTestUtils.getField(expression, "evaluator"))
+                    .isSameAs(ReflectionTestUtils.getField(expression, "tree")));
+            Object[] compiledRoots = (Object[]) ReflectionTestUtils.getField(ReflectionTestUtils.getField(plannedDefinitions, "plan"), "compiledRoots");
+            assertThat(compiledRoots[0]).isNotNull().isSameAs(compiledRoots[1]);
+        }
     }
 }
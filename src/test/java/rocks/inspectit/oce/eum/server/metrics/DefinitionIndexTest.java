@@ -0,0 +1,109 @@
+package rocks.inspectit.oce.eum.server.metrics;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import rocks.inspectit.oce.eum.server.arithmetic.RawExpression;
+import rocks.inspectit.oce.eum.server.beacon.Beacon;
+import rocks.inspectit.oce.eum.server.beacon.BeaconField;
+import rocks.inspectit.oce.eum.server.configuration.model.exporters.beacon.InitiatorType;
+import rocks.inspectit.oce.eum.server.configuration.model.metric.definition.BeaconRequirement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DefinitionIndexTest {
+
+    private static BeaconRequirement requirement(BeaconRequirement.RequirementType type, String field) {
+        BeaconRequirement requirement = new BeaconRequirement();
+        requirement.setRequirement(type);
+        requirement.setField(field);
+        return requirement;
+    }
+
+    private static BeaconRequirement initiatorRequirement(InitiatorType initiator) {
+        BeaconRequirement requirement = new BeaconRequirement();
+        requirement.setRequirement(BeaconRequirement.RequirementType.HAS_INITIATOR);
+        requirement.setInitiators(Collections.singletonList(initiator));
+        return requirement;
+    }
+
+    @Nested
+    public class Select {
+
+        @Test
+        public void sameResultsAsRequirementsAndExpressions() {
+            List<List<BeaconRequirement>> requirements = new ArrayList<>();
+            List<RawExpression> expressions = new ArrayList<>();
+            // more than 64 fields, so multiple words are used by the masks
+            for (int i = 0; i < 100; i++) {
+                List<BeaconRequirement> definitionRequirements = new ArrayList<>();
+                if (i % 2 == 0) {
+                    definitionRequirements.add(requirement(BeaconRequirement.RequirementType.EXISTS, "index.required." + i));
+                }
+                if (i % 3 == 0) {
+                    definitionRequirements.add(requirement(BeaconRequirement.RequirementType.NOT_EXISTS, "index.forbidden." + i % 7));
+                }
+                if (i % 5 == 0) {
+                    definitionRequirements.add(initiatorRequirement(InitiatorType.XHR));
+                }
+                requirements.add(i % 11 == 0 ? null : definitionRequirements);
+                expressions.add(new RawExpression("{index.value." + i + "} - {index.value." + (i + 1) % 100 + "}"));
+            }
+            List<List<BeaconField>> expressionFields = new ArrayList<>();
+            expressions.forEach(expression -> expressionFields.add(expression.getBeaconFields()));
+            DefinitionIndex index = new DefinitionIndex(requirements, expressionFields);
+
+            for (int variant = 0; variant < 6; variant++) {
+                Map<String, String> fields = new HashMap<>();
+                for (int i = 0; i < 100; i++) {
+                    if ((i + variant) % 3 != 0) {
+                        fields.put("index.required." + i, "x");
+                    }
+                    if ((i + variant) % 4 != 0) {
+                        fields.put("index.value." + i, "1");
+                    }
+                }
+                fields.put("index.forbidden." + variant, "x");
+                fields.put(InitiatorType.HTTP_INITIATOR_FIELD, variant % 2 == 0 ? "xhr" : "");
+                Beacon beacon = Beacon.of(fields);
+
+                DefinitionIndex.Selection selection = index.select(beacon);
+
+                for (int i = 0; i < 100; i++) {
+                    assertThat(selection.fulfillsRequirements(i)).as("requirements of %d in variant %d", i, variant)
+                            .isEqualTo(BeaconRequirement.validate(beacon, requirements.get(i)));
+                    assertThat(selection.isSolvable(i)).as("expression of %d in variant %d", i, variant)
+                            .isEqualTo(expressions.get(i).isSolvable(beacon));
+                }
+            }
+        }
+
+        @Test
+        public void noFields() {
+            DefinitionIndex index = new DefinitionIndex(Collections.singletonList(null), Collections.singletonList(Collections.emptyList()));
+
+            DefinitionIndex.Selection selection = index.select(Beacon.of(Collections.emptyMap()));
+
+            assertThat(selection.fulfillsRequirements(0)).isTrue();
+            assertThat(selection.isSolvable(0)).isTrue();
+        }
+
+        @Test
+        public void missingField() {
+            RawExpression expression = new RawExpression("{index.a} + {index.b}");
+            DefinitionIndex index = new DefinitionIndex(Collections.singletonList(Arrays.asList(requirement(BeaconRequirement.RequirementType.EXISTS, "index.a"))), Collections
+                    .singletonList(expression.getBeaconFields()));
+
+            DefinitionIndex.Selection selection = index.select(Beacon.of(Collections.singletonMap("index.a", "1")));
+
+            assertThat(selection.fulfillsRequirements(0)).isTrue();
+            assertThat(selection.isSolvable(0)).isFalse();
+        }
+    }
+}
@@ -1,26 +1,36 @@
 package rocks.inspectit.oce.eum.server.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import rocks.inspectit.oce.eum.server.beacon.Beacon;
-import rocks.inspectit.oce.eum.server.beacon.processor.CompositeBeaconProcessor;
-import rocks.inspectit.oce.eum.server.exporters.beacon.BeaconHttpExporter;
-import rocks.inspectit.oce.eum.server.metrics.BeaconMetricManager;
+import rocks.inspectit.oce.eum.server.beacon.ingest.AsyncBeaconIngestQueue;
+import rocks.inspectit.oce.eum.server.beacon.ingest.BeaconFieldProjection;
+import rocks.inspectit.oce.eum.server.beacon.ingest.BeaconIngestService;
 import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.entry;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -31,55 +41,49 @@ class BeaconControllerTest {
     private BeaconController controller;
 
     @Mock
-    private BeaconMetricManager beaconMetricManager;
-
-    @Mock
-    private CompositeBeaconProcessor beaconProcessor;
+    private BeaconIngestService ingestService;
 
     @Mock
     private SelfMonitoringMetricManager selfMonitoringService;
 
-    @Mock
-    private BeaconHttpExporter beaconHttpExporter;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private MockHttpServletRequest request(String content) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(content.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
 
     @Nested
     public class BeaconPost {
 
         @Test
-        public void successful() {
-            when(beaconProcessor.process(any())).then(i -> i.getArguments()[0]);
-            when(beaconMetricManager.processBeacon(any())).thenReturn(true);
-
-            MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
-            map.add("key", "value");
-
-            ResponseEntity result = controller.beaconPost(map);
+        public void successful() throws Exception {
+            ResponseEntity result = controller.beaconPost(request("key=value&encoded=a%20b+c"));
 
             ArgumentCaptor<Beacon> beaconCaptor = ArgumentCaptor.forClass(Beacon.class);
-            verify(beaconMetricManager).processBeacon(beaconCaptor.capture());
-            verify(beaconProcessor).process(any());
-            verify(selfMonitoringService).record("beacons_received", 1, Collections.singletonMap("is_error", "false"));
-            verifyNoMoreInteractions(beaconMetricManager, beaconProcessor, selfMonitoringService);
+            verify(ingestService).ingest(beaconCaptor.capture());
+            verifyNoMoreInteractions(ingestService, selfMonitoringService);
 
             assertThat(result).extracting(ResponseEntity::getStatusCode).isEqualTo(HttpStatus.OK);
-            assertThat(beaconCaptor.getValue().toMap()).hasSize(1).containsEntry("key", "value");
+            assertThat(beaconCaptor.getValue().toMap()).hasSize(2)
+                    .containsEntry("key", "value")
+                    .containsEntry("encoded", "a b c");
         }
 
         @Test
-        public void notSuccessful() {
-            when(beaconProcessor.process(any())).then(i -> i.getArguments()[0]);
-            when(beaconMetricManager.processBeacon(any())).thenReturn(false);
-
-            MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
+        public void bodyAlreadyConsumed() throws Exception {
+            MockHttpServletRequest request = request("");
+            request.addParameter("key", "value", "second");
 
-            ResponseEntity result = controller.beaconPost(map);
+            ResponseEntity result = controller.beaconPost(request);
 
-            verify(beaconMetricManager).processBeacon(any());
-            verify(beaconProcessor).process(any());
-            verify(selfMonitoringService).record("beacons_received", 1, Collections.singletonMap("is_error", "true"));
-            verifyNoMoreInteractions(beaconMetricManager, beaconProcessor, selfMonitoringService);
+            ArgumentCaptor<Beacon> beaconCaptor = ArgumentCaptor.forClass(Beacon.class);
+            verify(ingestService).ingest(beaconCaptor.capture());
 
             assertThat(result).extracting(ResponseEntity::getStatusCode).isEqualTo(HttpStatus.OK);
+            assertThat(beaconCaptor.getValue().toMap()).hasSize(1).containsEntry("key", "value");
         }
 
     }
@@ -89,40 +93,183 @@ class BeaconControllerTest {
 
         @Test
         public void successful() {
-            when(beaconProcessor.process(any())).then(i -> i.getArguments()[0]);
-            when(beaconMetricManager.processBeacon(any())).thenReturn(true);
-
             MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
             map.add("key", "value");
 
             ResponseEntity result = controller.beaconGet(map);
 
             ArgumentCaptor<Beacon> beaconCaptor = ArgumentCaptor.forClass(Beacon.class);
-            verify(beaconMetricManager).processBeacon(beaconCaptor.capture());
-            verify(beaconProcessor).process(any());
-            verify(selfMonitoringService).record("beacons_received", 1, Collections.singletonMap("is_error", "false"));
-            verifyNoMoreInteractions(beaconMetricManager, beaconProcessor, selfMonitoringService);
+            verify(ingestService).ingest(beaconCaptor.capture());
+            verifyNoMoreInteractions(ingestService, selfMonitoringService);
 
             assertThat(result).extracting(ResponseEntity::getStatusCode).isEqualTo(HttpStatus.OK);
             assertThat(beaconCaptor.getValue().toMap()).hasSize(1).containsEntry("key", "value");
         }
 
+    }
+
+    @Nested
+    public class BeaconsPost {
+
         @Test
-        public void notSuccessful() {
-            when(beaconProcessor.process(any())).then(i -> i.getArguments()[0]);
-            when(beaconMetricManager.processBeacon(any())).thenReturn(false);
+        public void jsonArray() throws Exception {
+            ResponseEntity result = controller.beaconsPost(request("[{\"key\": \"first\"}, {\"key\": \"second\", \"number\": 5}]"));
 
-            MultiValueMap<String, String> map = new LinkedMultiValueMap<>();
+            ArgumentCaptor<Beacon> beaconCaptor = ArgumentCaptor.forClass(Beacon.class);
+            verify(ingestService, times(2)).ingest(beaconCaptor.capture());
+            verifyNoMoreInteractions(ingestService, selfMonitoringService);
 
-            ResponseEntity result = controller.beaconGet(map);
+            assertThat(result).extracting(ResponseEntity::getStatusCode).isEqualTo(HttpStatus.OK);
+            assertThat(beaconCaptor.getAllValues()).extracting(Beacon::toMap)
+                    .containsExactly(Collections.singletonMap("key", "first"), ImmutableMap.of("key", "second", "number", "5"));
+        }
+
+        @Test
+        public void ndjson() throws Exception {
+            ResponseEntity result = controller.beaconsPost(request("{\"key\": \"first\"}\n{\"key\": \"second\"}\n"));
+
+            verify(ingestService, times(2)).ingest(any());
+            verifyNoMoreInteractions(ingestService, selfMonitoringService);
+
+            assertThat(result).extracting(ResponseEntity::getStatusCode).isEqualTo(HttpStatus.OK);
+        }
+
+        @Test
+        public void failingBeaconDoesNotAbortBatch() throws Exception {
+            when(ingestService.ingest(any())).thenThrow(new RuntimeException()).thenReturn(true);
 
-            verify(beaconMetricManager).processBeacon(any());
-            verify(beaconProcessor).process(any());
-            verify(selfMonitoringService).record("beacons_received", 1, Collections.singletonMap("is_error", "true"));
-            verifyNoMoreInteractions(beaconMetricManager, beaconProcessor, selfMonitoringService);
+            ResponseEntity result = controller.beaconsPost(request("[{\"key\": \"first\"}, {\"key\": \"second\"}]"));
+
+            verify(ingestService, times(2)).ingest(any());
+            verify(ingestService).recordReceived(false);
+            verifyNoMoreInteractions(ingestService, selfMonitoringService);
 
             assertThat(result).extracting(ResponseEntity::getStatusCode).isEqualTo(HttpStatus.OK);
         }
 
+        @Test
+        public void malformedBatchIsNotIngested() {
+            assertThatExceptionOfType(IOException.class).isThrownBy(() -> controller.beaconsPost(request("[{\"key\": \"first\"}, {\"key\": ")));
+
+            verifyNoInteractions(ingestService);
+        }
+
+        @Test
+        public void emptyBody() throws Exception {
+            ResponseEntity result = controller.beaconsPost(request(""));
+
+            verifyNoMoreInteractions(ingestService, selfMonitoringService);
+
+            assertThat(result).extracting(ResponseEntity::getStatusCode).isEqualTo(HttpStatus.OK);
+        }
+    }
+
+    @Nested
+    public class AsyncIngestion {
+
+        @Mock
+        private AsyncBeaconIngestQueue ingestQueue;
+
+        @BeforeEach
+        public void beforeEach() {
+            ReflectionTestUtils.setField(controller, "ingestQueue", ingestQueue);
+        }
+
+        @Test
+        public void beaconAccepted() throws Exception {
+            when(ingestQueue.offer(any(), any())).thenReturn(true);
+
+            ResponseEntity result = controller.beaconPost(request("key=value"));
+
+            ArgumentCaptor<Beacon> beaconCaptor = ArgumentCaptor.forClass(Beacon.class);
+            verify(ingestQueue).offer(beaconCaptor.capture(), any());
+            verifyNoMoreInteractions(ingestService, ingestQueue);
+            assertThat(beaconCaptor.getValue().toMap()).containsExactly(entry("key", "value"));
+
+            assertThat(result).extracting(ResponseEntity::getStatusCode).isEqualTo(HttpStatus.ACCEPTED);
+        }
+
+        @Test
+        public void queueFull() {
+            when(ingestQueue.offer(any(), any())).thenReturn(false);
+            when(ingestQueue.getRetryAfterSeconds()).thenReturn(3L);
+
+            ResponseEntity result = controller.beaconGet(new LinkedMultiValueMap<>());
+
+            verifyNoInteractions(ingestService);
+
+            assertThat(result).extracting(ResponseEntity::getStatusCode).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            assertThat(result.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        }
+
+        @Test
+        public void batchAccepted() throws Exception {
+            when(ingestQueue.offer(any(), any())).thenReturn(true);
+
+            ResponseEntity result = controller.beaconsPost(request("[{\"key\": \"first\"}, {\"key\": \"second\"}]"));
+
+            verify(ingestQueue, times(2)).offer(any(), any());
+            verifyNoMoreInteractions(ingestService, ingestQueue);
+
+            assertThat(result).extracting(ResponseEntity::getStatusCode).isEqualTo(HttpStatus.ACCEPTED);
+            assertThat(result.getBody()).isEqualTo(new BeaconController.BatchResult(2, 0));
+        }
+
+        @Test
+        public void batchPartiallyRejected() throws Exception {
+            when(ingestQueue.offer(any(), any())).thenReturn(true, false);
+            when(ingestQueue.getRetryAfterSeconds()).thenReturn(1L);
+
+            ResponseEntity result = controller.beaconsPost(request("{\"key\": \"first\"}\n{\"key\": \"second\"}\n{\"key\": \"third\"}\n"));
+
+            // the remaining beacons are not offered, so the rejected beacons are the last ones of the batch
+            verify(ingestQueue, times(2)).offer(any(), any());
+            verify(ingestQueue).drop(1);
+            verifyNoInteractions(ingestService);
+
+            assertThat(result).extracting(ResponseEntity::getStatusCode).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            assertThat(result.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+            assertThat(result.getBody()).isEqualTo(new BeaconController.BatchResult(1, 2));
+        }
+
+        @Test
+        public void malformedBatchIsNotEnqueued() {
+            assertThatExceptionOfType(IOException.class).isThrownBy(() -> controller.beaconsPost(request("{\"key\": \"first\"}\n{\"key\"\n")));
+
+            verifyNoInteractions(ingestQueue);
+        }
+    }
+
+    @Nested
+    public class FieldProjection {
+
+        @Mock
+        private BeaconFieldProjection fieldProjection;
+
+        @BeforeEach
+        public void beforeEach() {
+            ReflectionTestUtils.setField(controller, "fieldProjection", fieldProjection);
+        }
+
+        @Test
+        public void projectedBeaconIngested() throws Exception {
+            Beacon projectedBeacon = Beacon.of(Collections.singletonMap("key", "value"));
+            when(fieldProjection.apply(any())).thenReturn(projectedBeacon);
+
+            controller.beaconPost(request("key=value&unused=1"));
+
+            verify(ingestService).ingest(same(projectedBeacon));
+        }
+
+        @Test
+        public void batchBeaconsProjected() throws Exception {
+            Beacon projectedBeacon = Beacon.of(Collections.singletonMap("key", "value"));
+            when(fieldProjection.apply(any())).thenReturn(projectedBeacon);
+
+            controller.beaconsPost(request("[{\"key\": \"first\"}, {\"key\": \"second\"}]"));
+
+            verify(fieldProjection, times(2)).apply(any());
+            verify(ingestService, times(2)).ingest(same(projectedBeacon));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,238 @@
+package rocks.inspectit.oce.eum.server.rest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.ingestion.DecompressionSettings;
+import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DecompressingRequestFilterTest {
+
+    private static final String BODY = "first=1&second=2&restiming=" + "abcdef".repeat(100);
+
+    @InjectMocks
+    private DecompressingRequestFilter filter;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EumServerConfiguration configuration;
+
+    @Mock
+    private SelfMonitoringMetricManager selfMonitoring;
+
+    private DecompressionSettings settings;
+
+    @BeforeEach
+    public void beforeEach() {
+        settings = new DecompressionSettings();
+        settings.setEnabled(true);
+        settings.setMaxCompressedSize(DataSize.ofKilobytes(10));
+        settings.setMaxDecompressedSize(DataSize.ofMegabytes(5));
+        settings.setMaxCompressionRatio(100);
+
+        lenient().when(configuration.getIngestion().getDecompression()).thenReturn(settings);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(result)) {
+            out.write(data);
+        }
+        return result.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (DeflaterOutputStream out = new DeflaterOutputStream(result)) {
+            out.write(data);
+        }
+        return result.toByteArray();
+    }
+
+    /**
+     * Creates a brotli stream containing the given data as a single uncompressed meta-block.
+     */
+    private static byte[] brotli(byte[] data) {
+        // WBITS=16 (1 bit), ISLAST=0 (1 bit), MNIBBLES=4 (2 bits), MLEN-1 (16 bits), ISUNCOMPRESSED=1 (1 bit)
+        int header = ((data.length - 1) << 4) | (1 << 20);
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        result.write(header & 0xFF);
+        result.write((header >> 8) & 0xFF);
+        result.write((header >> 16) & 0xFF);
+        result.writeBytes(data);
+        // ISLAST=1, ISLASTEMPTY=1
+        result.write(3);
+        return result.toByteArray();
+    }
+
+    private MockHttpServletRequest request(String encoding, byte[] content) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/beacon");
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        request.setContent(content);
+        return request;
+    }
+
+    private String readBody(MockFilterChain chain) throws IOException {
+        return new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    @Nested
+    public class DoFilter {
+
+        @Test
+        public void gzipBody() throws Exception {
+            byte[] compressed = gzip(BODY.getBytes(StandardCharsets.UTF_8));
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request("gzip", compressed), new MockHttpServletResponse(), chain);
+
+            assertThat(readBody(chain)).isEqualTo(BODY);
+        }
+
+        @Test
+        public void deflateBody() throws Exception {
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request("deflate", deflate(BODY.getBytes(StandardCharsets.UTF_8))), new MockHttpServletResponse(), chain);
+
+            assertThat(readBody(chain)).isEqualTo(BODY);
+        }
+
+        @Test
+        public void brotliBody() throws Exception {
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request("br", brotli(BODY.getBytes(StandardCharsets.UTF_8))), new MockHttpServletResponse(), chain);
+
+            assertThat(readBody(chain)).isEqualTo(BODY);
+        }
+
+        @Test
+        public void compressionHeadersAreHidden() throws Exception {
+            MockHttpServletRequest request = request("gzip", gzip(BODY.getBytes(StandardCharsets.UTF_8)));
+            request.addHeader("X-Custom", "value");
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+            HttpServletRequest wrappedRequest = (HttpServletRequest) chain.getRequest();
+            assertThat(wrappedRequest.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+            assertThat(wrappedRequest.getContentLengthLong()).isEqualTo(-1);
+            assertThat(Collections.list(wrappedRequest.getHeaderNames())).containsExactly("X-Custom");
+        }
+
+        @Test
+        public void recordsBytes() throws Exception {
+            byte[] compressed = gzip(BODY.getBytes(StandardCharsets.UTF_8));
+            MockFilterChain chain = new MockFilterChain() {
+                @Override
+                public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+                    super.doFilter(request, response);
+                    request.getInputStream().readAllBytes();
+                }
+            };
+
+            filter.doFilter(request("gzip", compressed), new MockHttpServletResponse(), chain);
+
+            verify(selfMonitoring).record("request_compressed_bytes", (long) compressed.length, Collections.singletonMap("encoding", "gzip"));
+            verify(selfMonitoring).record("request_decompressed_bytes", (long) BODY.length(), Collections.singletonMap("encoding", "gzip"));
+            verifyNoMoreInteractions(selfMonitoring);
+        }
+
+        @Test
+        public void notCompressed() throws Exception {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/beacon");
+            request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+            assertThat(chain.getRequest()).isSameAs(request);
+            verifyNoInteractions(selfMonitoring);
+        }
+
+        @Test
+        public void unsupportedEncoding() throws Exception {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request("compress", new byte[10]), response, chain);
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+            assertThat(chain.getRequest()).isNull();
+        }
+
+        @Test
+        public void compressedBodyTooLarge() throws Exception {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request("gzip", new byte[20 * 1024]), response, chain);
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            assertThat(chain.getRequest()).isNull();
+        }
+
+        @Test
+        public void decompressedBodyTooLarge() throws Exception {
+            settings.setMaxCompressionRatio(Integer.MAX_VALUE);
+            settings.setMaxDecompressedSize(DataSize.ofKilobytes(1));
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request("gzip", gzip(new byte[2048])), new MockHttpServletResponse(), chain);
+
+            assertThatExceptionOfType(RequestBodyTooLargeException.class).isThrownBy(() -> readBody(chain))
+                    .withMessageContaining("decompressed request body");
+        }
+
+        @Test
+        public void decompressionBomb() throws Exception {
+            byte[] bomb = gzip(new byte[4 * 1024 * 1024]);
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request("gzip", bomb), new MockHttpServletResponse(), chain);
+
+            assertThatExceptionOfType(RequestBodyTooLargeException.class).isThrownBy(() -> readBody(chain))
+                    .withMessageContaining("compression ratio");
+        }
+
+        @Test
+        public void bodyTooLargeWhileReading() throws Exception {
+            settings.setMaxCompressionRatio(Integer.MAX_VALUE);
+            settings.setMaxDecompressedSize(DataSize.ofKilobytes(1));
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilter(request("gzip", gzip(new byte[2048])), response, (req, res) -> req.getInputStream().readAllBytes());
+
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            assertThat(response.getErrorMessage()).isEqualTo("The decompressed request body is too large.");
+        }
+    }
+}
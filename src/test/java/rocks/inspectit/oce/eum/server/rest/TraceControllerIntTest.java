@@ -1,6 +1,8 @@
 package rocks.inspectit.oce.eum.server.rest;
 
 import com.google.common.io.CharStreams;
+import com.google.protobuf.util.JsonFormat;
+import io.opentelemetry.proto.collector.trace.v1.ExportTraceServiceRequest;
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.trace.SpanKind;
 import io.opentelemetry.sdk.trace.data.SpanData;
@@ -15,13 +17,19 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.Collection;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.verify;
@@ -107,4 +115,52 @@ public class TraceControllerIntTest {
             });
         }
     }
+
+    @Test
+    public void verifyProtobufTrace() throws Exception {
+        try (Reader reader = new InputStreamReader(prodResourceSpans.getInputStream())) {
+            ExportTraceServiceRequest.Builder requestBuilder = ExportTraceServiceRequest.newBuilder();
+            JsonFormat.parser().merge(reader, requestBuilder);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.parseMediaType("application/x-protobuf"));
+
+            ResponseEntity<Void> result = restTemplate.postForEntity("/spans", new HttpEntity<>(requestBuilder.build()
+                    .toByteArray(), headers), Void.class);
+
+            assertThat(result.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+            verify(spanExporter).export(spanCaptor.capture());
+            assertThat(spanCaptor.getValue()).hasSize(2).allSatisfy(data -> {
+                assertThat(data.getTraceId()).isEqualTo("a4a68b53c52438381b6cb304410ff0be");
+                assertThat(data.getSpanId()).isNotBlank();
+                assertThat(data.hasEnded()).isTrue();
+            });
+        }
+    }
+
+    @Test
+    public void badProtobufData() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/x-protobuf"));
+
+        ResponseEntity<Void> result = restTemplate.postForEntity("/spans", new HttpEntity<>(new byte[]{1, 2, 3}, headers), Void.class);
+
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    public void verifyGzipCompressedTrace() throws Exception {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (InputStream in = prodResourceSpans.getInputStream(); GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            in.transferTo(out);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        ResponseEntity<Void> result = restTemplate.postForEntity("/spans", new HttpEntity<>(compressed.toByteArray(), headers), Void.class);
+
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        verify(spanExporter).export(spanCaptor.capture());
+        assertThat(spanCaptor.getValue()).hasSize(2);
+    }
 }
@@ -22,6 +22,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.utils.ClientContext;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.io.InputStream;
@@ -197,7 +198,7 @@ class OpenTelemetryProtoConverterTest {
 
         @BeforeEach
         public void beforeEach() {
-            converter.requestSupplier = () -> mockRequest;
+            converter.clientContextSupplier = () -> ClientContext.of(mockRequest);
         }
 
         @Test
@@ -0,0 +1,172 @@
+package rocks.inspectit.oce.eum.server.utils;
+
+import com.google.common.net.InetAddresses;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CidrTrieTest {
+
+    @Nested
+    public class FindLongestMatch {
+
+        @Test
+        public void emptyTrie() {
+            CidrTrie<String> trie = CidrTrie.<String>builder().build();
+
+            assertThat(trie.isEmpty()).isTrue();
+            assertThat(trie.findLongestMatch("10.0.0.1")).isNull();
+        }
+
+        @Test
+        public void singleAddress() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+            builder.put("10.0.0.1", "A");
+            CidrTrie<String> trie = builder.build();
+
+            assertThat(trie.findLongestMatch("10.0.0.1")).isEqualTo("A");
+            assertThat(trie.findLongestMatch("10.0.0.2")).isNull();
+            assertThat(trie.findLongestMatch("10.0.0.0")).isNull();
+        }
+
+        @Test
+        public void cidr() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+            builder.put("10.10.0.0/16", "A");
+            CidrTrie<String> trie = builder.build();
+
+            assertThat(trie.findLongestMatch("10.10.0.0")).isEqualTo("A");
+            assertThat(trie.findLongestMatch("10.10.255.255")).isEqualTo("A");
+            assertThat(trie.findLongestMatch("10.11.0.0")).isNull();
+            assertThat(trie.findLongestMatch("10.9.255.255")).isNull();
+        }
+
+        @Test
+        public void hostBitsAreIgnored() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+            builder.put("10.10.10.10/16", "A");
+            CidrTrie<String> trie = builder.build();
+
+            assertThat(trie.findLongestMatch("10.10.0.1")).isEqualTo("A");
+        }
+
+        @Test
+        public void longestPrefixWins() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+            builder.put("10.0.0.0/8", "A");
+            builder.put("10.10.0.0/16", "B");
+            builder.put("10.10.10.0/24", "C");
+            builder.put("10.10.10.10", "D");
+            CidrTrie<String> trie = builder.build();
+
+            assertThat(trie.size()).isEqualTo(4);
+            assertThat(trie.findLongestMatch("10.1.1.1")).isEqualTo("A");
+            assertThat(trie.findLongestMatch("10.10.1.1")).isEqualTo("B");
+            assertThat(trie.findLongestMatch("10.10.10.1")).isEqualTo("C");
+            assertThat(trie.findLongestMatch("10.10.10.10")).isEqualTo("D");
+        }
+
+        @Test
+        public void defaultRoute() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+            builder.put("0.0.0.0/0", "A");
+            CidrTrie<String> trie = builder.build();
+
+            assertThat(trie.findLongestMatch("192.168.0.1")).isEqualTo("A");
+            assertThat(trie.findLongestMatch("::1")).isNull();
+        }
+
+        @Test
+        public void ipv6() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+            builder.put("2001:db8::/32", "A");
+            builder.put("2001:db8:1::/48", "B");
+            builder.put("10.0.0.0/8", "C");
+            CidrTrie<String> trie = builder.build();
+
+            assertThat(trie.findLongestMatch("2001:db8::1")).isEqualTo("A");
+            assertThat(trie.findLongestMatch("2001:db8:1::1")).isEqualTo("B");
+            assertThat(trie.findLongestMatch("2001:db9::1")).isNull();
+            assertThat(trie.findLongestMatch(InetAddresses.forString("10.1.2.3"))).isEqualTo("C");
+        }
+
+        @Test
+        public void noIpLiteral() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+            builder.put("0.0.0.0/0", "A");
+            CidrTrie<String> trie = builder.build();
+
+            assertThat(trie.findLongestMatch("localhost")).isNull();
+            assertThat(trie.findLongestMatch((String) null)).isNull();
+        }
+
+        @Test
+        public void duplicateKeepsFirstValue() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+            builder.put("10.0.0.0/8", "A");
+            builder.put("10.0.0.0/8", "B");
+            CidrTrie<String> trie = builder.build();
+
+            assertThat(trie.size()).isEqualTo(1);
+            assertThat(trie.findLongestMatch("10.0.0.1")).isEqualTo("A");
+        }
+    }
+
+    @Nested
+    public class Put {
+
+        @Test
+        public void invalidAddress() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+
+            assertThatIllegalArgumentException().isThrownBy(() -> builder.put("10.0.0", "A"));
+            assertThatIllegalArgumentException().isThrownBy(() -> builder.put("10.0.0.0/33", "A"));
+            assertThatIllegalArgumentException().isThrownBy(() -> builder.put("10.0.0.0/x", "A"));
+        }
+
+        @Test
+        public void noOverlap() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+
+            assertThat(builder.put("10.0.0.0/16", "A")).isNull();
+            assertThat(builder.put("10.1.0.0/16", "B")).isNull();
+            assertThat(builder.put("10.2.0.1", "C")).isNull();
+        }
+
+        @Test
+        public void overlapWithSameValue() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+
+            assertThat(builder.put("10.0.0.0/16", "A")).isNull();
+            assertThat(builder.put("10.0.0.0/24", "A")).isNull();
+            assertThat(builder.put("10.0.0.0/8", "A")).isNull();
+        }
+
+        @Test
+        public void containedInOtherNetwork() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+            builder.put("10.0.0.0/16", "A");
+
+            assertThat(builder.put("10.0.0.1", "B")).isEqualTo("A");
+        }
+
+        @Test
+        public void containsOtherNetwork() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+            builder.put("10.0.1.0/24", "A");
+            builder.put("10.0.2.0/24", "B");
+
+            assertThat(builder.put("10.0.0.0/16", "A")).isEqualTo("B");
+        }
+
+        @Test
+        public void equalNetwork() {
+            CidrTrie.Builder<String> builder = CidrTrie.builder();
+            builder.put("10.0.0.0/16", "A");
+
+            assertThat(builder.put("10.0.0.0/16", "B")).isEqualTo("A");
+        }
+    }
+}
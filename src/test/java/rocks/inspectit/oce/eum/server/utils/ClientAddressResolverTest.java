@@ -0,0 +1,132 @@
+package rocks.inspectit.oce.eum.server.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.client.ClientAddressSettings;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ClientAddressResolverTest {
+
+    @InjectMocks
+    private ClientAddressResolver resolver;
+
+    @Mock
+    private EumServerConfiguration configuration;
+
+    private ClientAddressSettings settings;
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    public void beforeEach() {
+        settings = new ClientAddressSettings();
+        settings.setTrustedProxies(Arrays.asList("10.0.0.0/8", "192.168.0.1"));
+        when(configuration.getClientAddress()).thenReturn(settings);
+
+        request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+    }
+
+    private String resolve() {
+        resolver.initialize();
+        return resolver.resolve(ClientContext.of(request));
+    }
+
+    @Nested
+    public class Resolve {
+
+        @Test
+        public void noForwardedHeader() {
+            assertThat(resolve()).isEqualTo("10.0.0.1");
+        }
+
+        @Test
+        public void untrustedRemoteAddress() {
+            request.setRemoteAddr("1.2.3.4");
+            request.addHeader("X-Forwarded-For", "5.6.7.8");
+
+            assertThat(resolve()).isEqualTo("1.2.3.4");
+        }
+
+        @Test
+        public void forwardedByTrustedProxy() {
+            request.addHeader("X-Forwarded-For", "5.6.7.8");
+
+            assertThat(resolve()).isEqualTo("5.6.7.8");
+        }
+
+        @Test
+        public void forwardedByMultipleTrustedProxies() {
+            request.addHeader("X-Forwarded-For", "5.6.7.8, 192.168.0.1,10.1.1.1");
+
+            assertThat(resolve()).isEqualTo("5.6.7.8");
+        }
+
+        @Test
+        public void spoofedAddressIsIgnored() {
+            request.addHeader("X-Forwarded-For", "9.9.9.9, 5.6.7.8, 10.1.1.1");
+
+            assertThat(resolve()).isEqualTo("5.6.7.8");
+        }
+
+        @Test
+        public void multipleHeaderValues() {
+            request.addHeader("X-Forwarded-For", "5.6.7.8");
+            request.addHeader("X-Forwarded-For", "10.1.1.1");
+
+            assertThat(resolve()).isEqualTo("5.6.7.8");
+        }
+
+        @Test
+        public void onlyTrustedProxies() {
+            request.addHeader("X-Forwarded-For", "10.2.2.2, 10.1.1.1");
+
+            assertThat(resolve()).isEqualTo("10.2.2.2");
+        }
+
+        @Test
+        public void invalidForwardedAddress() {
+            request.addHeader("X-Forwarded-For", "5.6.7.8, unknown, 10.1.1.1");
+
+            assertThat(resolve()).isEqualTo("10.1.1.1");
+        }
+
+        @Test
+        public void ipv6() {
+            settings.setTrustedProxies(Arrays.asList("fc00::/7"));
+            request.setRemoteAddr("fd00::1");
+            request.addHeader("X-Forwarded-For", "2001:db8::1");
+
+            assertThat(resolve()).isEqualTo("2001:db8::1");
+        }
+
+        @Test
+        public void customHeader() {
+            settings.setForwardedHeader("X-Real-IP");
+            request.addHeader("X-Forwarded-For", "1.1.1.1");
+            request.addHeader("X-Real-IP", "5.6.7.8");
+
+            assertThat(resolve()).isEqualTo("5.6.7.8");
+        }
+
+        @Test
+        public void noTrustedProxies() {
+            settings.setTrustedProxies(Arrays.asList());
+            request.addHeader("X-Forwarded-For", "5.6.7.8");
+
+            assertThat(resolve()).isEqualTo("10.0.0.1");
+        }
+    }
+}
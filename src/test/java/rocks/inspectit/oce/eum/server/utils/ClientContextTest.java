@@ -0,0 +1,109 @@
+package rocks.inspectit.oce.eum.server.utils;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class ClientContextTest {
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+    @Nested
+    public class Headers {
+
+        @Test
+        public void headersAreCaseInsensitive() {
+            request.addHeader("Accept-Encoding", "gzip");
+            request.addHeader("Accept-Encoding", "deflate");
+            ClientContext context = ClientContext.of(request);
+
+            assertThat(context.getHeader("accept-encoding")).isEqualTo("gzip");
+            assertThat(context.getHeaderValues("accept-encoding")).containsExactly("gzip", "deflate");
+            assertThat(context.getHeaders().get("ACCEPT-ENCODING")).containsExactly("gzip", "deflate");
+        }
+
+        @Test
+        public void missingHeader() {
+            ClientContext context = ClientContext.of(request);
+
+            assertThat(context.getHeader("Accept")).isNull();
+            assertThat(context.getHeaderValues("Accept")).isEmpty();
+        }
+
+        @Test
+        public void headersAreCopiedOnce() {
+            request.addHeader("Accept", "*/*");
+            ClientContext context = ClientContext.of(request);
+
+            assertThat(context.getHeaders()).isSameAs(context.getHeaders());
+        }
+    }
+
+    @Nested
+    public class Detach {
+
+        @Test
+        public void detachedContextDoesNotAccessRequest() {
+            request.setRemoteAddr("10.0.0.1");
+            request.addHeader("Accept", "*/*");
+            ClientContext detached = ClientContext.of(request).detach();
+
+            request.removeHeader("Accept");
+            request.addHeader("Accept", "text/html");
+
+            assertThat(detached.getRemoteAddress()).isEqualTo("10.0.0.1");
+            assertThat(detached.getHeader("Accept")).isEqualTo("*/*");
+            assertThat(detached.getHeaderValues("accept")).containsExactly("*/*");
+            assertThat(detached.getHeaders()).containsOnly(entry("Accept", Arrays.asList("*/*")));
+        }
+
+        @Test
+        public void detachDetachedContext() {
+            ClientContext detached = ClientContext.of(request).detach();
+
+            assertThat(detached.detach()).isSameAs(detached);
+        }
+    }
+
+    @Nested
+    public class GetClientAddress {
+
+        @Test
+        public void remoteAddressByDefault() {
+            request.setRemoteAddr("10.0.0.1");
+
+            assertThat(ClientContext.of(request).getClientAddress()).isEqualTo("10.0.0.1");
+        }
+
+        @Test
+        public void resolvedOnce() {
+            AtomicInteger invocations = new AtomicInteger();
+            ClientContext context = ClientContext.of(request, ctx -> "1.2.3." + invocations.incrementAndGet());
+
+            assertThat(context.getClientAddress()).isEqualTo("1.2.3.1");
+            assertThat(context.getClientAddress()).isEqualTo("1.2.3.1");
+            assertThat(context.detach().getClientAddress()).isEqualTo("1.2.3.1");
+        }
+    }
+
+    @Nested
+    public class Current {
+
+        @Test
+        public void bindContext() {
+            ClientContext context = ClientContext.of(request);
+
+            try (ClientContext.Scope scope = ClientContext.bind(context)) {
+                assertThat(ClientContext.current()).isSameAs(context);
+            }
+
+            assertThat(ClientContext.current()).isNull();
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package rocks.inspectit.oce.eum.server.utils;
+
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.InetAddresses;
+import com.maxmind.db.ClosedDatabaseException;
+import com.maxmind.geoip2.DatabaseReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import rocks.inspectit.oce.eum.server.configuration.model.EumServerConfiguration;
+import rocks.inspectit.oce.eum.server.configuration.model.geolocation.GeolocationCacheSettings;
+import rocks.inspectit.oce.eum.server.configuration.model.geolocation.GeolocationDatabaseSettings;
+import rocks.inspectit.oce.eum.server.metrics.SelfMonitoringMetricManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GeolocationResolverTest {
+
+    @InjectMocks
+    private GeolocationResolver resolver;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private EumServerConfiguration configuration;
+
+    @Mock
+    private SelfMonitoringMetricManager selfMonitoring;
+
+    @Mock
+    private ScheduledExecutorService scheduledExecutor;
+
+    private GeolocationCacheSettings cacheSettings;
+
+    @BeforeEach
+    public void beforeEach() {
+        cacheSettings = new GeolocationCacheSettings();
+        cacheSettings.setEnabled(true);
+        when(configuration.getGeolocation().getCache()).thenReturn(cacheSettings);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        ReflectionTestUtils.invokeMethod(resolver, "shutdown");
+    }
+
+    private void initialize() {
+        ReflectionTestUtils.invokeMethod(resolver, "initialize");
+    }
+
+    @Nested
+    public class GetCountryCode {
+
+        @Test
+        public void resolveAddress() {
+            initialize();
+
+            assertThat(resolver.getCountryCode("94.186.169.18")).isEqualTo("DE");
+        }
+
+        @Test
+        public void sameNetworkIsCached() {
+            initialize();
+
+            assertThat(resolver.getCountryCode("94.186.169.18")).isEqualTo("DE");
+            assertThat(resolver.getCountryCode("94.186.169.200")).isEqualTo("DE");
+            assertThat(resolver.getCountryCode("127.0.0.1")).isEmpty();
+            assertThat(resolver.getCountryCode("127.0.0.2")).isEmpty();
+
+            resolver.recordCacheStatistics();
+
+            verify(selfMonitoring).record("geolocation_cache", 2L, ImmutableMap.of("event", "hit"));
+            verify(selfMonitoring).record("geolocation_cache", 2L, ImmutableMap.of("event", "miss"));
+            verifyNoMoreInteractions(selfMonitoring);
+        }
+
+        @Test
+        public void moreSpecificNetworksOfDatabase() {
+            initialize();
+
+            // the /24 network contains a /27 network located in the US and a /25 network located in Sweden
+            assertThat(resolver.getCountryCode("5.133.204.10")).isEqualTo("US");
+            assertThat(resolver.getCountryCode("5.133.204.200")).isEqualTo("SE");
+            assertThat(resolver.getCountryCode("5.133.204.20")).isEqualTo("US");
+            assertThat(resolver.getCountryCode("5.133.204.210")).isEqualTo("SE");
+
+            resolver.recordCacheStatistics();
+
+            verify(selfMonitoring).record("geolocation_cache", 5L, ImmutableMap.of("event", "hit"));
+            verify(selfMonitoring).record("geolocation_cache", 2L, ImmutableMap.of("event", "miss"));
+            verifyNoMoreInteractions(selfMonitoring);
+        }
+
+        @Test
+        public void invalidAddress() {
+            initialize();
+
+            assertThat(resolver.getCountryCode("127.0.0.0.1")).isEmpty();
+        }
+
+        @Test
+        public void cacheDisabled() {
+            cacheSettings.setEnabled(false);
+            initialize();
+
+            assertThat(resolver.getCountryCode("94.186.169.18")).isEqualTo("DE");
+            verifyNoInteractions(scheduledExecutor);
+        }
+
+        @Test
+        public void statisticsAreRecordedAsDelta() {
+            initialize();
+            resolver.getCountryCode("94.186.169.18");
+            resolver.recordCacheStatistics();
+
+            resolver.getCountryCode("94.186.169.18");
+            resolver.recordCacheStatistics();
+
+            verify(selfMonitoring).record("geolocation_cache", 1L, ImmutableMap.of("event", "miss"));
+            verify(selfMonitoring).record("geolocation_cache", 1L, ImmutableMap.of("event", "hit"));
+            verifyNoMoreInteractions(selfMonitoring);
+        }
+    }
+
+    @Nested
+    public class ToNetwork {
+
+        @Test
+        public void ipv4() {
+            assertThat(GeolocationResolver.toNetwork(InetAddresses.forString("10.20.30.40"), 24)).isEqualTo(InetAddresses.forString("10.20.30.0"));
+        }
+
+        @Test
+        public void ipv4PartialByte() {
+            assertThat(GeolocationResolver.toNetwork(InetAddresses.forString("10.20.31.40"), 20)).isEqualTo(InetAddresses.forString("10.20.16.0"));
+        }
+
+        @Test
+        public void ipv6() {
+            assertThat(GeolocationResolver.toNetwork(InetAddresses.forString("2001:db8:abcd:12:1:2:3:4"), 48)).isEqualTo(InetAddresses.forString("2001:db8:abcd::"));
+        }
+    }
+
+    @Nested
+    public class DatabaseFile {
+
+        @TempDir
+        Path directory;
+
+        private Path databaseFile;
+
+        @BeforeEach
+        public void beforeEach() throws IOException {
+            databaseFile = directory.resolve("GeoLite2-Country.mmdb");
+            copyBundledDatabase(databaseFile);
+
+            GeolocationDatabaseSettings databaseSettings = new GeolocationDatabaseSettings();
+            databaseSettings.setPath(databaseFile.toString());
+            databaseSettings.setWatch(false);
+            when(configuration.getGeolocation().getDatabase()).thenReturn(databaseSettings);
+        }
+
+        private void copyBundledDatabase(Path target) throws IOException {
+            try (InputStream database = getClass().getResourceAsStream("/geoip-db/GeoLite2-Country.mmdb")) {
+                Files.copy(database, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        /**
+         * Copies the bundled database, replacing the database type in its metadata.
+         */
+        private void copyBundledDatabase(Path target, String databaseType) throws IOException {
+            copyBundledDatabase(target);
+            // the bytes are mapped one-to-one to the characters, the type is stored as UTF-8 string prefixed by its length
+            String database = new String(Files.readAllBytes(target), StandardCharsets.ISO_8859_1);
+            int typeIndex = database.lastIndexOf("GeoLite2-Country");
+            String changedDatabase = database.substring(0, typeIndex - 1) + (char) (0x40 | databaseType.length()) + databaseType + database
+                    .substring(typeIndex + "GeoLite2-Country".length());
+            Files.write(target, changedDatabase.getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        @Test
+        public void resolveAddress() {
+            initialize();
+
+            assertThat(resolver.getCountryCode("94.186.169.18")).isEqualTo("DE");
+        }
+
+        @Test
+        public void watchDatabaseFile() {
+            configuration.getGeolocation().getDatabase().setWatch(true);
+            initialize();
+
+            verify(scheduledExecutor).scheduleWithFixedDelay(any(Runnable.class), eq(60000L), eq(60000L), eq(TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        public void missingFile() throws IOException {
+            Files.delete(databaseFile);
+            initialize();
+
+            assertThat(resolver.getCountryCode("94.186.169.18")).isEmpty();
+        }
+
+        @Test
+        public void unsupportedDatabaseType() throws IOException {
+            copyBundledDatabase(databaseFile, "GeoLite2-ASN");
+            initialize();
+
+            assertThat(ReflectionTestUtils.getField(resolver, "databaseReader")).isNull();
+            assertThat(resolver.getCountryCode("94.186.169.18")).isEmpty();
+        }
+
+        @Test
+        public void cityDatabaseType() throws IOException {
+            copyBundledDatabase(databaseFile, "GeoLite2-City");
+            initialize();
+
+            assertThat(resolver.getCountryCode("94.186.169.18")).isEqualTo("DE");
+        }
+
+        @Test
+        public void reloadDatabase() throws Exception {
+            initialize();
+            DatabaseReader previousReader = (DatabaseReader) ReflectionTestUtils.getField(resolver, "databaseReader");
+            Path changedFile = directory.resolve("changed.mmdb");
+            copyBundledDatabase(changedFile);
+            Files.move(changedFile, databaseFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            resolver.reloadDatabase();
+
+            assertThat(ReflectionTestUtils.getField(resolver, "databaseReader")).isNotSameAs(previousReader);
+            assertThat(resolver.getCountryCode("94.186.169.18")).isEqualTo("DE");
+
+            // the previous database can still be used until the grace period is over
+            assertThat(previousReader.country(InetAddresses.forString("94.186.169.18"))
+                    .getCountry()
+                    .getIsoCode()).isEqualTo("DE");
+            ArgumentCaptor<Runnable> closeTask = ArgumentCaptor.forClass(Runnable.class);
+            verify(scheduledExecutor).schedule(closeTask.capture(), eq(30000L), eq(TimeUnit.MILLISECONDS));
+            closeTask.getValue().run();
+
+            assertThatExceptionOfType(ClosedDatabaseException.class).isThrownBy(() -> previousReader.country(InetAddresses.forString("94.186.169.18")));
+        }
+
+        @Test
+        public void keepDatabaseIfChangedFileIsInvalid() throws IOException {
+            initialize();
+            Object previousReader = ReflectionTestUtils.getField(resolver, "databaseReader");
+            Path changedFile = directory.resolve("changed.mmdb");
+            Files.writeString(changedFile, "invalid");
+            Files.move(changedFile, databaseFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            resolver.reloadDatabase();
+
+            assertThat(ReflectionTestUtils.getField(resolver, "databaseReader")).isSameAs(previousReader);
+            verify(scheduledExecutor, never()).schedule(any(Runnable.class), anyLong(), any());
+        }
+
+        @Test
+        public void keepDatabaseIfChangedDatabaseTypeIsUnsupported() throws IOException {
+            initialize();
+            Object previousReader = ReflectionTestUtils.getField(resolver, "databaseReader");
+            Path changedFile = directory.resolve("changed.mmdb");
+            copyBundledDatabase(changedFile, "GeoLite2-ASN");
+            Files.move(changedFile, databaseFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            resolver.reloadDatabase();
+
+            assertThat(ReflectionTestUtils.getField(resolver, "databaseReader")).isSameAs(previousReader);
+            assertThat(resolver.getCountryCode("94.186.169.18")).isEqualTo("DE");
+            verify(scheduledExecutor, never()).schedule(any(Runnable.class), anyLong(), any());
+        }
+
+        @Test
+        public void cacheEntryOfPreviousDatabaseIsDiscarded() {
+            initialize();
+            resolver.getCountryCode("94.186.169.18");
+            Cache<GeolocationResolver.CacheKey, Object> cache = (Cache<GeolocationResolver.CacheKey, Object>) ReflectionTestUtils.getField(resolver, "countryCodeCache");
+            GeolocationResolver.CacheKey network = new GeolocationResolver.CacheKey(InetAddresses.forString("94.186.169.0"), 24);
+            Object previousEntry = cache.getIfPresent(network);
+
+            resolver.reloadDatabase();
+            // a lookup using the previous database finishes after the cache has been invalidated
+            cache.put(network, previousEntry);
+
+            assertThat(resolver.getCountryCode("94.186.169.18")).isEqualTo("DE");
+            assertThat(cache.getIfPresent(network)).isNotNull().isNotSameAs(previousEntry);
+        }
+
+        @Test
+        public void cacheIsInvalidatedOnReload() {
+            initialize();
+            resolver.getCountryCode("94.186.169.18");
+
+            resolver.reloadDatabase();
+            resolver.getCountryCode("94.186.169.18");
+            resolver.recordCacheStatistics();
+
+            verify(selfMonitoring).record("geolocation_cache", 2L, ImmutableMap.of("event", "miss"));
+            verifyNoMoreInteractions(selfMonitoring);
+        }
+    }
+}
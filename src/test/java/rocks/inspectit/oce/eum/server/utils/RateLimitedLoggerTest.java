@@ -0,0 +1,95 @@
+package rocks.inspectit.oce.eum.server.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitedLoggerTest {
+
+    @Mock
+    private Logger logger;
+
+    private final AtomicLong time = new AtomicLong(1000);
+
+    private RateLimitedLogger rateLimitedLogger;
+
+    @BeforeEach
+    void setup() {
+        rateLimitedLogger = new RateLimitedLogger(logger, 2, Duration.ofMinutes(10), time::get);
+    }
+
+    @Nested
+    class Warn {
+
+        @Test
+        void belowLimit() {
+            rateLimitedLogger.warn("message {}", 1);
+            rateLimitedLogger.warn("message {}", 2);
+
+            verify(logger).warn("message {}", new Object[]{1});
+            verify(logger).warn("message {}", new Object[]{2});
+            verifyNoMoreInteractions(logger);
+        }
+
+        @Test
+        void limitReached() {
+            for (int i = 0; i < 5; i++) {
+                rateLimitedLogger.warn("message {}", i);
+            }
+
+            verify(logger).warn("message {}", new Object[]{0});
+            verify(logger).warn("message {}", new Object[]{1});
+            verify(logger).warn("Further log messages are suppressed");
+            verifyNoMoreInteractions(logger);
+        }
+
+        @Test
+        void nextWindow() {
+            for (int i = 0; i < 5; i++) {
+                rateLimitedLogger.warn("message {}", i);
+            }
+            time.addAndGet(Duration.ofMinutes(10).toMillis());
+            rateLimitedLogger.warn("message {}", 5);
+
+            verify(logger).warn("message {}", new Object[]{5});
+            verify(logger).warn("Further log messages are suppressed");
+        }
+
+        @Test
+        void concurrentMessages() throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < 100; i++) {
+                    futures.add(executor.submit(() -> rateLimitedLogger.warn("message {}", "concurrent")));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            verify(logger, times(2)).warn(eq("message {}"), any(Object[].class));
+            verify(logger).warn("Further log messages are suppressed");
+            verifyNoMoreInteractions(logger);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package rocks.inspectit.oce.eum.server.utils;
 
+import io.opencensus.tags.TagKey;
 import io.opencensus.tags.TagValue;
 import org.junit.jupiter.api.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 public class TagUtilsTest {
 
@@ -12,6 +14,14 @@ public class TagUtilsTest {
         assertThat(TagUtils.createTagValue("my-tag-key", "my-tag-value")).isEqualTo(TagValue.create("my-tag-value"));
     }
 
+    @Test
+    public void createTagValue_interned() {
+        TagValue first = TagUtils.createTagValue("my-tag-key", "interned-tag-value");
+        TagValue second = TagUtils.createTagValue("other-tag-key", "interned-tag-value");
+
+        assertThat(second).isSameAs(first);
+    }
+
     @Test
     public void createTagValue_tooLong() {
         assertThat(TagUtils.createTagValue("my-tag-key", "this-value-is-over-255-characters-long ----------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------------"))
@@ -23,4 +33,17 @@ public class TagUtilsTest {
         assertThat(TagUtils.createTagValue("my-tag-key", "non-printable-character-\u007f")).isEqualTo(TagValue.create("<invalid>"));
     }
 
+    @Test
+    public void createTagKey() {
+        TagKey first = TagUtils.createTagKey("my-tag-key");
+        TagKey second = TagUtils.createTagKey("my-tag-key");
+
+        assertThat(first).isEqualTo(TagKey.create("my-tag-key"));
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    public void createTagKey_invalid() {
+        assertThatIllegalArgumentException().isThrownBy(() -> TagUtils.createTagKey("non-printable-character-\u007f"));
+    }
 }